@@ -0,0 +1,97 @@
+package benchmarks;
+
+import constants.Commons;
+import constants.enums.Day;
+import objetos.Asignatura;
+import objetos.ClassroomAvailability;
+import objetos.HorarioProfesor;
+import objetos.helper.BatchProposal;
+
+import java.util.*;
+
+/**
+ * Datos sintéticos reproducibles para los benchmarks (salas, propuestas y horarios de profesor).
+ */
+final class Fixtures {
+    static final String KAUFMANN = "Kaufmann";
+    static final String PLAYA_BRAVA = "Playa Brava";
+
+    private Fixtures() {
+    }
+
+    static Asignatura subject(int nivel, int horas, int vacantes, String campus) {
+        return new Asignatura("ASIGNATURA BENCH", nivel, "A", horas, vacantes, campus, "(BENCH-A)");
+    }
+
+    /**
+     * Horario de profesor con {@code assignedBlocks} bloques ya ocupados, repartidos en
+     * {@code subjects} asignaturas y en ambos campus.
+     */
+    static HorarioProfesor professorSchedule(Random random, int subjects, int assignedBlocks) {
+        List<Asignatura> asignaturas = new ArrayList<>();
+        for (int i = 0; i < subjects; i++) {
+            String campus = i % 3 == 0 ? PLAYA_BRAVA : KAUFMANN;
+            asignaturas.add(new Asignatura("ASIGNATURA " + i, 1 + i % 10, "A", 4, 30, campus, "(COD" + i + ")"));
+        }
+        // La asignatura evaluada en los benchmarks siempre forma parte del profesor
+        asignaturas.add(subject(3, 6, 40, KAUFMANN));
+
+        HorarioProfesor horario = new HorarioProfesor(asignaturas);
+        Day[] days = Day.values();
+        int limit = Math.min(assignedBlocks, days.length * Commons.MAX_BLOQUE_DIURNO);
+        int placed = 0;
+        while (placed < limit) {
+            Day day = days[random.nextInt(days.length)];
+            int bloque = 1 + random.nextInt(Commons.MAX_BLOQUE_DIURNO);
+            if (!horario.isBlockAvailable(day, bloque)) {
+                continue;
+            }
+            Asignatura asig = asignaturas.get(random.nextInt(asignaturas.size()));
+            horario.registrarBloque(day, asig, 0, bloque);
+            placed++;
+        }
+        return horario;
+    }
+
+    /**
+     * Una propuesta por sala, con disponibilidad aleatoria similar a la que genera AgenteSala.
+     */
+    static List<BatchProposal> proposals(Random random, int rooms) {
+        List<BatchProposal> proposals = new ArrayList<>(rooms);
+        for (ClassroomAvailability availability : availabilities(random, rooms)) {
+            proposals.add(new BatchProposal(availability, null));
+        }
+        return proposals;
+    }
+
+    /**
+     * Disponibilidad aleatoria de {@code rooms} salas, como la que envía AgenteSala en un PROPOSE.
+     */
+    static List<ClassroomAvailability> availabilities(Random random, int rooms) {
+        List<ClassroomAvailability> availabilities = new ArrayList<>(rooms);
+        for (int i = 0; i < rooms; i++) {
+            boolean kaufmann = random.nextBoolean();
+            String codigo = (kaufmann ? "KAU" : "PB") + i;
+            String campus = kaufmann ? KAUFMANN : PLAYA_BRAVA;
+            int capacidad = 15 + random.nextInt(56);
+
+            Map<String, List<Integer>> available = new HashMap<>();
+            for (Day day : Day.values()) {
+                if (random.nextInt(4) == 0) {
+                    continue;
+                }
+                int start = 1 + random.nextInt(Commons.MAX_BLOQUE_DIURNO);
+                int length = 1 + random.nextInt(4);
+                List<Integer> blocks = new ArrayList<>();
+                for (int b = start; b < start + length && b <= Commons.MAX_BLOQUE_DIURNO; b++) {
+                    blocks.add(b);
+                }
+                available.put(day.toString(), blocks);
+            }
+
+            availabilities.add(new ClassroomAvailability(
+                    codigo, campus, capacidad, available, 1 + random.nextInt(10)));
+        }
+        return availabilities;
+    }
+}
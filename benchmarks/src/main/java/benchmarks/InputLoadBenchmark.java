@@ -0,0 +1,100 @@
+package benchmarks;
+
+import json_stuff.JSONInputReader;
+import objetos.Asignatura;
+import objetos.DatosProfesor;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+/**
+ * Carga de inputOfProfesores.json: el camino anterior con json-simple (parsear el archivo, volver a
+ * serializar cada profesor con toJSONString y parsearlo otra vez en el agente) contra JSONInputReader,
+ * que lo lee una vez directo a DatosProfesor. Usa un archivo sintético con {@code profesores} profesores;
+ * con {@code -prof gc} se ve también la basura generada por cada camino.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InputLoadBenchmark {
+    @Param({"300", "3000"})
+    public int profesores;
+
+    private byte[] archivo;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        archivo = facultad(new Random(42), profesores).toJSONString().getBytes(StandardCharsets.UTF_8);
+
+        if (jsonSimple().size() != streaming().size()) {
+            throw new IllegalStateException("Los dos caminos cargan distinta cantidad de profesores");
+        }
+    }
+
+    @Benchmark
+    public List<List<Asignatura>> jsonSimple() throws IOException, ParseException {
+        JSONArray profesoresJson = (JSONArray) new JSONParser().parse(
+                new InputStreamReader(new ByteArrayInputStream(archivo), StandardCharsets.UTF_8));
+
+        List<List<Asignatura>> cargados = new ArrayList<>();
+        for (Object obj : profesoresJson) {
+            // Aplicacion.initializeProfesores + AgenteProfesor.cargarDatos
+            String jsonString = ((JSONObject) obj).toJSONString();
+            JSONObject profesor = (JSONObject) new JSONParser().parse(jsonString);
+
+            List<Asignatura> asignaturas = new ArrayList<>();
+            for (Object asignatura : (JSONArray) profesor.get("Asignaturas")) {
+                asignaturas.add(Asignatura.fromJson((JSONObject) asignatura));
+            }
+            cargados.add(asignaturas);
+        }
+        return cargados;
+    }
+
+    @Benchmark
+    public List<DatosProfesor> streaming() throws IOException {
+        return JSONInputReader.leerProfesores(new ByteArrayInputStream(archivo), UnaryOperator.identity());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JSONArray facultad(Random random, int total) {
+        JSONArray profesores = new JSONArray();
+        for (int i = 0; i < total; i++) {
+            JSONArray asignaturas = new JSONArray();
+            for (int j = 1 + random.nextInt(4); j > 0; j--) {
+                JSONObject asignatura = new JSONObject();
+                asignatura.put("CodigoAsignatura", "(COD" + random.nextInt(1000) + "-A)");
+                asignatura.put("Nombre", "ASIGNATURA " + random.nextInt(1000));
+                asignatura.put("Nivel", 1 + random.nextInt(10));
+                asignatura.put("Paralelo", "A");
+                asignatura.put("Horas", 2 + 2 * random.nextInt(4));
+                asignatura.put("Vacantes", 15 + random.nextInt(60));
+                asignatura.put("Campus", random.nextBoolean() ? Fixtures.KAUFMANN : Fixtures.PLAYA_BRAVA);
+                asignaturas.add(asignatura);
+            }
+
+            JSONObject profesor = new JSONObject();
+            profesor.put("RUT", (10_000_000 + i) + "-" + random.nextInt(10));
+            profesor.put("Nombre", "PROFESOR " + i);
+            profesor.put("Turno", i + 1);
+            profesor.put("Asignaturas", asignaturas);
+            profesores.add(profesor);
+        }
+        return profesores;
+    }
+}
@@ -0,0 +1,129 @@
+package benchmarks;
+
+import constants.enums.Day;
+import objetos.ClassroomAvailability;
+import objetos.Asignatura;
+import objetos.AssignationData;
+import objetos.helper.BatchAssignmentRequest;
+import objetos.helper.CFPRequest;
+import objetos.helper.MessageCodec;
+import objetos.helper.RoomRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contenido de los PROPOSE y ACCEPT_PROPOSAL: formato binario de MessageCodec contra serialización Java,
+ * que es lo que hacía {@code setContentObject}/{@code getContentObject}. Para el CFP, contra el texto
+ * separado por comas que se armaba con {@code String.format} y se leía con {@code split}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageCodecBenchmark {
+
+    private ClassroomAvailability availability;
+    private BatchAssignmentRequest request;
+    private byte[] availabilityBinary;
+    private byte[] availabilitySerialized;
+    private byte[] requestBinary;
+    private byte[] requestSerialized;
+    private Asignatura subject;
+    private AssignationData assignationData;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Random random = new Random(42);
+        availability = Fixtures.availabilities(random, 1).get(0);
+
+        List<BatchAssignmentRequest.AssignmentRequest> assignments = new ArrayList<>();
+        for (int bloque = 5; bloque <= 8; bloque++) {
+            assignments.add(new BatchAssignmentRequest.AssignmentRequest(
+                    Day.MARTES, bloque, "ASIGNATURA BENCH", 8, availability.getCodigo(), 40));
+        }
+        request = new BatchAssignmentRequest(assignments);
+
+        subject = Fixtures.subject(3, 6, 40, Fixtures.KAUFMANN);
+        assignationData = new AssignationData();
+        assignationData.assign(Day.MARTES, availability.getCodigo(), 6);
+
+        RoomRegistry.registrar(List.of(availability.getCodigo()));
+        availabilityBinary = MessageCodec.encode(availability);
+        availabilitySerialized = serialize(availability);
+        requestBinary = MessageCodec.encode(request);
+        requestSerialized = serialize(request);
+    }
+
+    private static byte[] serialize(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] content) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(content))) {
+            return in.readObject();
+        }
+    }
+
+    @Benchmark
+    public byte[] encodeAvailabilityBinary() throws IOException {
+        return MessageCodec.encode(availability);
+    }
+
+    @Benchmark
+    public byte[] encodeAvailabilitySerialized() throws IOException {
+        return serialize(availability);
+    }
+
+    @Benchmark
+    public ClassroomAvailability decodeAvailabilityBinary() throws IOException {
+        return MessageCodec.decodeAvailability(availabilityBinary);
+    }
+
+    @Benchmark
+    public Object decodeAvailabilitySerialized() throws IOException, ClassNotFoundException {
+        return deserialize(availabilitySerialized);
+    }
+
+    @Benchmark
+    public BatchAssignmentRequest roundTripRequestBinary() throws IOException {
+        return MessageCodec.decodeRequest(MessageCodec.encode(request));
+    }
+
+    @Benchmark
+    public Object roundTripRequestSerialized() throws IOException, ClassNotFoundException {
+        return deserialize(serialize(request));
+    }
+
+    @Benchmark
+    public CFPRequest roundTripCFPBinary() throws IOException {
+        return MessageCodec.decodeCFP(MessageCodec.encode(CFPRequest.of(subject, 4, assignationData)));
+    }
+
+    @Benchmark
+    public int roundTripCFPText() {
+        String content = String.format("%s,%d,%d,%s,%d,%s,%s,%d",
+                subject.getNombre().replaceAll("[^a-zA-Z0-9]", ""),
+                subject.getVacantes(),
+                subject.getNivel(),
+                subject.getCampus(),
+                4,
+                assignationData.getSalaAsignada(),
+                assignationData.getUltimoDiaAsignado().toString(),
+                assignationData.getUltimoBloqueAsignado());
+
+        String[] data = content.split(",");
+        return data[0].replaceAll("[^a-zA-Z0-9]", "").length()
+                + Integer.parseInt(data[1]) + Integer.parseInt(data[2]) + Integer.parseInt(data[4]);
+    }
+}
@@ -0,0 +1,73 @@
+package benchmarks;
+
+import objetos.Asignatura;
+import objetos.HorarioProfesor;
+import objetos.helper.BatchProposal;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import service.ProposalEvaluator;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Camino crítico del agente profesor: filtrado y puntaje de las propuestas de una ronda de CFP.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProposalScoringBenchmark {
+
+    @Param({"10", "100", "500"})
+    public int rooms;
+
+    @Param({"0", "12", "36"})
+    public int assignedBlocks;
+
+    private List<BatchProposal> proposals;
+    private ProposalEvaluator evaluator;
+    private Asignatura subject;
+    private boolean isOddYear;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        HorarioProfesor horario = Fixtures.professorSchedule(random, 8, assignedBlocks);
+        subject = Fixtures.subject(3, 6, 40, Fixtures.KAUFMANN);
+        isOddYear = subject.getNivel() % 2 == 1;
+        proposals = Fixtures.proposals(random, rooms);
+        evaluator = new ProposalEvaluator(horario);
+    }
+
+    @Benchmark
+    public List<BatchProposal> filterAndSortProposals() {
+        return evaluator.filterAndSortProposals(proposals, subject, subject.getHoras());
+    }
+
+    @Benchmark
+    public void isValidProposalFast(Blackhole bh) {
+        for (BatchProposal proposal : proposals) {
+            bh.consume(evaluator.isValidProposalFast(proposal, subject, isOddYear,
+                    subject.getNombre(), subject.getHoras()));
+        }
+    }
+
+    @Benchmark
+    public void calculateProposalScore(Blackhole bh) {
+        for (BatchProposal proposal : proposals) {
+            bh.consume(evaluator.calculateProposalScore(proposal, subject.getCampus(),
+                    subject.getNivel(), subject));
+        }
+    }
+
+    @Benchmark
+    public void checkCampusConstraints(Blackhole bh) {
+        for (BatchProposal proposal : proposals) {
+            bh.consume(evaluator.checkCampusConstraints(proposal, subject.getCampus()));
+        }
+    }
+}
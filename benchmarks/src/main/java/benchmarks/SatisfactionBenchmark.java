@@ -0,0 +1,150 @@
+package benchmarks;
+
+import constants.Commons;
+import constants.enums.Day;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import service.BitmaskTimetablingEvaluator;
+import service.TimetablingEvaluator;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Puntaje de satisfacción de AgenteSala: TimetablingEvaluator (mapa día -> bloques) contra
+ * BitmaskTimetablingEvaluator (semana en un long, completa o como delta de un bloque). Que los tres
+ * den el mismo puntaje lo verifica BitmaskTimetablingEvaluatorTest en core.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SatisfactionBenchmark {
+    private static final Day[] DAYS = Day.values();
+    private static final int BLOCKS = Commons.MAX_BLOQUE_DIURNO;
+
+    @Param({"0", "12", "36"})
+    public int assignedBlocks;
+
+    private Caso[] casos;
+
+    static final class Caso {
+        final int capacidad;
+        final int estudiantes;
+        final int nivel;
+        final String campus;
+        final String preferido;
+        final int bloque;
+        final long semana;
+        final Map<Day, List<Integer>> bloquesPorDia;
+        final Day dia; // día del bloque evaluado, null si el bloque está fuera de rango
+        final long previa; // semana antes de agregar el bloque
+
+        Caso(int capacidad, int estudiantes, int nivel, String campus, String preferido, int bloque,
+             long semana, Map<Day, List<Integer>> bloquesPorDia, Day dia, long previa) {
+            this.capacidad = capacidad;
+            this.estudiantes = estudiantes;
+            this.nivel = nivel;
+            this.campus = campus;
+            this.preferido = preferido;
+            this.bloque = bloque;
+            this.semana = semana;
+            this.bloquesPorDia = bloquesPorDia;
+            this.dia = dia;
+            this.previa = previa;
+        }
+
+        int original() {
+            return TimetablingEvaluator.calculateSatisfaction(
+                    capacidad, estudiantes, nivel, campus, preferido, bloque, bloquesPorDia);
+        }
+
+        int bitmask() {
+            return BitmaskTimetablingEvaluator.calculateSatisfaction(
+                    capacidad, estudiantes, nivel, campus, preferido, bloque, semana);
+        }
+
+        int delta() {
+            return BitmaskTimetablingEvaluator.calculateSatisfactionDelta(capacidad, estudiantes, nivel, campus,
+                    preferido, previa, BitmaskTimetablingEvaluator.diasConHueco(previa), dia, bloque);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        casos = new Caso[1024];
+        for (int i = 0; i < casos.length; i++) {
+            casos[i] = caso(random, 15 + random.nextInt(56), 9 + random.nextInt(62), assignedBlocks);
+        }
+    }
+
+    @Benchmark
+    public void mapEvaluator(Blackhole bh) {
+        for (Caso caso : casos) {
+            bh.consume(caso.original());
+        }
+    }
+
+    @Benchmark
+    public void bitmaskEvaluator(Blackhole bh) {
+        for (Caso caso : casos) {
+            bh.consume(caso.bitmask());
+        }
+    }
+
+    @Benchmark
+    public void deltaEvaluator(Blackhole bh) {
+        for (Caso caso : casos) {
+            if (caso.dia != null) {
+                bh.consume(caso.delta());
+            }
+        }
+    }
+
+    private static Caso caso(Random random, int capacidad, int estudiantes, int ocupados) {
+        long semana = 0;
+        int limite = Math.min(ocupados, DAYS.length * BLOCKS);
+        while (Long.bitCount(semana) < limite) {
+            semana |= 1L << random.nextInt(DAYS.length * BLOCKS);
+        }
+        return caso(random, capacidad, estudiantes, semana);
+    }
+
+    private static Caso caso(Random random, int capacidad, int estudiantes, long semana) {
+        int nivel = random.nextInt(12);
+        int bloque = random.nextInt(BLOCKS + 2); // 0 y 10 fuera de rango
+        String preferido = random.nextBoolean() ? Fixtures.KAUFMANN : Fixtures.PLAYA_BRAVA;
+        String campus = random.nextInt(3) == 0 ? Fixtures.PLAYA_BRAVA : Fixtures.KAUFMANN;
+
+        // Como en HorarioSala, el bloque evaluado forma parte del horario
+        long previa = semana;
+        Day dia = null;
+        if (bloque >= 1 && bloque <= BLOCKS) {
+            dia = DAYS[random.nextInt(DAYS.length)];
+            semana |= 1L << (dia.ordinal() * BLOCKS + bloque - 1);
+        }
+        return new Caso(capacidad, estudiantes, nivel, campus, preferido, bloque, semana,
+                bloquesPorDia(random, semana), dia, previa);
+    }
+
+    // Mismo horario en el formato de TimetablingEvaluator, con los bloques desordenados
+    private static Map<Day, List<Integer>> bloquesPorDia(Random random, long semana) {
+        Map<Day, List<Integer>> bloques = new HashMap<>();
+        for (Day day : DAYS) {
+            List<Integer> delDia = new ArrayList<>();
+            for (int bloque = 1; bloque <= BLOCKS; bloque++) {
+                if ((semana & (1L << (day.ordinal() * BLOCKS + bloque - 1))) != 0) {
+                    delDia.add(bloque);
+                }
+            }
+            if (!delDia.isEmpty()) {
+                Collections.shuffle(delDia, random);
+                bloques.put(day, delDia);
+            }
+        }
+        return bloques;
+    }
+}
@@ -0,0 +1,94 @@
+package service;
+
+import constants.Commons;
+import constants.enums.Day;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * BitmaskTimetablingEvaluator (semana completa y delta de un bloque) debe dar el mismo puntaje que
+ * TimetablingEvaluator: entradas aleatorias (incluidos estudiantes y bloques fuera de rango y capacidades
+ * fuera de la tabla precalculada) más todas las máscaras posibles de cada día.
+ */
+class BitmaskTimetablingEvaluatorTest {
+    private static final Day[] DAYS = Day.values();
+    private static final int BLOCKS = Commons.MAX_BLOQUE_DIURNO;
+    private static final String KAUFMANN = "Kaufmann";
+    private static final String PLAYA_BRAVA = "Playa Brava";
+
+    @Test
+    void casosAleatorios() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            verificar(random, random.nextInt(200), random.nextInt(90), semanaAleatoria(random, random.nextInt(45)));
+        }
+    }
+
+    @Test
+    void todasLasMascarasDeUnDia() {
+        Random random = new Random(42);
+        for (Day day : DAYS) {
+            for (int mascara = 0; mascara <= (1 << BLOCKS) - 1; mascara++) {
+                long semana = (long) mascara << (day.ordinal() * BLOCKS);
+                verificar(random, 15 + random.nextInt(56), 9 + random.nextInt(62), semana);
+            }
+        }
+    }
+
+    private static long semanaAleatoria(Random random, int ocupados) {
+        long semana = 0;
+        int limite = Math.min(ocupados, DAYS.length * BLOCKS);
+        while (Long.bitCount(semana) < limite) {
+            semana |= 1L << random.nextInt(DAYS.length * BLOCKS);
+        }
+        return semana;
+    }
+
+    private static void verificar(Random random, int capacidad, int estudiantes, long semana) {
+        int nivel = random.nextInt(12);
+        int bloque = random.nextInt(BLOCKS + 2); // 0 y 10 fuera de rango
+        String preferido = random.nextBoolean() ? KAUFMANN : PLAYA_BRAVA;
+        String campus = random.nextInt(3) == 0 ? PLAYA_BRAVA : KAUFMANN;
+
+        // Como en HorarioSala, el bloque evaluado forma parte del horario
+        long previa = semana;
+        Day dia = null;
+        if (bloque >= 1 && bloque <= BLOCKS) {
+            dia = DAYS[random.nextInt(DAYS.length)];
+            semana |= 1L << (dia.ordinal() * BLOCKS + bloque - 1);
+        }
+
+        String caso = String.format("capacidad=%d estudiantes=%d nivel=%d bloque=%d semana=%s",
+                capacidad, estudiantes, nivel, bloque, Long.toBinaryString(semana));
+        int esperado = TimetablingEvaluator.calculateSatisfaction(
+                capacidad, estudiantes, nivel, campus, preferido, bloque, bloquesPorDia(random, semana));
+        assertEquals(esperado, BitmaskTimetablingEvaluator.calculateSatisfaction(
+                capacidad, estudiantes, nivel, campus, preferido, bloque, semana), caso);
+        if (dia != null) {
+            assertEquals(esperado, BitmaskTimetablingEvaluator.calculateSatisfactionDelta(capacidad, estudiantes,
+                    nivel, campus, preferido, previa, BitmaskTimetablingEvaluator.diasConHueco(previa), dia, bloque),
+                    "delta: " + caso);
+        }
+    }
+
+    // Mismo horario en el formato de TimetablingEvaluator, con los bloques desordenados
+    private static Map<Day, List<Integer>> bloquesPorDia(Random random, long semana) {
+        Map<Day, List<Integer>> bloques = new HashMap<>();
+        for (Day day : DAYS) {
+            List<Integer> delDia = new ArrayList<>();
+            for (int bloque = 1; bloque <= BLOCKS; bloque++) {
+                if ((semana & (1L << (day.ordinal() * BLOCKS + bloque - 1))) != 0) {
+                    delDia.add(bloque);
+                }
+            }
+            if (!delDia.isEmpty()) {
+                Collections.shuffle(delDia, random);
+                bloques.put(day, delDia);
+            }
+        }
+        return bloques;
+    }
+}
@@ -0,0 +1,223 @@
+package agentes;
+
+import checkpoint.Checkpoint;
+import checkpoint.CheckpointStore;
+import constants.Config;
+import jade.core.Agent;
+import jade.core.behaviours.CyclicBehaviour;
+import jade.domain.DFService;
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.Property;
+import jade.domain.FIPAAgentManagement.ServiceDescription;
+import jade.domain.FIPAException;
+import jade.domain.FIPANames;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+import json_stuff.SalaHorarioJSON;
+import metricas.Medidor;
+import metricas.MetricasHorario;
+import metricas.RegistroMetricas;
+import objetos.CatalogoSalas;
+import objetos.ClassroomAvailability;
+import objetos.DatosSala;
+import objetos.HorarioSala;
+import objetos.helper.BatchAssignmentConfirmation;
+import objetos.helper.BatchAssignmentRequest;
+import objetos.helper.CFPRequest;
+import objetos.helper.MessageCodec;
+
+import java.util.*;
+
+/**
+ * Atiende varias salas (las de un campus) desde un solo agente, con {@code salas.host=true}. Publica en el DF
+ * un servicio {@link AgenteSala#SERVICE_NAME} por sala, así que los profesores ven las mismas salas que con
+ * un AgenteSala por sala, pero le envían un solo CFP y reciben un solo PROPOSE con la disponibilidad de
+ * todas sus salas factibles. Los ACCEPT_PROPOSAL siguen siendo por sala, con el mismo contenido.
+ */
+public class AgenteHostSalas extends Agent {
+    public static final String AGENT_NAME = "HostSalas";
+    private static final Medidor BUZON = RegistroMetricas.getInstance().medidor("buzon.sala");
+
+    private final Map<String, HorarioSala> salas = new LinkedHashMap<>();
+    private CatalogoSalas<HorarioSala> catalogo;
+    private boolean isRegistered = false;
+
+    @Override
+    protected void setup() {
+        // Salas del campus, ya leídas por Aplicacion, y el checkpoint del que se reanuda (o null)
+        Object[] args = getArguments();
+        @SuppressWarnings("unchecked")
+        List<DatosSala> datos = (List<DatosSala>) args[0];
+        Checkpoint checkpoint = args.length > 1 ? (Checkpoint) args[1] : null;
+
+        // Mismo orden que AgenteSala.setup
+        for (DatosSala sala : datos) {
+            String codigo = sala.getCodigo();
+            HorarioSala horario = new HorarioSala(codigo, sala.getCampus(), sala.getCapacidad(), sala.getTurno());
+            MetricasHorario.getInstance().registrarSala(codigo, horario.getCapacidad());
+            SalaHorarioJSON.getInstance().registrarSala(codigo, horario.getCampus());
+            if (checkpoint != null && checkpoint.getSala(codigo) != null) {
+                horario.restaurar(checkpoint.getSala(codigo));
+                SalaHorarioJSON.getInstance().restaurarSala(codigo, horario.getCampus(), horario.getOcupacion());
+                MetricasHorario.getInstance().restaurarSala(codigo, horario.getOcupacion());
+            }
+            CheckpointStore.getInstance().registrarSala(horario);
+            salas.put(codigo, horario);
+        }
+        catalogo = new CatalogoSalas<>(salas.values(), HorarioSala::getCampus, HorarioSala::getCapacidad);
+
+        registrarEnDF();
+        addBehaviour(new ResponderSolicitudesBehaviour());
+        addBehaviour(new AgenteSala.ProfessorMonitorBehaviour(this, this::terminarSinProfesores));
+    }
+
+    private void registrarEnDF() {
+        try {
+            DFAgentDescription dfd = new DFAgentDescription();
+            dfd.setName(getAID());
+            for (HorarioSala sala : salas.values()) {
+                ServiceDescription sd = new ServiceDescription();
+                sd.setType(AgenteSala.SERVICE_NAME);
+                sd.setName(sala.getCodigo());
+                sd.addProperties(new Property("campus", sala.getCampus()));
+                sd.addProperties(new Property("turno", sala.getTurno()));
+                sd.addProperties(new Property("capacidad", sala.getCapacidad()));
+                dfd.addServices(sd);
+            }
+            DFService.register(this, dfd);
+            isRegistered = true;
+        } catch (FIPAException fe) {
+            fe.printStackTrace();
+        }
+    }
+
+    // Igual que en AgenteSala: cuando ya no quedan profesores en el DF, el host termina
+    private void terminarSinProfesores() {
+        if (isRegistered) {
+            try {
+                DFService.deregister(this);
+                isRegistered = false;
+                doDelete();
+            } catch (FIPAException fe) {
+                fe.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Evalúa las salas del catálogo factibles para el CFP (mismo campus, capacidad suficiente) y responde
+     * una sola vez: PROPOSE con la disponibilidad de todas ellas, o REFUSE si ninguna tiene bloques.
+     * Lo usan el host con sus salas y AgenteTablon con su copia de todas.
+     */
+    static void responderCFP(Agent agente, ACLMessage msg, CatalogoSalas<HorarioSala> catalogo) {
+        try {
+            CFPRequest solicitud = MessageCodec.decodeCFP(msg.getByteSequenceContent());
+
+            List<ClassroomAvailability> disponibles = new ArrayList<>();
+            for (HorarioSala sala : catalogo.candidatas(solicitud.getCampus(), solicitud.getVacancies())) {
+                ClassroomAvailability availability = sala.evaluarSolicitud(
+                        solicitud.getSubjectName(),
+                        solicitud.getVacancies(),
+                        solicitud.getLevel(),
+                        solicitud.getCampus(),
+                        solicitud.getPendingBlocks()
+                );
+                if (availability != null) {
+                    disponibles.add(availability);
+                }
+            }
+
+            ACLMessage reply = msg.createReply();
+            reply.setProtocol(FIPANames.InteractionProtocol.FIPA_CONTRACT_NET);
+            if (disponibles.isEmpty()) {
+                reply.setPerformative(ACLMessage.REFUSE);
+            } else {
+                reply.setPerformative(ACLMessage.PROPOSE);
+                reply.setByteSequenceContent(MessageCodec.encode(disponibles));
+            }
+            agente.send(reply);
+        } catch (Exception e) {
+            System.err.println("Error processing request in " + agente.getLocalName() + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private class ResponderSolicitudesBehaviour extends CyclicBehaviour {
+        private final MessageTemplate mt = MessageTemplate.or(
+                MessageTemplate.MatchPerformative(ACLMessage.CFP),
+                MessageTemplate.MatchPerformative(ACLMessage.ACCEPT_PROPOSAL)
+        );
+
+        @Override
+        public void action() {
+            ACLMessage msg = receive(mt);
+            if (msg == null) {
+                block();
+                return;
+            }
+
+            BUZON.registrar(getCurQueueSize());
+            if (msg.getPerformative() == ACLMessage.CFP) {
+                responderCFP(AgenteHostSalas.this, msg, catalogo);
+            } else {
+                confirmarAsignacion(msg);
+            }
+        }
+
+        // Como AgenteSala.confirmarAsignacion; cada ACCEPT trae las asignaciones de una sala
+        private void confirmarAsignacion(ACLMessage msg) {
+            try {
+                BatchAssignmentRequest batchRequest = MessageCodec.decodeRequest(msg.getByteSequenceContent());
+                List<BatchAssignmentConfirmation.ConfirmedAssignment> confirmedAssignments = new ArrayList<>();
+
+                Set<String> codigos = new LinkedHashSet<>();
+                for (BatchAssignmentRequest.AssignmentRequest request : batchRequest.getAssignments()) {
+                    codigos.add(request.getClassroomCode());
+                }
+                for (String codigo : codigos) {
+                    HorarioSala sala = salas.get(codigo);
+                    if (sala == null) {
+                        continue;
+                    }
+                    List<BatchAssignmentConfirmation.ConfirmedAssignment> confirmadas =
+                            sala.confirmarAsignaciones(batchRequest);
+                    if (!confirmadas.isEmpty()) {
+                        SalaHorarioJSON.getInstance().agregarAsignaciones(codigo, sala.getCampus(), sala.getOcupacion(), confirmadas);
+                        MetricasHorario.getInstance().registrarAsignaciones(codigo, sala.getOcupacion(), confirmadas);
+                        confirmedAssignments.addAll(confirmadas);
+                    }
+                }
+
+                if (!confirmedAssignments.isEmpty() && Config.TABLON_DISPONIBILIDAD) {
+                    AgenteTablon.publicarOcupacion(AgenteHostSalas.this, msg.getByteSequenceContent());
+                }
+
+                ACLMessage reply = msg.createReply();
+                if (confirmedAssignments.isEmpty()) {
+                    // Responder igual, para que el profesor no espere el timeout de confirmación
+                    reply.setPerformative(ACLMessage.FAILURE);
+                } else {
+                    reply.setPerformative(ACLMessage.INFORM);
+                    reply.setByteSequenceContent(MessageCodec.encode(new BatchAssignmentConfirmation(confirmedAssignments)));
+                }
+                send(reply);
+            } catch (Exception e) {
+                System.err.println("Error procesando confirmación en " + getLocalName() + ": " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+
+    @Override
+    protected void takeDown() {
+        if (isRegistered) {
+            try {
+                DFService.deregister(this);
+            } catch (FIPAException fe) {
+                System.out.println(getLocalName() + " was already deregistered");
+            }
+            isRegistered = false;
+        }
+        System.out.println(getLocalName() + " finalizado con " + salas.size() + " salas");
+    }
+}
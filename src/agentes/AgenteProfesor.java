@@ -1,7 +1,9 @@
 package agentes;
 
 import behaviours.MessageCollectorBehaviour;
+import checkpoint.CheckpointStore;
 import behaviours.NegotiationStateBehaviour;
+import constants.Config;
 import constants.Messages;
 import constants.enums.Day;
 import debugscreens.ProfessorDebugViewer;
@@ -17,12 +19,13 @@ import jade.domain.FIPAAgentManagement.ServiceDescription;
 import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
 import json_stuff.ProfesorHorarioJSON;
+import objetos.AsignacionProfesor;
 import objetos.Asignatura;
 import objetos.BloqueInfo;
+import objetos.DatosProfesor;
+import objetos.HorarioProfesor;
 import objetos.helper.BatchProposal;
 import org.json.simple.JSONObject;
-import org.json.simple.JSONArray;
-import org.json.simple.parser.JSONParser;
 
 import javax.swing.*;
 import java.util.*;
@@ -35,15 +38,14 @@ public class AgenteProfesor extends Agent {
     public static final String SERVICE_NAME = AGENT_NAME.toLowerCase(Locale.ROOT);
     private String nombre;
     private List<Asignatura> asignaturas;
-    private int asignaturaActual = 0;
-    private Map<Day, Set<Integer>> horarioOcupado; // dia -> bloques
+    private HorarioProfesor horario; // dia -> bloques, instancia -> bloques
     private int orden;
-    private JSONObject horarioJSON;
     private boolean isRegistered = false;
     private boolean isCleaningUp = false;
+    private DFCache.Suscripcion salasSuscripcion; // mantiene al día la lista de salas de DFCache
+    private int confirmacionesFallidas = 0; // ACCEPT rechazados o sin respuesta, para el supervisor
+    private boolean terminoReportado = false;
     //TODO: Cambiar el mapeo de string a int porque los días son del 0-6 (asumiendo que el lunes es 0).
-    //TODO-2: Pienso que puede ser mejor tener un objeto que contenga la información de los bloques asignados.
-    private Map<Day, Map<String, List<Integer>>> bloquesAsignadosPorDia; // dia -> (bloque -> asignatura)
 
     //METODOS EXPUESTOS PARA EL BEHAVIOUR
     @Override
@@ -72,127 +74,43 @@ public class AgenteProfesor extends Agent {
     }
 
     public synchronized boolean canUseMoreSubjects() {
-        try {
-            // First check basic index bounds
-            if (asignaturaActual >= asignaturas.size()) {
-                return false;
-            }
-
-            // Validate the current subject exists
-            Asignatura current = asignaturas.get(asignaturaActual);
-            if (current == null) {
-                System.out.println("Warning: Null subject at index " + asignaturaActual);
-                return false;
-            }
-
-            return true;
-        } catch (IndexOutOfBoundsException e) {
-            System.err.printf("Index out of bounds checking for more subjects: %d/%d%n",
-                    asignaturaActual, asignaturas.size());
-            return false;
-        }
+        return horario.canUseMoreSubjects();
     }
 
     public synchronized Asignatura getCurrentSubject() {
-        if (!canUseMoreSubjects()) {
-            return null;
-        }
-        return asignaturas.get(asignaturaActual);
+        return horario.getCurrentSubject();
     }
 
     public int getOrden() {
         return orden;
     }
 
-    private int currentInstanceIndex = 0;
-
     public synchronized void moveToNextSubject() {
-        System.out.printf("[MOVE] Moving from subject index %d (total: %d)%n",
-                asignaturaActual, asignaturas.size());
-
-        if (asignaturaActual >= asignaturas.size()) {
-            System.out.println("[MOVE] Already at last subject");
-            return;
-        }
-
-        String currentName = getCurrentSubject().getNombre();
-        String currentCode = getCurrentSubject().getCodigoAsignatura();
-        asignaturaActual++;
-
-        if (asignaturaActual < asignaturas.size()) {
-            Asignatura next = asignaturas.get(asignaturaActual);
-            if (next.getNombre().equals(currentName) &&
-                    next.getCodigoAsignatura().equals(currentCode)) {
-                currentInstanceIndex++;
-                System.out.printf("[MOVE] Moving to next instance (%d) of %s%n",
-                        currentInstanceIndex, currentName);
-            } else {
-                currentInstanceIndex = 0;
-                System.out.printf("[MOVE] Moving to new subject %s%n",
-                        next.getNombre());
-            }
-        } else {
-            System.out.println("[MOVE] Reached end of subjects");
-        }
+        horario.moveToNextSubject();
     }
 
     public boolean isBlockAvailable(Day dia, int bloque) {
-        return !horarioOcupado.containsKey(dia) || !horarioOcupado.get(dia).contains(bloque);
+        return horario.isBlockAvailable(dia, bloque);
     }
 
     public String getNombre() {
         return nombre;
     }
 
+    public HorarioProfesor getHorario() {
+        return horario;
+    }
+
     public Map<String, List<Integer>> getBlocksByDay(Day dia) {
-        return bloquesAsignadosPorDia.getOrDefault(dia, new HashMap<>());
+        return horario.getBlocksByDay(dia);
     }
 
     public Map<Day, List<Integer>> getBlocksBySubject(String nombreAsignatura) {
-        Map<Day, List<Integer>> bloquesAsignados = new HashMap<>();
-        for (Map.Entry<Day, Map<String, List<Integer>>> entry : bloquesAsignadosPorDia.entrySet()) {
-            // Look for all keys that start with the asignatura name
-            for (Map.Entry<String, List<Integer>> subjectEntry : entry.getValue().entrySet()) {
-                if (subjectEntry.getKey().startsWith(nombreAsignatura)) {
-                    if (!subjectEntry.getValue().isEmpty()) {
-                        bloquesAsignados.computeIfAbsent(entry.getKey(), k -> new ArrayList<>())
-                                .addAll(subjectEntry.getValue());
-                    }
-                }
-            }
-        }
-        return bloquesAsignados;
+        return horario.getBlocksBySubject(nombreAsignatura);
     }
 
     public BloqueInfo getBloqueInfo(Day dia, int bloque) {
-        Map<String, List<Integer>> clasesDelDia = getBlocksByDay(dia);
-        if(clasesDelDia == null) {
-            return null;
-        }
-
-        for (Map.Entry<String, List<Integer>> entry : clasesDelDia.entrySet()) {
-            //si no hay bloque asociado a la asignatura, pasar de largo
-            if(!entry.getValue().contains(bloque)) {
-                continue;
-            }
-            // Buscar el campus de la asignatura
-            for (Asignatura asig : asignaturas) {
-                if (asig.getNombre().equals(entry.getKey())) {
-                    return new BloqueInfo(asig.getCampus(), bloque);
-                }
-            }
-        }
-
-        //agregar esto mientras refactorizo lo otro
-        return null;
-    }
-
-    private String getCurrentInstanceKey() {
-        Asignatura current = getCurrentSubject();
-        return String.format("%s-%s-%d",
-                current.getNombre(),
-                current.getCodigoAsignatura(),
-                currentInstanceIndex);  // Instance index
+        return horario.getBloqueInfo(dia, bloque);
     }
 
     public void setDebugWindow(ProfessorDebugViewer debugWindow) {
@@ -201,19 +119,12 @@ public class AgenteProfesor extends Agent {
 
     //TODO: Refactorizar esto, ya que se ve bien feo
     public void updateScheduleInfo(Day dia, String sala, int bloque, String nombreAsignatura, int satisfaccion) {
-        String currentInstanceKey = getCurrentInstanceKey();
-
-        // Update horario ocupado
-        horarioOcupado.computeIfAbsent(dia, k -> new HashSet<>()).add(bloque);
-
-        // Update bloques por día with instance information
-        bloquesAsignadosPorDia.computeIfAbsent(dia, k -> new HashMap<>())
-                .computeIfAbsent(currentInstanceKey, k -> new ArrayList<>())
-                .add(bloque);
+        // Update horario ocupado, bloques por día with instance information y JSON
+        horario.registrarAsignacion(dia, sala, bloque, satisfaccion);
 
-        actualizarHorarioJSON(dia, sala, bloque, satisfaccion);//, currentInstanceKey);
-
-        if (debugWindow != null && horarioJSON != null && horarioJSON.containsKey("Asignaturas")) {
+        if (debugWindow != null) {
+            JSONObject horarioJSON = horario.getHorarioJSON();
+            int asignaturaActual = horario.getAsignaturaActual();
             SwingUtilities.invokeLater(() -> {
                 try {
                     debugWindow.updateSchedule(horarioJSON, asignaturaActual, asignaturas.size());
@@ -241,12 +152,17 @@ public class AgenteProfesor extends Agent {
 
     @Override
     protected void setup() {
-        // Load data from JSON
+        // Datos del profesor, ya leídos por Aplicacion
         Object[] args = getArguments();
+        int primerOrden = 0; // quien parte con el turno (distinto de 0 al reanudar desde un checkpoint)
         if (args != null && args.length > 1) {
-            String jsonString = (String) args[0];
+            DatosProfesor datos = (DatosProfesor) args[0];
             orden = (Integer) args[1];
-            cargarDatos(jsonString);
+            nombre = datos.getNombre();
+            asignaturas = datos.getAsignaturas();
+        }
+        if (args != null && args.length > 2) {
+            primerOrden = (Integer) args[2];
         }
 
         // Initialize data structures
@@ -265,12 +181,17 @@ public class AgenteProfesor extends Agent {
         // Register in DF
         registrarEnDF();
 
+        // Keep the room directory current through DF notifications instead of repeated searches
+        salasSuscripcion = DFCache.subscribe(this, AgenteSala.SERVICE_NAME);
+
         // Create shared proposal queue and behaviors
         ConcurrentLinkedQueue<BatchProposal> batchProposals = new ConcurrentLinkedQueue<>();
-        NegotiationStateBehaviour stateBehaviour = new NegotiationStateBehaviour(this, 500, batchProposals);
+        NegotiationStateBehaviour stateBehaviour = new NegotiationStateBehaviour(this,
+                Config.PERIODO_NEGOCIACION, Config.NEGOCIACION_POR_EVENTOS, batchProposals);
         MessageCollectorBehaviour messageCollector = new MessageCollectorBehaviour(this, batchProposals, stateBehaviour);
 
-        if (orden == 0) {
+        // Los primeros K profesores desde el turno inicial parten de inmediato
+        if (orden >= primerOrden && orden < primerOrden + Config.PROFESORES_CONCURRENTES) {
             addBehaviour(stateBehaviour);
             addBehaviour(messageCollector);
         } else {
@@ -283,18 +204,8 @@ public class AgenteProfesor extends Agent {
     }
 
     private void initializeDataStructures() {
-        // Initialize schedule tracking
-        horarioOcupado = new HashMap<>();
-
-        // Initialize JSON structures
-        horarioJSON = new JSONObject();
-        horarioJSON.put("Asignaturas", new JSONArray());
-
-        // Initialize daily block assignments
-        bloquesAsignadosPorDia = new HashMap<>();
-        for (Day dia : Day.values()) {
-            bloquesAsignadosPorDia.put(dia, new HashMap<>());
-        }
+        // Initialize schedule tracking and JSON structures
+        horario = new HorarioProfesor(asignaturas);
     }
 
     private void registrarEnDF() {
@@ -325,27 +236,6 @@ public class AgenteProfesor extends Agent {
         return name.replaceAll("[^a-zA-Z0-9]", "");
     }
 
-    private void cargarDatos(String jsonString) {
-        // Parsear JSON y cargar datos del profesor y asignaturas en listas de objetos
-        try {
-            // Cargar datos del profesor
-            JSONParser parser = new JSONParser();
-            JSONObject jsonObject = (JSONObject) parser.parse(jsonString);
-            nombre = (String) jsonObject.get("Nombre");
-
-            // Cargar asignaturas
-            asignaturas = new ArrayList<>();
-            JSONArray asignaturasJson = (JSONArray) jsonObject.get("Asignaturas");
-            for (Object obj : asignaturasJson) {
-                JSONObject asignaturaJson = (JSONObject) obj;
-                Asignatura parsedSubject = Asignatura.fromJson(asignaturaJson);
-                asignaturas.add(parsedSubject);
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-    }
-
     public class EsperarTurnoBehaviour extends CyclicBehaviour {
         private final AgenteProfesor profesor;
         private final NegotiationStateBehaviour stateBehaviour;
@@ -390,21 +280,26 @@ public class AgenteProfesor extends Agent {
         }
     }
 
-    //why is this a god object?
-    public void actualizarHorarioJSON(Day dia, String sala, int bloque, int satisfaccion) {
-        // Get current subject
-        Asignatura currentSubject = asignaturas.get(asignaturaActual);
-
-        JSONObject asignatura = new JSONObject();
-        asignatura.put("Nombre", currentSubject.getNombre());
-        asignatura.put("Sala", sala);
-        asignatura.put("Bloque", bloque);
-        asignatura.put("Dia", dia.getDisplayName());
-        asignatura.put("Satisfaccion", satisfaccion);
-        asignatura.put("CodigoAsignatura", currentSubject.getCodigoAsignatura());
-        asignatura.put("Instance", currentInstanceIndex); // or currentInstanceIndex if you have it
-
-        ((JSONArray) horarioJSON.get("Asignaturas")).add(asignatura);
+    public void registrarConfirmacionesFallidas(int cantidad) {
+        confirmacionesFallidas += cantidad;
+    }
+
+    /**
+     * Reporta al AgenteSupervisor el avance (Messages.PROGRESS), el término (DONE) o una falla (FAILED), con las
+     * asignaturas ya procesadas, los bloques asignados y las confirmaciones fallidas.
+     */
+    public void reportarEstado(String estado) {
+        ACLMessage msg = new ACLMessage(ACLMessage.INFORM);
+        msg.addReceiver(new AID(AgenteSupervisor.AGENT_NAME, AID.ISLOCALNAME));
+        msg.setConversationId(AgenteSupervisor.CONVERSACION_ESTADO);
+        msg.setContent(estado);
+        msg.addUserDefinedParameter("asignaturas", Integer.toString(horario.getAsignaturaActual()));
+        msg.addUserDefinedParameter("bloques", Integer.toString(horario.getAsignaciones().size()));
+        msg.addUserDefinedParameter("fallas", Integer.toString(confirmacionesFallidas));
+        send(msg);
+        if (!Messages.PROGRESS.equals(estado)) {
+            terminoReportado = true;
+        }
     }
 
     public void finalizarNegociaciones() {
@@ -417,7 +312,9 @@ public class AgenteProfesor extends Agent {
 
             // Guardar horario final
             ProfesorHorarioJSON.getInstance().agregarHorarioProfesor(
-                    nombre, horarioJSON, asignaturas);
+                    nombre, horario.getAsignaciones(), asignaturas);
+            CheckpointStore.getInstance().profesorTerminado(orden, nombre, horario);
+            reportarEstado(Messages.DONE);
 
             // Notificar al siguiente profesor antes de hacer cleanup
             notificarSiguienteProfesor();
@@ -427,12 +324,16 @@ public class AgenteProfesor extends Agent {
         } catch (Exception e) {
             System.err.println("Error finalizando negociaciones para profesor " + nombre + ": " + e.getMessage());
             e.printStackTrace();
+            if (!terminoReportado) {
+                reportarEstado(Messages.FAILED);
+            }
         }
     }
 
+    // Con K profesores concurrentes el turno pasa a orden + K, así siempre hay K negociando
     private void notificarSiguienteProfesor() {
         try {
-            int nextOrden = orden + 1;
+            int nextOrden = orden + Config.PROFESORES_CONCURRENTES;
 
             Property ordenProp = new Property();
             ordenProp.setName("orden");
@@ -486,9 +387,10 @@ public class AgenteProfesor extends Agent {
                     System.out.println("Professor " + nombre + " was already deregistered");
                 }
                 isRegistered = false;
+            }
 
-                // Invalidate DF cache since we're deregistering
-                DFCache.invalidateCache();
+            if (salasSuscripcion != null) {
+                salasSuscripcion.cancelar();
             }
 
             // Use CompletableFuture for graceful shutdown
@@ -511,17 +413,21 @@ public class AgenteProfesor extends Agent {
 
     @Override
     protected void takeDown() {
+        if (salasSuscripcion != null) {
+            salasSuscripcion.cancelar();
+        }
+        // Eliminado sin terminar la negociación
+        if (!terminoReportado) {
+            reportarEstado(Messages.FAILED);
+        }
+
         // Get actual completion numbers
         Map<String, Integer> assignedHours = new HashMap<>();
-        JSONArray asignaturas = (JSONArray) horarioJSON.get("Asignaturas");
 
         // Count assigned hours per instance
-        for (Object obj : asignaturas) {
-            JSONObject asignatura = (JSONObject) obj;
-            String nombreAsig = (String) asignatura.get("Nombre");
-            String codigo = (String) asignatura.get("CodigoAsignatura");
-            int instance = ((Number) asignatura.get("Instance")).intValue();
-            String instanceKey = String.format("%s-%s-%d", nombreAsig, codigo, instance);
+        for (AsignacionProfesor asignacion : horario.getAsignaciones()) {
+            String instanceKey = String.format("%s-%s-%d",
+                    asignacion.getNombre(), asignacion.getCodigoAsignatura(), asignacion.getInstance());
             assignedHours.merge(instanceKey, 1, Integer::sum);
         }
 
@@ -1,12 +1,14 @@
 package agentes;
 
-import constants.Commons;
-import constants.enums.Day;
+import checkpoint.CheckpointStore;
+import constants.Config;
 import jade.domain.FIPANames;
 import jade.proto.SubscriptionInitiator;
 import objetos.ClassroomAvailability;
 import objetos.helper.BatchAssignmentConfirmation;
 import objetos.helper.BatchAssignmentRequest;
+import objetos.helper.CFPRequest;
+import objetos.helper.MessageCodec;
 import jade.core.Agent;
 import jade.core.behaviours.*;
 import jade.domain.DFService;
@@ -17,41 +19,44 @@ import jade.domain.FIPAAgentManagement.ServiceDescription;
 import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
 import json_stuff.SalaHorarioJSON;
+import metricas.Medidor;
+import metricas.MetricasHorario;
+import metricas.RegistroMetricas;
 import objetos.AsignacionSala;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import service.TimetablingEvaluator;
+import objetos.DatosSala;
+import objetos.HorarioSala;
 
 import java.io.IOException;
 import java.util.*;
 
 public class AgenteSala extends Agent {
     public static final String SERVICE_NAME = "sala";
+    private static final Medidor BUZON = RegistroMetricas.getInstance().medidor("buzon.sala");
     private boolean isRegistered = false;
     private String codigo;
     private String campus;
     private int capacidad;
     private int turno;
-    private Map<Day, List<AsignacionSala>> horarioOcupado; // dia -> lista de asignaciones
+    private HorarioSala horario; // horario semanal y lógica de respuesta a CFP
 
     @Override
     protected void setup() {
-        // Inicializar estructuras
-        initializeSchedule();
-        horarioOcupado = new HashMap<>();
-        for (Day dia : Day.values()) {
-            List<AsignacionSala> asignaciones = new ArrayList<>();
-            for (int i = 0; i < Commons.MAX_BLOQUE_DIURNO; i++) { // 5 bloques por día
-                asignaciones.add(null);
-            }
-            horarioOcupado.put(dia, asignaciones);
-        }
-
-        // Cargar datos de la sala desde JSON
+        // Datos de la sala, ya leídos por Aplicacion
         Object[] args = getArguments();
         if (args != null && args.length > 0) {
-            parseJSON((String) args[0]);
+            cargarDatos((DatosSala) args[0]);
+        }
+
+        MetricasHorario.getInstance().registrarSala(codigo, capacidad);
+        SalaHorarioJSON.getInstance().registrarSala(codigo, campus);
+
+        // Bloques ya ocupados al reanudar desde un checkpoint
+        if (args != null && args.length > 1 && args[1] != null) {
+            horario.restaurar((AsignacionSala[]) args[1]);
+            SalaHorarioJSON.getInstance().restaurarSala(codigo, campus, horario.getOcupacion());
+            MetricasHorario.getInstance().restaurarSala(codigo, horario.getOcupacion());
         }
+        CheckpointStore.getInstance().registrarSala(horario);
 
         // Registrar en el DF
         registrarEnDF();
@@ -60,7 +65,7 @@ public class AgenteSala extends Agent {
         addBehaviour(new ResponderSolicitudesBehaviour());
 
         // Agregar comportamiento para revisar si los profesores han terminado
-        addBehaviour(new ProfessorMonitorBehaviour(this));
+        addBehaviour(new ProfessorMonitorBehaviour(this, this::terminarSinProfesores));
     }
 
     private int MEEETING_ROOM_THRESHOLD = 10;
@@ -69,34 +74,12 @@ public class AgenteSala extends Agent {
         return capacidad < MEEETING_ROOM_THRESHOLD;
     }
 
-    private String sanitizeSubjectName(String name) {
-        return name.replaceAll("[^a-zA-Z0-9]", "");
-    }
-
-    private void parseJSON(String jsonString) {
-        // Parsear JSON y asignar valores
-        try {
-            JSONParser parser = new JSONParser();
-            JSONObject salaJson = (JSONObject) parser.parse(jsonString);
-            codigo = (String) salaJson.get("Codigo");
-            campus = (String) salaJson.get("Campus");
-            capacidad = ((Number) salaJson.get("Capacidad")).intValue();
-            turno = ((Number) salaJson.get("Turno")).intValue();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-    }
-
-    private void initializeSchedule() {
-        // Inicializar horario con bloques vacíos
-        horarioOcupado = new HashMap<>();
-        for (Day dia : Day.values()) {
-            List<AsignacionSala> asignaciones = new ArrayList<>();
-            for (int i = 0; i < Commons.MAX_BLOQUE_DIURNO; i++) {
-                asignaciones.add(null);
-            }
-            horarioOcupado.put(dia, asignaciones);
-        }
+    private void cargarDatos(DatosSala datos) {
+        codigo = datos.getCodigo();
+        campus = datos.getCampus();
+        capacidad = datos.getCapacidad();
+        turno = datos.getTurno();
+        horario = new HorarioSala(codigo, campus, capacidad, turno);
     }
 
     private void registrarEnDF() {
@@ -120,13 +103,19 @@ public class AgenteSala extends Agent {
 
     private boolean allDone = false;
 
-    private class ProfessorMonitorBehaviour extends SubscriptionInitiator {
-        public ProfessorMonitorBehaviour(Agent a) {
+    /**
+     * Suscripción a los profesores del DF: cuando ya no queda ninguno ejecuta {@code sinProfesores}.
+     * La usan también AgenteHostSalas y AgenteTablon.
+     */
+    static class ProfessorMonitorBehaviour extends SubscriptionInitiator {
+        private final Runnable sinProfesores;
+
+        ProfessorMonitorBehaviour(Agent a, Runnable sinProfesores) {
             // Create template directly in constructor
             super(a, createSubscriptionMessage(a));
+            this.sinProfesores = sinProfesores;
         }
 
-        // Make this static or move it out
         private static ACLMessage createSubscriptionMessage(Agent a) {
             DFAgentDescription template = new DFAgentDescription();
             ServiceDescription sd = new ServiceDescription();
@@ -145,11 +134,7 @@ public class AgenteSala extends Agent {
                 DFAgentDescription[] results = DFService.decodeNotification(inform.getContent());
                 if (results == null || results.length < 1) {
                     // No professors left
-                    if (isRegistered) {
-                        DFService.deregister(myAgent);
-                        isRegistered = false;
-                        myAgent.doDelete();
-                    }
+                    sinProfesores.run();
                 }
             } catch (FIPAException fe) {
                 fe.printStackTrace();
@@ -157,6 +142,18 @@ public class AgenteSala extends Agent {
         }
     }
 
+    private void terminarSinProfesores() {
+        if (isRegistered) {
+            try {
+                DFService.deregister(this);
+                isRegistered = false;
+                doDelete();
+            } catch (FIPAException fe) {
+                fe.printStackTrace();
+            }
+        }
+    }
+
     private class ResponderSolicitudesBehaviour extends CyclicBehaviour {
         public void action() {
             MessageTemplate mt = MessageTemplate.or(
@@ -166,6 +163,7 @@ public class AgenteSala extends Agent {
 
             ACLMessage msg = receive(mt);
             if (msg != null) {
+                BUZON.registrar(getCurQueueSize());
                 switch (msg.getPerformative()) {
                     case ACLMessage.CFP:
                         procesarSolicitud(msg);
@@ -179,57 +177,26 @@ public class AgenteSala extends Agent {
             }
         }
 
-        private Map<Day, Integer> dayLoadCount = new HashMap<>();
-
         private void procesarSolicitud(ACLMessage msg) {
             try {
-                String[] solicitudData = msg.getContent().split(",");
-                String nombreAsignatura = sanitizeSubjectName(solicitudData[0]);
-                int vacantes = Integer.parseInt(solicitudData[1]);
-                int nivel = Integer.parseInt(solicitudData[2]);
-                String preferredCampus = solicitudData[3];
-                int remainingHours = Integer.parseInt(solicitudData[4]);
-
-                // Calculate base satisfaction
-                // Get available blocks with enhanced distribution
-                Map<String, List<Integer>> availableBlocks = getOptimizedAvailableBlocks(
-                        nombreAsignatura,
-                        nivel,
-                        preferredCampus,
-                        remainingHours
+                CFPRequest solicitud = MessageCodec.decodeCFP(msg.getByteSequenceContent());
+
+                // Get available blocks with enhanced distribution and their best satisfaction
+                ClassroomAvailability availability = horario.evaluarSolicitud(
+                        solicitud.getSubjectName(),
+                        solicitud.getVacancies(),
+                        solicitud.getLevel(),
+                        solicitud.getCampus(),
+                        solicitud.getPendingBlocks()
                 );
 
-
-                if (!availableBlocks.isEmpty()) {
-                    Map<Day, List<Integer>> existingSchedule = convertToExistingBlocks(horarioOcupado);
-
-                    int satisfaccion = calculateBestSatisfaction(
-                            availableBlocks,
-                            capacidad,
-                            vacantes,
-                            nivel,
-                            campus,
-                            preferredCampus,
-                            existingSchedule
-                    );
-
-
-                    // Send proposal with available blocks
-                    // Create single availability object
-                    ClassroomAvailability availability = new ClassroomAvailability(
-                            codigo,
-                            campus,
-                            capacidad,
-                            availableBlocks,
-                            satisfaccion
-                    );
-
+                if (availability != null) {
                     // Send single response with all availability data
                     ACLMessage reply = msg.createReply();
                     reply.setProtocol(FIPANames.InteractionProtocol.FIPA_CONTRACT_NET);
                     reply.setPerformative(ACLMessage.PROPOSE);
                     try {
-                        reply.setContentObject(availability);
+                        reply.setByteSequenceContent(MessageCodec.encode(availability));
                         send(reply);
                     } catch (IOException e) {
                         e.printStackTrace();
@@ -248,180 +215,30 @@ public class AgenteSala extends Agent {
             }
         }
 
-        private Map<Day, List<Integer>> convertToExistingBlocks(Map<Day, List<AsignacionSala>> horario) {
-            Map<Day, List<Integer>> result = new HashMap<>();
-            for (Map.Entry<Day, List<AsignacionSala>> entry : horario.entrySet()) {
-                List<Integer> blocks = new ArrayList<>();
-                List<AsignacionSala> assignments = entry.getValue();
-                for (int i = 0; i < assignments.size(); i++) {
-                    if (assignments.get(i) != null) {
-                        blocks.add(i + 1);
-                    }
-                }
-                if (!blocks.isEmpty()) {
-                    result.put(entry.getKey(), blocks);
-                }
-            }
-            return result;
-        }
-
-        private int calculateBestSatisfaction(
-                Map<String, List<Integer>> availableBlocks,
-                int roomCapacity,
-                int studentsCount,
-                int nivel,
-                String campus,
-                String preferredCampus,
-                Map<Day, List<Integer>> existingSchedule) {
-
-            int bestSatisfaction = 0;
-
-            // Evaluate each day and block combination
-            for (Map.Entry<String, List<Integer>> entry : availableBlocks.entrySet()) {
-                Day day = Day.fromString(entry.getKey());
-
-                for (Integer block : entry.getValue()) {
-                    // Create a temporary schedule that includes this potential block
-                    Map<Day, List<Integer>> tempSchedule = new HashMap<>(existingSchedule);
-                    tempSchedule.computeIfAbsent(day, k -> new ArrayList<>()).add(block);
-
-                    int satisfaction = TimetablingEvaluator.calculateSatisfaction(
-                            roomCapacity,
-                            studentsCount,
-                            nivel,
-                            campus,
-                            preferredCampus,
-                            block,
-                            tempSchedule
-                    );
-
-                    bestSatisfaction = Math.max(bestSatisfaction, satisfaction);
-                }
-            }
-
-            return bestSatisfaction;
-        }
-
-        private Map<String, List<Integer>> getOptimizedAvailableBlocks(
-                String asignatura,
-                int nivel,
-                String preferredCampus,
-                int remainingHours) {
-
-            Map<String, List<Integer>> availableBlocks = new HashMap<>();
-
-            for (Day dia : Day.values()) {
-                List<AsignacionSala> asignaciones = horarioOcupado.get(dia);
-                if (asignaciones == null) continue;
-
-                // Calculate day load
-                int currentDayLoad = dayLoadCount.getOrDefault(dia, 0);
-                int subjectDayLoad = countSubjectBlocksInDay(dia, asignatura);
-
-                // Skip overloaded days
-                if (currentDayLoad >= 6 || subjectDayLoad >= 2) continue;
-
-                List<Integer> freeBlocks = findOptimalBlocksForDay(
-                        dia,
-                        asignaciones,
-                        nivel,
-                        remainingHours
-                );
-
-                if (!freeBlocks.isEmpty()) {
-                    availableBlocks.put(dia.toString(), freeBlocks);
-                }
-            }
-
-            return availableBlocks;
-        }
-
-        private List<Integer> findOptimalBlocksForDay(
-                Day dia,
-                List<AsignacionSala> asignaciones,
-                int nivel,
-                int remainingHours) {
-
-            List<Integer> freeBlocks = new ArrayList<>();
-            boolean isOddYear = nivel % 2 == 1;
-
-            // Determine preferred time slots
-            int startBlock = isOddYear ? 1 : 5;
-            int endBlock = isOddYear ? 4 : Commons.MAX_BLOQUE_DIURNO;
-
-            // Find consecutive blocks when possible
-            for (int bloque = startBlock; bloque <= endBlock; bloque++) {
-                if (asignaciones.get(bloque - 1) == null) {
-                    // Check if this could form a consecutive sequence
-                    if (freeBlocks.isEmpty() ||
-                            bloque == freeBlocks.get(freeBlocks.size() - 1) + 1) {
-                        freeBlocks.add(bloque);
-
-                        // Stop if we have enough blocks for remaining hours
-                        if (freeBlocks.size() >= remainingHours) break;
-                    }
-                }
-            }
-
-            return freeBlocks;
-        }
-
-        private int countSubjectBlocksInDay(Day dia, String asignatura) {
-            List<AsignacionSala> asignaciones = horarioOcupado.get(dia);
-            if (asignaciones == null) return 0;
-
-            int count = 0;
-            for (AsignacionSala asignacion : asignaciones) {
-                if (asignacion != null &&
-                        asignacion.getNombreAsignatura().equals(asignatura)) {
-                    count++;
-                }
-            }
-            return count;
-        }
-
         private void confirmarAsignacion(ACLMessage msg) {
             try {
-                BatchAssignmentRequest batchRequest = (BatchAssignmentRequest) msg.getContentObject();
-                List<BatchAssignmentConfirmation.ConfirmedAssignment> confirmedAssignments = new ArrayList<>();
-
-                for (BatchAssignmentRequest.AssignmentRequest request : batchRequest.getAssignments()) {
-                    if (!request.getClassroomCode().equals(codigo)) {
-                        continue;
-                    }
-
-                    int bloque = request.getBlock() - 1;
-                    List<AsignacionSala> asignaciones = horarioOcupado.get(request.getDay());
-
-                    if (asignaciones != null && bloque >= 0 && bloque < asignaciones.size() &&
-                            asignaciones.get(bloque) == null) {
-
-                        float capacidadFraccion = (float) request.getVacancy() / capacidad;
-                        AsignacionSala nuevaAsignacion = new AsignacionSala(
-                                request.getSubjectName(),
-                                request.getSatisfaction(),
-                                capacidadFraccion
-                        );
-                        asignaciones.set(bloque, nuevaAsignacion);
-
-                        confirmedAssignments.add(new BatchAssignmentConfirmation.ConfirmedAssignment(
-                                request.getDay(),
-                                request.getBlock(),
-                                codigo,
-                                request.getSatisfaction()
-                        ));
-                    }
-                }
+                BatchAssignmentRequest batchRequest = MessageCodec.decodeRequest(msg.getByteSequenceContent());
+                List<BatchAssignmentConfirmation.ConfirmedAssignment> confirmedAssignments =
+                        horario.confirmarAsignaciones(batchRequest);
 
                 // Update JSON after batch processing
                 if (!confirmedAssignments.isEmpty()) {
-                    SalaHorarioJSON.getInstance().agregarHorarioSala(codigo, campus, horarioOcupado);
+                    SalaHorarioJSON.getInstance().agregarAsignaciones(codigo, campus, horario.getOcupacion(), confirmedAssignments);
+                    MetricasHorario.getInstance().registrarAsignaciones(codigo, horario.getOcupacion(), confirmedAssignments);
+                    if (Config.TABLON_DISPONIBILIDAD) {
+                        AgenteTablon.publicarOcupacion(AgenteSala.this, msg.getByteSequenceContent());
+                    }
 
                     // Send single confirmation with all successful assignments
                     ACLMessage confirm = msg.createReply();
                     confirm.setPerformative(ACLMessage.INFORM);
-                    confirm.setContentObject(new BatchAssignmentConfirmation(confirmedAssignments));
+                    confirm.setByteSequenceContent(MessageCodec.encode(new BatchAssignmentConfirmation(confirmedAssignments)));
                     send(confirm);
+                } else {
+                    // Responder igual, para que el profesor no espere el timeout de confirmación
+                    ACLMessage failure = msg.createReply();
+                    failure.setPerformative(ACLMessage.FAILURE);
+                    send(failure);
                 }
 
             } catch (Exception e) {
@@ -446,10 +263,6 @@ public class AgenteSala extends Agent {
                 isRegistered = false;
             }
     
-            // Asegurarse de guardar el estado final en JSON
-            System.out.println("Guardando estado final de sala " + codigo);
-            SalaHorarioJSON.getInstance().agregarHorarioSala(codigo, campus, horarioOcupado);
-    
         } catch (Exception e) {
             System.err.println("Error durante cleanup de sala " + codigo + ": " + e.getMessage());
             e.printStackTrace();
@@ -1,181 +1,234 @@
 package agentes;
 
+import checkpoint.CheckpointStore;
+import constants.Config;
+import constants.Messages;
 import jade.core.Agent;
+import jade.core.behaviours.CyclicBehaviour;
 import jade.core.behaviours.TickerBehaviour;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+import jade.wrapper.AgentContainer;
 import jade.wrapper.AgentController;
 import jade.wrapper.StaleProxyException;
+import json_stuff.JSONHelper;
 import json_stuff.ProfesorHorarioJSON;
 import json_stuff.SalaHorarioJSON;
+import metricas.MetricasHorario;
+import metricas.RegistroMetricas;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Cuenta los profesores que terminaron a partir de sus reportes (avance, término o falla) y escribe los
+ * archivos finales apenas llega el último. Solo se consulta el estado de un profesor que lleva
+ * MAX_SILENCIO sin reportar, para no esperar para siempre a uno que terminó sin avisar.
+ */
 public class AgenteSupervisor extends Agent {
-    private List<AgentController> profesoresControllers;
-    private boolean isSystemActive = true;
+    public static final String AGENT_NAME = "agentes.Supervisor";
+    // Conversación de los reportes que envían los profesores (AgenteProfesor.reportarEstado)
+    public static final String CONVERSACION_ESTADO = "estado-profesor";
     private static final int CHECK_INTERVAL = 5000; // 5 seconds
+    private static final long MAX_SILENCIO = 60000; // 1 minute without reports
+
+    // Nombre completo del profesor -> último estado reportado
+    private final Map<String, EstadoProfesor> profesores = new HashMap<>();
+    private int esperados;
+    private int terminados = 0;
+    private boolean isSystemActive = true;
+
+    private static class EstadoProfesor {
+        final AgentController controller;
+        long ultimoReporte;
+        boolean reporto = false;
+        boolean terminado = false;
+        int asignaturas;
+        int bloques;
+        int fallas;
+
+        EstadoProfesor(AgentController controller, long ultimoReporte) {
+            this.controller = controller;
+            this.ultimoReporte = ultimoReporte;
+        }
+    }
 
     @Override
     protected void setup() {
+        // Se crea antes de iniciar a los profesores, así recibe todos sus reportes
         Object[] args = getArguments();
-        if (args != null && args.length > 0) {
-            profesoresControllers = (List<AgentController>) args[0];
-            System.out.println("[Supervisor] Monitoring " + profesoresControllers.size() + " professors");
+        @SuppressWarnings("unchecked")
+        List<AgentController> profesoresControllers = (List<AgentController>) args[0];
+        esperados = profesoresControllers.size();
+
+        long ahora = System.currentTimeMillis();
+        for (AgentController profesor : profesoresControllers) {
+            try {
+                profesores.put(profesor.getName(), new EstadoProfesor(profesor, ahora));
+            } catch (StaleProxyException e) {
+                // Ya no existe
+                terminados++;
+            }
         }
+        System.out.println("[Supervisor] Monitoring " + esperados + " professors");
 
-        addBehaviour(new MonitorBehaviour(this, CHECK_INTERVAL));
+        addBehaviour(new ReportesBehaviour());
+        addBehaviour(new WatchdogBehaviour(this, CHECK_INTERVAL));
+        if (terminados == esperados) {
+            finishSystem();
+        }
     }
 
-    private class MonitorBehaviour extends TickerBehaviour {
-        private static final int MAX_INACTIVITY = 12; // 1 minute with 5-second intervals
-        private Map<Integer, Integer> inactivityCounters = new HashMap<>();
-        private Map<Integer, Integer> lastKnownStates = new HashMap<>();
+    private class ReportesBehaviour extends CyclicBehaviour {
+        private final MessageTemplate mt = MessageTemplate.and(
+                MessageTemplate.MatchPerformative(ACLMessage.INFORM),
+                MessageTemplate.MatchConversationId(CONVERSACION_ESTADO)
+        );
+
+        @Override
+        public void action() {
+            ACLMessage msg = receive(mt);
+            if (msg == null) {
+                block();
+                return;
+            }
+
+            EstadoProfesor estado = profesores.get(msg.getSender().getName());
+            if (estado == null || estado.terminado) {
+                return;
+            }
+
+            estado.ultimoReporte = System.currentTimeMillis();
+            estado.reporto = true;
+            estado.asignaturas = Integer.parseInt(msg.getUserDefinedParameter("asignaturas"));
+            estado.bloques = Integer.parseInt(msg.getUserDefinedParameter("bloques"));
+            estado.fallas = Integer.parseInt(msg.getUserDefinedParameter("fallas"));
+
+            if (Messages.FAILED.equals(msg.getContent())) {
+                System.out.println("[WARNING] Professor " + msg.getSender().getLocalName() + " finished with an error");
+                terminar(estado);
+            } else if (Messages.DONE.equals(msg.getContent())) {
+                terminar(estado);
+            }
+        }
+    }
 
-        public MonitorBehaviour(Agent a, long period) {
+    // Revisa solo a los profesores que llevan MAX_SILENCIO sin reportar (los que esperan turno no reportan)
+    private class WatchdogBehaviour extends TickerBehaviour {
+        WatchdogBehaviour(Agent a, long period) {
             super(a, period);
         }
 
         @Override
         protected void onTick() {
             if (!isSystemActive) return;
-            //System.out.println(myAgent.getLocalName() + "MSG Pendientes: " + myAgent.getCurQueueSize());
-
-            try {
-                boolean allTerminated = true;
-                Map<Integer, Integer> stateCount = new HashMap<>();
 
-                // Monitor each professor's state
-                for (int i = 0; i < profesoresControllers.size(); i++) {
-                    AgentController profesor = profesoresControllers.get(i);
-
-                    try {
-                        int currentState = profesor.getState().getCode();
-                        int previousState = lastKnownStates.getOrDefault(i, -1);
-
-                        // Update state counts
-                        stateCount.merge(currentState, 1, Integer::sum);
-
-                        // Check if state has changed
-                        if (currentState == previousState) {
-                            inactivityCounters.merge(i, 1, Integer::sum);
-                        } else {
-                            inactivityCounters.put(i, 0);
-                            lastKnownStates.put(i, currentState);
-                        }
+            long ahora = System.currentTimeMillis();
+            for (Map.Entry<String, EstadoProfesor> entry : profesores.entrySet()) {
+                EstadoProfesor estado = entry.getValue();
+                if (estado.terminado || ahora - estado.ultimoReporte < MAX_SILENCIO) {
+                    continue;
+                }
 
-                        // Check different states
-                        switch (currentState) {
-                            case Agent.AP_ACTIVE:
-                                allTerminated = false;
-//                                if (inactivityCounters.getOrDefault(i, 0) >= MAX_INACTIVITY) {
-//                                    System.out.println("[WARNING] Professor " + i + " appears stuck in ACTIVE state. " +
-//                                            "Inactivity count: " + inactivityCounters.get(i));
-//                                }
-                                break;
-
-                            case Agent.AP_WAITING:
-                                allTerminated = false;
-//                                if (inactivityCounters.getOrDefault(i, 0) >= MAX_INACTIVITY) {
-//                                    System.out.println("[WARNING] Professor " + i + " appears stuck in WAITING state. " +
-//                                            "Inactivity count: " + inactivityCounters.get(i));
-//                                }
-                                break;
-
-                            case Agent.AP_SUSPENDED:
-                                allTerminated = false;
-                                System.out.println("[WARNING] Professor " + i + " is in SUSPENDED state.");
-                                break;
-
-                            case Agent.AP_IDLE:
-                                allTerminated = false;
-//                                if (inactivityCounters.getOrDefault(i, 0) >= MAX_INACTIVITY) {
-//                                    System.out.println("[WARNING] Professor " + i + " appears stuck in IDLE state. " +
-//                                            "Inactivity count: " + inactivityCounters.get(i));
-//                                }
-                                break;
-
-                            case Agent.AP_DELETED:
-                                // Consider this professor terminated
-                                inactivityCounters.remove(i);
-                                lastKnownStates.remove(i);
-                                break;
-
-                            case Agent.AP_INITIATED:
-                                allTerminated = false;
-                                System.out.println("[INFO] Professor " + i + " is still in INITIATED state.");
-                                break;
-
-                            default:
-                                System.out.println("[WARNING] Professor " + i + " is in unknown state: " + currentState);
-                                break;
+                try {
+                    int state = estado.controller.getState().getCode();
+                    if (state == Agent.AP_DELETED) {
+                        System.out.println("[WARNING] Professor " + entry.getKey() + " terminated without reporting");
+                        terminar(estado);
+                    } else {
+                        if (estado.reporto) {
+                            System.out.println("[WARNING] Professor " + entry.getKey() + " has not reported for " +
+                                    (ahora - estado.ultimoReporte) / 1000 + " s, state: " + state);
                         }
-
-                    } catch (StaleProxyException e) {
-                        // Consider terminated if we can't get state
-                        stateCount.merge(Agent.AP_DELETED, 1, Integer::sum);
+                        estado.ultimoReporte = ahora;
                     }
+                } catch (StaleProxyException e) {
+                    // Consider terminated if we can't get state
+                    System.out.println("[WARNING] Professor " + entry.getKey() + " terminated without reporting");
+                    terminar(estado);
                 }
 
-                // Regular status update
-                if (getPeriod() % (CHECK_INTERVAL * 4) == 0) {
-//                    System.out.println("\n[Supervisor] Status Report:");
-//                    System.out.println("- Active: " + stateCount.getOrDefault(Agent.AP_ACTIVE, 0));
-//                    System.out.println("- Waiting: " + stateCount.getOrDefault(Agent.AP_WAITING, 0));
-//                    System.out.println("- Idle: " + stateCount.getOrDefault(Agent.AP_IDLE, 0));
-//                    System.out.println("- Suspended: " + stateCount.getOrDefault(Agent.AP_SUSPENDED, 0));
-//                    System.out.println("- Deleted: " + stateCount.getOrDefault(Agent.AP_DELETED, 0));
-//                    System.out.println("- Initiated: " + stateCount.getOrDefault(Agent.AP_INITIATED, 0));
-//                    System.out.println("Total Agents: " + profesoresControllers.size() + "\n");
-                }
+                if (!isSystemActive) return;
+            }
+        }
+    }
 
-                if (allTerminated || stateCount.getOrDefault(Agent.AP_DELETED, 0) == profesoresControllers.size()) {
-                    //System.out.println("[Supervisor] All professors have completed their work.");
-                    finishSystem();
-                }
+    private void terminar(EstadoProfesor estado) {
+        estado.terminado = true;
+        terminados++;
+        if (terminados == esperados) {
+            finishSystem();
+        }
+    }
 
-            } catch (Exception e) {
-                //System.err.println("[Supervisor] Error in monitoring: " + e.getMessage());
-                e.printStackTrace();
-            }
+    private void finishSystem() {
+        if (!isSystemActive) {
+            return;
         }
 
-        private void finishSystem() {
-            try {
-                isSystemActive = false;
-                System.out.println("[Supervisor] Generando archivos JSON finales...");
-                
-                // Generar JSONs finales
-                ProfesorHorarioJSON.getInstance().generarArchivoJSON();
-                SalaHorarioJSON.getInstance().generarArchivoJSON();
-                
-                // Esperar un momento para asegurar que los archivos se escriban
-                Thread.sleep(1000);
-                
-                System.out.println("[Supervisor] Verificando archivos generados...");
-                
-                // Verificar que los archivos se hayan generado correctamente
-                java.io.File horariosSalas = new java.io.File("agent_output/Horarios_salas.json");
-                java.io.File horariosProf = new java.io.File("agent_output/Horarios_asignados.json");
-                
-                if (horariosSalas.exists() && horariosSalas.length() > 0) {
-                    System.out.println("[Supervisor] Horarios_salas.json generado correctamente");
-                } else {
-                    System.out.println("[Supervisor] ERROR: Horarios_salas.json está vacío o no existe");
-                }
-                
-                if (horariosProf.exists() && horariosProf.length() > 0) {
-                    System.out.println("[Supervisor] Horarios_asignados.json generado correctamente");
-                } else {
-                    System.out.println("[Supervisor] ERROR: Horarios_asignados.json está vacío o no existe");
-                }
-                
-                System.out.println("[Supervisor] Sistema finalizado.");
-                myAgent.doDelete();
-            } catch (Exception e) {
-                System.err.println("[Supervisor] Error finalizando sistema: " + e.getMessage());
-                e.printStackTrace();
+        try {
+            isSystemActive = false;
+            int asignaturas = 0;
+            int bloques = 0;
+            int fallas = 0;
+            for (EstadoProfesor estado : profesores.values()) {
+                asignaturas += estado.asignaturas;
+                bloques += estado.bloques;
+                fallas += estado.fallas;
+            }
+            System.out.printf("[Supervisor] %d professors finished: %d subjects processed, %d blocks assigned, " +
+                    "%d failed confirmations%n", terminados, asignaturas, bloques, fallas);
+            System.out.println("[Supervisor] Generando archivos JSON finales...");
+
+            // Generar JSONs finales
+            ProfesorHorarioJSON.getInstance().generarArchivoJSON();
+            SalaHorarioJSON.getInstance().generarArchivoJSON();
+            MetricasHorario.getInstance().generarArchivos();
+            RegistroMetricas.getInstance().finalizar();
+            // Ejecución completa: no queda nada que reanudar
+            CheckpointStore.borrar();
+
+            // Esperar un momento para asegurar que los archivos se escriban
+            Thread.sleep(1000);
+
+            System.out.println("[Supervisor] Verificando archivos generados...");
+
+            // Verificar que los archivos se hayan generado correctamente
+            java.io.File horariosSalas = JSONHelper.outputPath("Horarios_salas.json").toFile();
+            java.io.File horariosProf = JSONHelper.outputPath("Horarios_asignados.json").toFile();
+
+            if (horariosSalas.exists() && horariosSalas.length() > 0) {
+                System.out.println("[Supervisor] Horarios_salas.json generado correctamente");
+            } else {
+                System.out.println("[Supervisor] ERROR: Horarios_salas.json está vacío o no existe");
+            }
+
+            if (horariosProf.exists() && horariosProf.length() > 0) {
+                System.out.println("[Supervisor] Horarios_asignados.json generado correctamente");
+            } else {
+                System.out.println("[Supervisor] ERROR: Horarios_asignados.json está vacío o no existe");
+            }
+
+            System.out.println("[Supervisor] Sistema finalizado.");
+            AgentContainer contenedor = getContainerController();
+            doDelete();
+
+            if (!Config.CAMPUS_PARTICION.isEmpty()) {
+                // Partición de --particionado: cerrar la plataforma y terminar la JVM, que espera el proceso
+                // principal (fuera del hilo del agente, que kill() espera)
+                new Thread(() -> {
+                    try {
+                        contenedor.kill();
+                    } catch (StaleProxyException e) {
+                        System.err.println("[Supervisor] Error cerrando la plataforma: " + e.getMessage());
+                    }
+                    System.exit(0);
+                }).start();
             }
+        } catch (Exception e) {
+            System.err.println("[Supervisor] Error finalizando sistema: " + e.getMessage());
+            e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+}
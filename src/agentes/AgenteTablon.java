@@ -0,0 +1,126 @@
+package agentes;
+
+import checkpoint.Checkpoint;
+import jade.core.AID;
+import jade.core.Agent;
+import jade.core.behaviours.CyclicBehaviour;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+import metricas.Medidor;
+import metricas.RegistroMetricas;
+import objetos.CatalogoSalas;
+import objetos.DatosSala;
+import objetos.HorarioSala;
+import objetos.helper.BatchAssignmentRequest;
+import objetos.helper.MessageCodec;
+
+import java.util.*;
+
+/**
+ * Tablón de disponibilidad, con {@code negociacion.tablon=true}: guarda una copia de la ocupación de todas las
+ * salas y responde el CFP de un profesor con un solo PROPOSE con la disponibilidad de cada sala factible
+ * (mismo campus, capacidad suficiente, bloques según la paridad del nivel), en vez de consultar sala por sala.
+ * <p>
+ * Las salas siguen siendo las dueñas de sus bloques: el profesor les envía el ACCEPT_PROPOSAL directamente y
+ * solo ellas confirman. Después de confirmar, cada sala le reenvía al tablón el contenido del ACCEPT
+ * ({@link #publicarOcupacion}) y el tablón lo aplica sobre su copia, en el mismo orden que la sala. Si el tablón
+ * propone un bloque que ya se tomó, la sala responde FAILURE y el profesor lo vuelve a pedir.
+ */
+public class AgenteTablon extends Agent {
+    public static final String AGENT_NAME = "TablonDisponibilidad";
+    // Conversación de las actualizaciones que envían las salas (no se confunde con las notificaciones del DF)
+    private static final String CONVERSACION_OCUPACION = "tablon-ocupacion";
+    private static final Medidor BUZON = RegistroMetricas.getInstance().medidor("buzon.tablon");
+
+    private final Map<String, HorarioSala> salas = new HashMap<>();
+    private CatalogoSalas<HorarioSala> catalogo;
+
+    public static AID getAIDTablon() {
+        return new AID(AGENT_NAME, AID.ISLOCALNAME);
+    }
+
+    /**
+     * Envía al tablón un ACCEPT_PROPOSAL ya procesado por la sala, para que aplique lo mismo sobre su copia.
+     * Se llama antes de responder al profesor, así el tablón lo tiene en su cola antes de la siguiente ronda.
+     */
+    public static void publicarOcupacion(Agent sala, byte[] solicitud) {
+        ACLMessage update = new ACLMessage(ACLMessage.INFORM);
+        update.addReceiver(getAIDTablon());
+        update.setConversationId(CONVERSACION_OCUPACION);
+        update.setByteSequenceContent(solicitud);
+        sala.send(update);
+    }
+
+    @Override
+    protected void setup() {
+        // Todas las salas, ya leídas por Aplicacion, y el checkpoint del que se reanuda (o null)
+        Object[] args = getArguments();
+        @SuppressWarnings("unchecked")
+        List<DatosSala> datos = (List<DatosSala>) args[0];
+        Checkpoint checkpoint = args.length > 1 ? (Checkpoint) args[1] : null;
+
+        for (DatosSala sala : datos) {
+            HorarioSala copia = new HorarioSala(sala.getCodigo(), sala.getCampus(), sala.getCapacidad(), sala.getTurno());
+            if (checkpoint != null && checkpoint.getSala(sala.getCodigo()) != null) {
+                copia.restaurar(checkpoint.getSala(sala.getCodigo()));
+            }
+            salas.put(sala.getCodigo(), copia);
+        }
+        catalogo = new CatalogoSalas<>(salas.values(), HorarioSala::getCampus, HorarioSala::getCapacidad);
+
+        addBehaviour(new ResponderConsultasBehaviour());
+        // Como en AgenteSala: cuando ya no quedan profesores en el DF, el tablón termina
+        addBehaviour(new AgenteSala.ProfessorMonitorBehaviour(this, this::doDelete));
+    }
+
+    private class ResponderConsultasBehaviour extends CyclicBehaviour {
+        private final MessageTemplate mt = MessageTemplate.or(
+                MessageTemplate.MatchPerformative(ACLMessage.CFP),
+                MessageTemplate.and(
+                        MessageTemplate.MatchPerformative(ACLMessage.INFORM),
+                        MessageTemplate.MatchConversationId(CONVERSACION_OCUPACION)
+                )
+        );
+
+        @Override
+        public void action() {
+            ACLMessage msg = receive(mt);
+            if (msg == null) {
+                block();
+                return;
+            }
+
+            BUZON.registrar(getCurQueueSize());
+            if (msg.getPerformative() == ACLMessage.CFP) {
+                AgenteHostSalas.responderCFP(AgenteTablon.this, msg, catalogo);
+            } else {
+                aplicarOcupacion(msg);
+            }
+        }
+
+        // Repite sobre la copia lo que hizo la sala: los bloques que la sala rechazó también se rechazan aquí
+        private void aplicarOcupacion(ACLMessage msg) {
+            try {
+                BatchAssignmentRequest batchRequest = MessageCodec.decodeRequest(msg.getByteSequenceContent());
+                Set<String> codigos = new LinkedHashSet<>();
+                for (BatchAssignmentRequest.AssignmentRequest request : batchRequest.getAssignments()) {
+                    codigos.add(request.getClassroomCode());
+                }
+                for (String codigo : codigos) {
+                    HorarioSala copia = salas.get(codigo);
+                    if (copia != null) {
+                        copia.confirmarAsignaciones(batchRequest);
+                    }
+                }
+            } catch (Exception e) {
+                System.err.println("Error actualizando " + getLocalName() + ": " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+
+    @Override
+    protected void takeDown() {
+        System.out.println(getLocalName() + " finalizado con " + salas.size() + " salas");
+    }
+}
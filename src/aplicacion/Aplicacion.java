@@ -1,8 +1,14 @@
 package aplicacion;
 
+import agentes.AgenteHostSalas;
 import agentes.AgenteProfesor;
 import agentes.AgenteSala;
 import agentes.AgenteSupervisor;
+import agentes.AgenteTablon;
+import checkpoint.Checkpoint;
+import checkpoint.CheckpointStore;
+import constants.Config;
+import headless.HeadlessNegotiationEngine;
 import interfaces.SalaInterface;
 import jade.core.Profile;
 import jade.core.ProfileImpl;
@@ -10,14 +16,22 @@ import jade.core.Runtime;
 import jade.wrapper.AgentContainer;
 import jade.wrapper.AgentController;
 import jade.wrapper.StaleProxyException;
-import json_stuff.JSONHelper;
+import json_stuff.JSONInputReader;
 import json_stuff.JSONProcessor;
+import json_stuff.ProfesorHorarioJSON;
+import metricas.MetricasHorario;
+import metricas.RegistroMetricas;
+import objetos.DatosProfesor;
+import objetos.DatosSala;
+import objetos.HorarioProfesor;
+import objetos.helper.RoomRegistry;
+import particion.EjecucionPorCampus;
 
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
-
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -26,59 +40,171 @@ public class Aplicacion {
     private static List<AgentController> profesoresControllers = new ArrayList<>();
 
     public static void main(String[] args) {
+        // Una partición por campus, cada una en su propia JVM, y luego la mezcla de sus salidas
+        if (Arrays.asList(args).contains("--particionado")) {
+            EjecucionPorCampus.ejecutar(args);
+            return;
+        }
+        if (Arrays.asList(args).contains("--merge")) {
+            EjecucionPorCampus.mezclar();
+            return;
+        }
+
+        // Reanudar desde agent_output/checkpoint.bin: salas ocupadas, profesores terminados y turno siguiente
+        Checkpoint checkpoint = null;
+        if (Arrays.asList(args).contains("--resume")) {
+            checkpoint = leerCheckpoint();
+            if (checkpoint == null) {
+                return;
+            }
+        } else {
+            // Ejecución nueva: un snapshot anterior no debe poder reanudarse sobre ella
+            CheckpointStore.borrar();
+        }
+
+        // Modo sin JADE: misma negociación con llamadas directas entre profesores y salas
+        if (Arrays.asList(args).contains("--headless")) {
+            new HeadlessNegotiationEngine().ejecutar(checkpoint);
+            return;
+        }
+
         // Set DF max results before container creation
         System.setProperty("jade_domain_df_maxresult", "-1");
 
         try {
+            // TODO: Preparar paralelos en archivo, si es que son muchos
+
+            // Load data from JSON files, once; the agents receive the typed records
+            // (con particion.campus, solo las salas y asignaturas de ese campus)
+            List<DatosSala> salas = JSONProcessor.salasDeParticion(JSONInputReader.leerSalas("inputOfSala.json"));
+            // Los paralelos se separan a medida que se lee cada profesor
+            List<DatosProfesor> profesores = JSONProcessor.profesoresDeParticion(JSONInputReader.leerProfesores(
+                    "inputOfProfesores.json", JSONProcessor.prepararParalelos(salas)));
+            System.out.println("\nJSON procesado:");
+
+            if (checkpoint != null && !CheckpointStore.corresponde(checkpoint, profesores, salas)) {
+                return;
+            }
+
+            int primerOrden = checkpoint != null ? checkpoint.getSiguienteOrden() : 0;
+            if (primerOrden >= profesores.size()) {
+                // Todos habían terminado (o la partición no tiene profesores): solo falta escribir los archivos
+                System.out.println("No professors left to negotiate, writing output files");
+                new HeadlessNegotiationEngine().ejecutar(checkpoint);
+                return;
+            }
+
+            // Ids de sala para el formato binario de los mensajes
+            registrarSalas(salas);
+            MetricasHorario.getInstance().registrarAsignaturas(profesores);
+            RegistroMetricas.getInstance().iniciarExportacion();
+
             Runtime rt = Runtime.instance();
             Profile profile = new ProfileImpl();
             profile.setParameter(Profile.MAIN_HOST, "localhost");
+            profile.setParameter(Profile.MAIN_PORT, Integer.toString(Config.PUERTO_JADE));
             profile.setParameter(Profile.GUI, "true");
+            if (!Config.CAMPUS_PARTICION.isEmpty()) {
+                // Partición lanzada por --particionado: sin GUI ni MTP propio
+                profile.setParameter(Profile.GUI, "false");
+                profile.setParameter(Profile.NO_MTP, "true");
+            }
 
             AgentContainer mainContainer = rt.createMainContainer(profile);
 
-            // TODO: Preparar paralelos en archivo, si es que son muchos
-
-            // Load data from JSON files
-            JSONArray profesoresJson = JSONHelper.parseAsArray("inputOfProfesores.json");
-            JSONArray salasJson = JSONHelper.parseAsArray("inputOfSala.json");
-
-            // Preparar paralelos, actualizando su contenido en memoria.
-            profesoresJson = JSONProcessor.prepararParalelos(profesoresJson);
-            System.out.println("\nJSON procesado:");
+            if (Config.TABLON_DISPONIBILIDAD) {
+                // Antes que las salas, que le envían sus confirmaciones
+                initializeTablon(mainContainer, salas, checkpoint);
+            }
 
             System.out.println("Creating room agents...");
-            initializeSalas(mainContainer, salasJson);
+            if (Config.SALAS_EN_HOST) {
+                initializeHostsSalas(mainContainer, salas, checkpoint);
+            } else {
+                initializeSalas(mainContainer, salas, checkpoint);
+            }
             Thread.sleep(2000);
 
-            int totalSubjects = calculateTotalSubjects(profesoresJson);
+            int totalSubjects = calculateTotalSubjects(profesores);
             configureSalasRequests(totalSubjects);
 
             System.out.println("Creating professor agents...");
-            initializeProfesores(mainContainer, profesoresJson);
-            Thread.sleep(2000);
-
-            if (!profesoresControllers.isEmpty()) {
-                profesoresControllers.get(0).start();
-                System.out.println("First professor started");
-            }
+            initializeProfesores(mainContainer, profesores, checkpoint, primerOrden);
 
+            // El supervisor existe antes de que parta el primer profesor, así recibe todos los reportes
             createMonitorAgent(mainContainer);
+            for (AgentController profesor : profesoresControllers) {
+                profesor.start();
+            }
+            System.out.println("Professor agents started");
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
-    private static void initializeSalas(AgentContainer container, JSONArray salasJson) throws StaleProxyException {
+    private static Checkpoint leerCheckpoint() {
+        try {
+            Checkpoint checkpoint = CheckpointStore.leer();
+            if (checkpoint == null) {
+                System.err.println("No checkpoint found in agent_output, nothing to resume");
+            } else {
+                System.out.println("Resuming from checkpoint, next professor: " + checkpoint.getSiguienteOrden());
+            }
+            return checkpoint;
+        } catch (IOException e) {
+            System.err.println("Error reading checkpoint: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private static void registrarSalas(List<DatosSala> salas) {
+        List<String> codigos = new ArrayList<>();
+        for (DatosSala sala : salas) {
+            codigos.add(sala.getCodigo());
+        }
+        RoomRegistry.registrar(codigos);
+    }
+
+    private static void initializeTablon(AgentContainer container, List<DatosSala> salas, Checkpoint checkpoint)
+            throws StaleProxyException {
+        Object[] tablonArgs = {salas, checkpoint};
+        container.createNewAgent(
+                AgenteTablon.AGENT_NAME,
+                AgenteTablon.class.getName(),
+                tablonArgs
+        ).start();
+        System.out.println("Availability board created with " + salas.size() + " rooms");
+    }
+
+    // Un AgenteHostSalas por campus, con todas sus salas
+    private static void initializeHostsSalas(AgentContainer container, List<DatosSala> salas, Checkpoint checkpoint)
+            throws StaleProxyException {
+        Map<String, List<DatosSala>> porCampus = new LinkedHashMap<>();
+        for (DatosSala datos : salas) {
+            porCampus.computeIfAbsent(datos.getCampus(), c -> new ArrayList<>()).add(datos);
+        }
+
+        for (Map.Entry<String, List<DatosSala>> entry : porCampus.entrySet()) {
+            Object[] hostArgs = {entry.getValue(), checkpoint};
+            AgentController host = container.createNewAgent(
+                    AgenteHostSalas.AGENT_NAME + entry.getKey().replace(' ', '_'),
+                    AgenteHostSalas.class.getName(),
+                    hostArgs
+            );
+            host.start();
+            salasControllers.put(entry.getKey(), host);
+            System.out.println("Room host for " + entry.getKey() + " created and started with " +
+                    entry.getValue().size() + " rooms");
+        }
+    }
+
+    private static void initializeSalas(AgentContainer container, List<DatosSala> salas, Checkpoint checkpoint) throws StaleProxyException {
         
-        for (Object obj : salasJson) {
-            JSONObject salaJson = (JSONObject) obj;
-            String codigo = (String) salaJson.get("Codigo");
-            String campus = (String) salaJson.get("Campus");
-            int turno = ((Number) salaJson.get("Turno")).intValue();
-            String jsonString = salaJson.toJSONString();
+        for (DatosSala datos : salas) {
+            String codigo = datos.getCodigo();
     
-            Object[] salaArgs = {jsonString};
+            Object[] salaArgs = {datos, checkpoint != null ? checkpoint.getSala(codigo) : null};
             AgentController sala = container.createNewAgent(
                     "Sala" + codigo,
                     AgenteSala.class.getName(),
@@ -87,23 +213,24 @@ public class Aplicacion {
             sala.start();
             salasControllers.put(codigo, sala);
             System.out.println("Room agent " + codigo + " created and started. Campus: " + 
-                              campus + ", Turno: " + turno);
+                              datos.getCampus() + ", Turno: " + datos.getTurno());
         }
     }
 
-    private static void initializeProfesores(AgentContainer container, JSONArray profesoresJson) throws StaleProxyException {
-        for (int i = 0; i < profesoresJson.size(); i++) {
-            JSONObject profesorJson = (JSONObject) profesoresJson.get(i);
-            String nombre = (String) profesorJson.get("Nombre");
+    private static void initializeProfesores(AgentContainer container, List<DatosProfesor> profesores,
+                                             Checkpoint checkpoint, int primerOrden) throws StaleProxyException {
+        for (int i = 0; i < profesores.size(); i++) {
+            DatosProfesor datos = profesores.get(i);
+            String nombre = datos.getNombre();
 
-            JSONObject profesorCompleto = new JSONObject();
-            profesorCompleto.put("Nombre", nombre);
-            profesorCompleto.put("RUT", profesorJson.get("RUT"));
-            profesorCompleto.put("Turno", profesorJson.get("Turno"));
-            profesorCompleto.put("Asignaturas", profesorJson.get("Asignaturas"));
+            // Los que terminaron antes del checkpoint no vuelven a negociar
+            Checkpoint.Profesor terminado = checkpoint != null ? checkpoint.getProfesor(i) : null;
+            if (terminado != null) {
+                restaurarProfesor(i, datos, terminado);
+                continue;
+            }
 
-            String jsonString = profesorCompleto.toJSONString();
-            Object[] profesorArgs = {jsonString, i};
+            Object[] profesorArgs = {datos, i, primerOrden};
 
             String agentName = AgenteProfesor.AGENT_NAME + i;
             AgentController profesor = container.createNewAgent(
@@ -112,20 +239,25 @@ public class Aplicacion {
                     profesorArgs
             );
             profesoresControllers.add(profesor);
-            profesor.start();
             System.out.println("Professor agent created: " + agentName + 
             ", order=" + i + 
             ", name=" + nombre + 
-            ", turno=" + profesorJson.get("Turno"));
+            ", turno=" + datos.getTurno());
         }
     }
 
-    private static int calculateTotalSubjects(JSONArray profesoresJson) {
+    private static void restaurarProfesor(int orden, DatosProfesor datos, Checkpoint.Profesor terminado) {
+        HorarioProfesor horario = new HorarioProfesor(datos.getAsignaturas());
+        horario.restaurar(terminado.getAsignaturaActual(), terminado.getCurrentInstanceIndex(), terminado.getAsignaciones());
+        ProfesorHorarioJSON.getInstance().agregarHorarioProfesor(datos.getNombre(), horario.getAsignaciones(),
+                datos.getAsignaturas());
+        CheckpointStore.getInstance().registrarProfesor(orden, datos.getNombre(), horario);
+    }
+
+    private static int calculateTotalSubjects(List<DatosProfesor> profesores) {
         int total = 0;
-        for (Object obj : profesoresJson) {
-            JSONObject profesor = (JSONObject) obj;
-            JSONArray asignaturas = (JSONArray) profesor.get("Asignaturas");
-            total += asignaturas.size();
+        for (DatosProfesor profesor : profesores) {
+            total += profesor.getAsignaturas().size();
         }
         System.out.println("Total subjects to assign: " + total);
         return total;
@@ -148,7 +280,7 @@ public class Aplicacion {
     private static void createMonitorAgent(AgentContainer container) throws StaleProxyException {
         Object[] monitorArgs = {profesoresControllers};
         container.createNewAgent(
-                "agentes.Supervisor",
+                AgenteSupervisor.AGENT_NAME,
                 AgenteSupervisor.class.getName(),
                 monitorArgs
         ).start();
@@ -2,14 +2,25 @@ package behaviours;
 
 import agentes.AgenteProfesor;
 import jade.core.behaviours.CyclicBehaviour;
+import jade.domain.FIPANames;
 import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
 import objetos.ClassroomAvailability;
 import objetos.helper.BatchProposal;
+import objetos.helper.MessageCodec;
 import java.util.Queue;
 
 // Message handler for collecting proposals
 public class MessageCollectorBehaviour extends CyclicBehaviour {
+    // Respuestas de las salas a los ACCEPT_PROPOSAL (el START del turno no lleva protocolo)
+    private static final MessageTemplate CONFIRMATION_TEMPLATE = MessageTemplate.and(
+            MessageTemplate.MatchProtocol(FIPANames.InteractionProtocol.FIPA_CONTRACT_NET),
+            MessageTemplate.or(
+                    MessageTemplate.MatchPerformative(ACLMessage.INFORM),
+                    MessageTemplate.MatchPerformative(ACLMessage.FAILURE)
+            )
+    );
+
     private final AgenteProfesor profesor;
     private final Queue<BatchProposal> batchProposals;
     private final NegotiationStateBehaviour stateBehaviour;
@@ -26,30 +37,34 @@ public class MessageCollectorBehaviour extends CyclicBehaviour {
     @Override
     public void action() {
         MessageTemplate mt = MessageTemplate.or(
-                MessageTemplate.MatchPerformative(ACLMessage.PROPOSE),
-                MessageTemplate.MatchPerformative(ACLMessage.REFUSE)
+                MessageTemplate.or(
+                        MessageTemplate.MatchPerformative(ACLMessage.PROPOSE),
+                        MessageTemplate.MatchPerformative(ACLMessage.REFUSE)
+                ),
+                CONFIRMATION_TEMPLATE
         );
 
         ACLMessage reply = myAgent.receive(mt);
 
         if (reply != null) {
+            if (reply.getPerformative() == ACLMessage.INFORM || reply.getPerformative() == ACLMessage.FAILURE) {
+                stateBehaviour.notifyConfirmationReceived(reply);
+                return;
+            }
+
             if (reply.getPerformative() == ACLMessage.PROPOSE) {
                 try {
-                    ClassroomAvailability sala = (ClassroomAvailability) reply.getContentObject();
-                    if (sala == null) {
-                        System.out.println("Null classroom availability received");
-                        return;
+                    // Una propuesta por sala; las de un AgenteHostSalas llegan juntas en el mismo PROPOSE
+                    for (ClassroomAvailability sala : MessageCodec.decodeAvailabilities(reply.getByteSequenceContent())) {
+                        batchProposals.offer(new BatchProposal(sala, reply));
                     }
-
-                    // Create single batch proposal instead of multiple individual ones
-                    BatchProposal batchProposal = new BatchProposal(sala, reply);
-                    batchProposals.offer(batchProposal);
-                    stateBehaviour.notifyProposalReceived();
-
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
             }
+
+            // PROPOSE y REFUSE cuentan para el quórum de la ronda
+            stateBehaviour.notifyReplyReceived(reply);
         } else {
             block();
         }
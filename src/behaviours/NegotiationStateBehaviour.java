@@ -2,70 +2,177 @@ package behaviours;
 
 import agentes.AgenteProfesor;
 import agentes.AgenteSala;
-import constants.Commons;
+import agentes.AgenteTablon;
+import constants.Config;
+import constants.Messages;
 import constants.enums.Day;
 import debugscreens.ProfessorDebugViewer;
-import df.DFCache;
-import jade.core.behaviours.TickerBehaviour;
-import jade.domain.FIPAAgentManagement.DFAgentDescription;
-import jade.domain.FIPAAgentManagement.Property;
-import jade.domain.FIPAAgentManagement.ServiceDescription;
+import df.CatalogoSalasDF;
+import jade.core.AID;
+import jade.core.behaviours.Behaviour;
 import jade.domain.FIPANames;
 import jade.lang.acl.ACLMessage;
-import jade.lang.acl.MessageTemplate;
-import jade.lang.acl.UnreadableException;
+import metricas.Histograma;
+import metricas.Medidor;
+import metricas.RegistroMetricas;
 import objetos.Asignatura;
-import objetos.BloqueInfo;
 import objetos.AssignationData;
 import objetos.helper.BatchAssignmentConfirmation;
 import objetos.helper.BatchAssignmentRequest;
 import objetos.helper.BatchProposal;
+import objetos.helper.CFPRequest;
+import objetos.helper.MessageCodec;
+import service.ProposalEvaluator;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.stream.Collectors;
-
-public class NegotiationStateBehaviour extends TickerBehaviour {
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Máquina de estados de la negociación de un profesor.
+ * En modo por eventos se ejecuta apenas hay trabajo y queda bloqueada hasta que llega una propuesta
+ * o vence el plazo actual; en modo ticker se ejecuta un paso cada {@code period} ms.
+ */
+public class NegotiationStateBehaviour extends Behaviour {
     private final AgenteProfesor profesor;
+    private final long period;
+    private final boolean eventDriven;
+    private long nextTickTime;
     private final ConcurrentLinkedQueue<BatchProposal> propuestas;
     private NegotiationState currentState;
     private long proposalTimeout;
     private int retryCount = 0;
     //private static final int MAX_RETRIES = 10;
-    private boolean proposalReceived = false;
+    // Quórum de la ronda de CFP actual: salas consultadas y salas que ya respondieron (PROPOSE o REFUSE)
+    private String currentConversationId;
+    private int cfpRound = 0;
+    private int expectedReplies = 0;
+    private final Set<AID> repliedRooms = new HashSet<>();
+    private int proposeCount = 0;
+    private int refuseCount = 0;
+    private long quorumDeadline;
+
+    // ACCEPT_PROPOSAL enviados en paralelo que esperan su INFORM/FAILURE (reply-with -> asignación)
+    private static final long TIMEOUT_CONFIRMACION = 1000;
+    private final Map<String, PendingAssignment> pendingConfirmations = new HashMap<>();
+    private int acceptCounter = 0;
+    private long confirmationDeadline;
+    private long batchStartTime;
+
+    private static class PendingAssignment {
+        final String roomCode;
+        final int requestedBlocks;
+        final long sentTime;
+
+        PendingAssignment(String roomCode, int requestedBlocks, long sentTime) {
+            this.roomCode = roomCode;
+            this.requestedBlocks = requestedBlocks;
+            this.sentTime = sentTime;
+        }
+    }
     private final AssignationData assignationData;
+    private final ProposalEvaluator proposalEvaluator;
     private int bloquesPendientes = 0;
     private static final long TIMEOUT_PROPUESTA = 1000; // 5 seconds
 
     private long negotiationStartTime;
-    private final Map<String, Long> subjectNegotiationTimes = new HashMap<>();
+    private long subjectStartTime;
+    private long roundStartNanos;
+    private int subjectRetries = 0;
+
+    // Métricas compartidas por todos los profesores (ver RegistroMetricas)
+    private static final RegistroMetricas METRICAS = RegistroMetricas.getInstance();
+    private static final Histograma CFP_IDA_VUELTA = METRICAS.histograma("cfp.ida_vuelta_us");
+    private static final Histograma PROPUESTAS_POR_RONDA = METRICAS.histograma("cfp.propuestas_por_ronda");
+    private static final Histograma RECHAZOS_POR_RONDA = METRICAS.histograma("cfp.rechazos_por_ronda");
+    private static final Histograma EVALUACION = METRICAS.histograma("evaluacion_us");
+    private static final Histograma CONFIRMACION = METRICAS.histograma("confirmacion_us");
+    private static final Histograma LOTE = METRICAS.histograma("lote_ms");
+    private static final Histograma REINTENTOS = METRICAS.histograma("asignatura.reintentos");
+    private static final Histograma DURACION_ASIGNATURA = METRICAS.histograma("asignatura.duracion_ms");
+    private static final Histograma DURACION_PROFESOR = METRICAS.histograma("profesor.duracion_ms");
+    private static final LongAdder CONFIRMACIONES_RECHAZADAS = METRICAS.contador("confirmaciones.rechazadas");
+    private static final LongAdder CONFIRMACIONES_VENCIDAS = METRICAS.contador("confirmaciones.vencidas");
+    private static final LongAdder BLOQUES_EN_CONFLICTO = METRICAS.contador("confirmaciones.bloques_en_conflicto");
+    private static final Medidor BUZON = METRICAS.medidor("buzon.profesor");
 
     public enum NegotiationState {
         SETUP,
         COLLECTING_PROPOSALS,
         EVALUATING_PROPOSALS,
+        AWAITING_CONFIRMATIONS,
         FINISHED
     }
 
-    public NegotiationStateBehaviour(AgenteProfesor profesor, long period, ConcurrentLinkedQueue<BatchProposal> propuestas) {
-        super(profesor, period);
+    public NegotiationStateBehaviour(AgenteProfesor profesor, long period, boolean eventDriven,
+                                     ConcurrentLinkedQueue<BatchProposal> propuestas) {
+        super(profesor);
         this.profesor = profesor;
+        this.period = period;
+        this.eventDriven = eventDriven;
         this.propuestas = propuestas;
         this.currentState = NegotiationState.SETUP;
         this.assignationData = new AssignationData();
-        this.negotiationStartTime = System.currentTimeMillis();
+        this.proposalEvaluator = new ProposalEvaluator(profesor.getHorario());
+    }
+
+    /**
+     * Registra una respuesta (PROPOSE o REFUSE) a un CFP. Las respuestas de rondas anteriores no cuentan
+     * para el quórum.
+     */
+    public synchronized void notifyReplyReceived(ACLMessage reply) {
+        if (currentConversationId == null || !currentConversationId.equals(reply.getConversationId())) {
+            return;
+        }
+
+        if (repliedRooms.add(reply.getSender())) {
+            CFP_IDA_VUELTA.registrar((System.nanoTime() - roundStartNanos) / 1000);
+            if (reply.getPerformative() == ACLMessage.PROPOSE) {
+                proposeCount++;
+            } else {
+                refuseCount++;
+            }
+        }
+        wakeUp();
+    }
+
+    private synchronized boolean isQuorumComplete() {
+        return repliedRooms.size() >= expectedReplies;
     }
 
-    public synchronized void notifyProposalReceived() {
-        this.proposalReceived = true;
+    private synchronized boolean isPartialQuorumReached() {
+        return repliedRooms.size() >= Math.ceil(expectedReplies * Config.FRACCION_QUORUM);
+    }
+
+    // Despierta la máquina de estados si está bloqueada esperando un evento
+    public void wakeUp() {
+        if (eventDriven && !isRunnable()) {
+            restart();
+        }
+    }
+
+    @Override
+    public void onStart() {
+        long now = System.currentTimeMillis();
+        nextTickTime = now + period;
+        negotiationStartTime = now;
+        subjectStartTime = now;
     }
 
     @Override
-    protected void onTick() {
-        System.out.println(myAgent.getLocalName() + "MSG Pendientes: " + myAgent.getCurQueueSize());
+    public void action() {
+        if (!eventDriven) {
+            long now = System.currentTimeMillis();
+            if (now < nextTickTime) {
+                block(nextTickTime - now);
+                return;
+            }
+            nextTickTime = now + period;
+        }
+
+        BUZON.registrar(myAgent.getCurQueueSize());
         switch (currentState) {
             case SETUP:
                 handleSetupState();
@@ -76,10 +183,48 @@ public class NegotiationStateBehaviour extends TickerBehaviour {
             case EVALUATING_PROPOSALS:
                 handleEvaluatingState();
                 break;
+            case AWAITING_CONFIRMATIONS:
+                handleAwaitingConfirmationsState();
+                break;
             case FINISHED:
-                stop();
                 break;
         }
+
+        if (eventDriven) {
+            waitForNextEvent();
+        }
+    }
+
+    @Override
+    public boolean done() {
+        return currentState == NegotiationState.FINISHED;
+    }
+
+    // Solo se bloquea mientras se esperan respuestas; el resto de transiciones son inmediatas
+    private void waitForNextEvent() {
+        if (currentState == NegotiationState.AWAITING_CONFIRMATIONS) {
+            long remaining = confirmationDeadline - System.currentTimeMillis();
+            if (!pendingConfirmations.isEmpty() && remaining > 0) {
+                block(remaining + 1);
+            }
+            return;
+        }
+
+        if (currentState != NegotiationState.COLLECTING_PROPOSALS) {
+            return;
+        }
+
+        if (isQuorumComplete()) {
+            return;
+        }
+
+        // Próximo plazo relevante: primero el del quórum parcial y luego el timeout de la ronda
+        long now = System.currentTimeMillis();
+        long deadline = now <= quorumDeadline ? Math.min(quorumDeadline, proposalTimeout) : proposalTimeout;
+        long remaining = deadline - now;
+        if (remaining > 0) {
+            block(remaining + 1);
+        }
     }
 
     private void handleSetupState() {
@@ -95,14 +240,7 @@ public class NegotiationStateBehaviour extends TickerBehaviour {
         }
         if (!profesor.canUseMoreSubjects()) {
             currentState = NegotiationState.FINISHED;
-            long totalTime = System.currentTimeMillis() - negotiationStartTime;
-            System.out.printf("[TIMING] Professor %s completed all negotiations in %d ms%n",
-                    profesor.getNombre(), totalTime);
-
-            // Print individual subject times
-            subjectNegotiationTimes.forEach((subject, time) ->
-                    System.out.printf("[TIMING] Subject %s negotiation took %d ms%n", subject, time));
-
+            DURACION_PROFESOR.registrar(System.currentTimeMillis() - negotiationStartTime);
             profesor.finalizarNegociaciones();
             return;
         }
@@ -112,8 +250,6 @@ public class NegotiationStateBehaviour extends TickerBehaviour {
             bloquesPendientes = currentSubject.getHoras();
             assignationData.clear();
 
-            negotiationStartTime = System.currentTimeMillis();
-
             // Add logging here
             System.out.printf("[SETUP] Starting assignment for %s (Code: %s) - Required hours: %d%n",
                     currentSubject.getNombre(),
@@ -125,7 +261,6 @@ public class NegotiationStateBehaviour extends TickerBehaviour {
             sendProposalRequests();
             proposalTimeout = System.currentTimeMillis() + TIMEOUT_PROPUESTA;
             currentState = NegotiationState.COLLECTING_PROPOSALS;
-            proposalReceived = false;
         } else {
 //            System.out.println("Error: No hay asignatura actual para " + profesor.getNombre());
             currentState = NegotiationState.FINISHED;
@@ -133,323 +268,133 @@ public class NegotiationStateBehaviour extends TickerBehaviour {
     }
 
     private void handleEvaluatingState() {
+        long inicio = System.nanoTime();
         List<BatchProposal> currentBatchProposals = new ArrayList<>();
         while (!propuestas.isEmpty()) {
             BatchProposal bp = propuestas.poll();
-            if (bp != null) {
+            // Descartar propuestas de rondas anteriores, su disponibilidad ya no es vigente
+            if (bp != null && isCurrentRound(bp.getOriginalMessage())) {
                 currentBatchProposals.add(bp);
             }
         }
 
-        List<BatchProposal> validProposals = filterAndSortProposals(currentBatchProposals);
+        List<BatchProposal> validProposals = proposalEvaluator.filterAndSortProposals(
+                currentBatchProposals, profesor.getCurrentSubject(), bloquesPendientes);
 
-        if (!validProposals.isEmpty() && tryAssignBatchProposals(validProposals)) {
-            retryCount = 0;
-            if (bloquesPendientes == 0) {
-                profesor.moveToNextSubject();
-                currentState = NegotiationState.SETUP;
-            } else {
-                sendProposalRequests();
-                proposalTimeout = System.currentTimeMillis() + TIMEOUT_PROPUESTA;
-                currentState = NegotiationState.COLLECTING_PROPOSALS;
-            }
+        boolean enviados = !validProposals.isEmpty() && tryAssignBatchProposals(validProposals);
+        EVALUACION.registrar((System.nanoTime() - inicio) / 1000);
+        if (enviados) {
+            // Los ACCEPT ya salieron todos juntos; las confirmaciones se aplican a medida que llegan
+            confirmationDeadline = System.currentTimeMillis() + TIMEOUT_CONFIRMACION;
+            currentState = NegotiationState.AWAITING_CONFIRMATIONS;
         } else {
             handleProposalFailure();
         }
     }
 
-    private List<BatchProposal> filterAndSortProposals(List<BatchProposal> proposals) {
-        if (proposals.isEmpty()) {
-            return Collections.emptyList();
-        }
-
-        Asignatura currentSubject = profesor.getCurrentSubject();
-        String currentCampus = currentSubject.getCampus();
-        int currentNivel = currentSubject.getNivel();
-        String currentAsignaturaNombre = currentSubject.getNombre();
-
-        // Track current schedule state
-        Map<Day, List<Integer>> currentSchedule = profesor.getBlocksBySubject(currentAsignaturaNombre);
-        Map<String, Integer> roomUsage = new HashMap<>();
-        Map<Day, Integer> blocksPerDay = new HashMap<>();
-        String mostUsedRoom = null;
-
-        // Calculate current room and day usage
-        for (Map.Entry<Day, List<Integer>> entry : currentSchedule.entrySet()) {
-            Day day = entry.getKey();
-            List<Integer> blocks = entry.getValue();
-            blocksPerDay.put(day, blocks.size());
-
-            // Get room usage and track most used room
-            for (int block : blocks) {
-                BloqueInfo info = profesor.getBloqueInfo(day, block);
-                if (info != null) {
-                    String room = info.getCampus();
-                    int count = roomUsage.merge(room, 1, Integer::sum);
-                    if (mostUsedRoom == null || count > roomUsage.getOrDefault(mostUsedRoom, 0)) {
-                        mostUsedRoom = room;
-                    }
-                }
-            }
-        }
-
-        // Pre-calculate common values
-        boolean isOddYear = currentNivel % 2 == 1;
-
-        ArrayList<BatchProposalScore> scoredProposals = new ArrayList<>();
-
-        // Filter and score proposals
-        for (BatchProposal proposal : proposals) {
-            if (!isValidProposalFast(proposal, currentSubject, isOddYear, currentAsignaturaNombre)) {
-                continue;
-            }
-
-            Map<Day, List<BatchProposal.BlockProposal>> dayProposals = proposal.getDayProposals();
-            int totalScore = calculateProposalScore(proposal, currentCampus, currentNivel, currentSubject);
-
-            for (Map.Entry<Day, List<BatchProposal.BlockProposal>> entry : dayProposals.entrySet()) {
-                Day proposalDay = entry.getKey();
-                int dayUsage = blocksPerDay.getOrDefault(proposalDay, 0);
-
-                // Day-based scoring
-                totalScore -= dayUsage * 6000;  // Penalty for same-day assignments
-
-                if (!blocksPerDay.containsKey(proposalDay)) {
-                    totalScore += 8000;  // Bonus for new days
-                }
-
-                // Room consistency scoring
-                if (proposal.getRoomCode().equals(mostUsedRoom)) {
-                    totalScore += 7000;
-                }
-
-                if (!proposal.getRoomCode().startsWith(currentCampus.substring(0, 1))) {
-                    totalScore -= 10000;
-                }
-
-                // Penalize room changes
-                int roomCount = roomUsage.getOrDefault(proposal.getRoomCode(), 0);
-                totalScore -= roomCount * 1500;
-
-                // Campus transition penalty
-                if (!proposal.getRoomCode().startsWith(currentCampus.substring(0, 1))) {
-                    for (BatchProposal.BlockProposal block : entry.getValue()) {
-                        BloqueInfo prevBlock = profesor.getBloqueInfo(proposalDay, block.getBlock() - 1);
-                        BloqueInfo nextBlock = profesor.getBloqueInfo(proposalDay, block.getBlock() + 1);
-
-                        if ((prevBlock != null && !prevBlock.getCampus().equals(currentCampus)) ||
-                                (nextBlock != null && !nextBlock.getCampus().equals(currentCampus))) {
-                            totalScore -= 8000;
-                        }
-                    }
-                }
-
-                // Penalty for too many blocks in one day
-                if (dayUsage >= 2) {
-                    totalScore -= 6000;
-                }
-            }
-
-            scoredProposals.add(new BatchProposalScore(proposal, totalScore));
-        }
-
-        if (scoredProposals.isEmpty()) {
-            return Collections.emptyList();
-        }
-
-        // Sort by final scores
-        scoredProposals.sort((ps1, ps2) -> ps2.score - ps1.score);
-
-        // Convert to List<BatchProposal>
-        return scoredProposals.stream()
-                .map(ps -> ps.proposal)
-                .collect(Collectors.toList());
-    }
-
-    private static class BatchProposalScore {
-        final BatchProposal proposal;
-        final int score;
-
-        BatchProposalScore(BatchProposal proposal, int score) {
-            this.proposal = proposal;
-            this.score = score;
-        }
-    }
-
-    private boolean isValidProposalFast(BatchProposal proposal, Asignatura asignatura,
-                                        boolean isOddYear, String asignaturaNombre) {
-        // Basic room validation
-        if (!checkCampusConstraints(proposal, asignatura.getCampus())) {
-            return false;
+    private void handleAwaitingConfirmationsState() {
+        if (!pendingConfirmations.isEmpty() && System.currentTimeMillis() <= confirmationDeadline) {
+            return;
         }
 
-        // Check each day's blocks
-        for (Map.Entry<Day, List<BatchProposal.BlockProposal>> entry : proposal.getDayProposals().entrySet()) {
-            Day day = entry.getKey();
-            List<BatchProposal.BlockProposal> blocks = entry.getValue();
-
-            // Check block limit per day
-            Map<String, List<Integer>> asignaturasEnDia = profesor.getBlocksByDay(day);
-            List<Integer> existingBlocks = asignaturasEnDia.get(asignaturaNombre);
-            if (existingBlocks != null && existingBlocks.size() >= 2) {
-                continue;
-            }
-
-            // Validate each block in the day
-            for (BatchProposal.BlockProposal block : blocks) {
-                int bloque = block.getBlock();
-
-                // Basic time constraints
-                if (bloque < 1 || bloque > Commons.MAX_BLOQUE_DIURNO) {
-                    continue;
-                }
-
-                // Block 9 constraint
-                if (bloque == Commons.MAX_BLOQUE_DIURNO && bloquesPendientes % 2 == 0) {
-                    continue;
-                }
-
-                // Year-based constraints
-                if (isOddYear) {
-                    if (bloque > 4 && bloque != Commons.MAX_BLOQUE_DIURNO) {
-                        continue;
-                    }
-                } else {
-                    if (bloque < 5 && proposal.getSatisfactionScore() < 8) {
-                        continue;
-                    }
-                }
-
-                // If we find at least one valid block, proposal is valid
-                return true;
-            }
+        if (!pendingConfirmations.isEmpty()) {
+            System.out.printf("%d rooms did not confirm in time for %s%n",
+                    pendingConfirmations.size(), profesor.getCurrentSubject().getNombre());
+            CONFIRMACIONES_VENCIDAS.add(pendingConfirmations.size());
+            profesor.registrarConfirmacionesFallidas(pendingConfirmations.size());
+            pendingConfirmations.clear();
         }
 
-        return false;
-    }
-
-    private int calculateProposalScore(BatchProposal proposal, String currentCampus,
-                                       int nivel, Asignatura subject) {
-        int score = 0;
+        LOTE.registrar(System.currentTimeMillis() - batchStartTime);
 
-        // Campus consistency (high priority)
-        if (proposal.getCampus().equals(currentCampus)) {
-            score += 10000;
+        retryCount = 0;
+        if (bloquesPendientes == 0) {
+            nextSubject();
+            currentState = NegotiationState.SETUP;
         } else {
-            score -= 10000;
-        }
-
-        // Time preference based on year
-        boolean isOddYear = nivel % 2 == 1;
-        for (Map.Entry<Day, List<BatchProposal.BlockProposal>> entry : proposal.getDayProposals().entrySet()) {
-            for (BatchProposal.BlockProposal block : entry.getValue()) {
-                if (isOddYear) {
-                    if (block.getBlock() <= 4) score += 3000;
-                } else {
-                    if (block.getBlock() >= 5) score += 3000;
-                }
-            }
+            sendProposalRequests();
+            proposalTimeout = System.currentTimeMillis() + TIMEOUT_PROPUESTA;
+            currentState = NegotiationState.COLLECTING_PROPOSALS;
         }
-
-        // Base satisfaction score
-        score += proposal.getSatisfactionScore() * 10;
-
-        // Capacity score - prefer rooms that closely match needed capacity
-        int capacityDiff = Math.abs(proposal.getCapacity() - subject.getVacantes());
-        score -= capacityDiff * 100;
-
-        return score;
     }
 
-    private boolean checkCampusConstraints(BatchProposal proposal, String currentCampus) {
-        String proposedCampus = getCampusSala(proposal.getRoomCode());
-
-        // If same campus, always valid
-        if (proposedCampus.equals(currentCampus)) {
-            return true;
+    /**
+     * Aplica la respuesta de una sala a un ACCEPT_PROPOSAL, emparejada por su reply-with.
+     * Las respuestas que llegan después del plazo de confirmación se descartan.
+     */
+    public void notifyConfirmationReceived(ACLMessage reply) {
+        PendingAssignment pending = pendingConfirmations.remove(reply.getInReplyTo());
+        if (pending == null) {
+            System.out.println("Ignoring late confirmation from " + reply.getSender().getLocalName());
+            return;
         }
 
-        // Check transitions for each day in the proposal
-        for (Map.Entry<Day, List<BatchProposal.BlockProposal>> entry : proposal.getDayProposals().entrySet()) {
-            Day dia = entry.getKey();
-
-            // Check if there's already a campus transition this day
-            if (hasExistingTransitionInDay(dia)) {
-                return false;
-            }
+        CONFIRMACION.registrar((System.nanoTime() - pending.sentTime) / 1000);
+        if (reply.getPerformative() == ACLMessage.INFORM) {
+            try {
+                BatchAssignmentConfirmation confirmation =
+                        MessageCodec.decodeConfirmation(reply.getByteSequenceContent());
+                // Bloques que otro profesor concurrente tomó entre la propuesta y el ACCEPT; quedan
+                // pendientes y se piden en la siguiente ronda, con la disponibilidad ya actualizada
+                BLOQUES_EN_CONFLICTO.add(pending.requestedBlocks - confirmation.getConfirmedAssignments().size());
+
+                for (BatchAssignmentConfirmation.ConfirmedAssignment assignment :
+                        confirmation.getConfirmedAssignments()) {
+                    if (bloquesPendientes <= 0) {
+                        System.out.println("WARNING: Assignment would exceed required hours");
+                        break;
+                    }
 
-            // Validate buffer blocks for each proposed block
-            for (BatchProposal.BlockProposal blockProposal : entry.getValue()) {
-                if (!validateTransitionBuffer(dia, blockProposal.getBlock(), proposal.getRoomCode())) {
-                    return false;
+                    profesor.updateScheduleInfo(
+                            assignment.getDay(),
+                            assignment.getClassroomCode(),
+                            assignment.getBlock(),
+                            profesor.getCurrentSubject().getNombre(),
+                            assignment.getSatisfaction()
+                    );
+
+                    bloquesPendientes--;
+                    assignationData.assign(
+                            assignment.getDay(),
+                            assignment.getClassroomCode(),
+                            assignment.getBlock()
+                    );
                 }
+            } catch (IOException e) {
+                System.err.println("Error reading confirmation: " + e.getMessage());
+                e.printStackTrace();
             }
+        } else {
+            CONFIRMACIONES_RECHAZADAS.increment();
+            profesor.registrarConfirmacionesFallidas(1);
+            BLOQUES_EN_CONFLICTO.add(pending.requestedBlocks);
+            System.out.printf("Room %s rejected %d blocks for %s%n",
+                    pending.roomCode, pending.requestedBlocks, profesor.getCurrentSubject().getNombre());
         }
 
-        return true;
-    }
-
-    // Updated to take individual parameters instead of Propuesta
-    private boolean validateTransitionBuffer(Day dia, int bloque, String codigoSala) {
-        String proposedCampus = getCampusSala(codigoSala);
-
-        BloqueInfo prevBlock = profesor.getBloqueInfo(dia, bloque - 1);
-        BloqueInfo nextBlock = profesor.getBloqueInfo(dia, bloque + 1);
-
-        // Check if there's at least one empty block between different campuses
-        if (prevBlock != null && !prevBlock.getCampus().equals(proposedCampus)) {
-            return profesor.isBlockAvailable(dia, bloque - 1);
-        }
-
-        if (nextBlock != null && !nextBlock.getCampus().equals(proposedCampus)) {
-            return profesor.isBlockAvailable(dia, bloque + 1);
-        }
-
-        return true;
+        wakeUp();
     }
 
-    private boolean hasExistingTransitionInDay(Day dia) {
-        String previousCampus = null;
-        Map<String, List<Integer>> dayClasses = profesor.getBlocksByDay(dia);
-
-        if (dayClasses == null || dayClasses.isEmpty()) {
-            return false;
-        }
-
-        List<BloqueInfo> blocks = new ArrayList<>();
-        for (Map.Entry<String, List<Integer>> entry : dayClasses.entrySet()) {
-            for (Integer bloque : entry.getValue()) {
-                BloqueInfo info = profesor.getBloqueInfo(dia, bloque);
-                if (info != null) {
-                    blocks.add(info);
-                }
-            }
-        }
-
-        blocks.sort(Comparator.comparingInt(BloqueInfo::getBloque));
-
-        for (BloqueInfo block : blocks) {
-            if (previousCampus != null && !previousCampus.equals(block.getCampus())) {
-                return true;
-            }
-            previousCampus = block.getCampus();
-        }
-
-        return false;
-    }
+    private static final int MAX_RETRIES = 3;
 
-    private String getCampusSala(String codigoSala) {
-        return codigoSala.startsWith("KAU") ? "Kaufmann" : "Playa Brava";
+    // Registra la duración y los reintentos de la asignatura actual antes de pasar a la siguiente
+    private void nextSubject() {
+        long now = System.currentTimeMillis();
+        DURACION_ASIGNATURA.registrar(now - subjectStartTime);
+        REINTENTOS.registrar(subjectRetries);
+        subjectStartTime = now;
+        subjectRetries = 0;
+        profesor.moveToNextSubject();
+        profesor.reportarEstado(Messages.PROGRESS);
     }
 
-    private static final int MAX_RETRIES = 3;
-
     private void handleNoProposals() {
         retryCount++;
+        subjectRetries++;
         if (retryCount >= MAX_RETRIES) {
             if (bloquesPendientes == profesor.getCurrentSubject().getHoras()) {
                 // If no blocks assigned yet for this subject, move to next subject
-                profesor.moveToNextSubject();
+                nextSubject();
             } else {
                 // If some blocks assigned, try different room
                 assignationData.setSalaAsignada(null);
@@ -457,57 +402,64 @@ public class NegotiationStateBehaviour extends TickerBehaviour {
             retryCount = 0;
             currentState = NegotiationState.SETUP;
         } else {
-            // Add exponential backoff to avoid overwhelming the system
-            long backoffTime = (long) Math.pow(2, retryCount) * 1000; // 2^retry seconds
-            proposalTimeout = System.currentTimeMillis() + TIMEOUT_PROPUESTA + backoffTime;
+            // Sin espera adicional: con el quórum la ronda termina apenas responden todas las salas
             sendProposalRequests();
+            proposalTimeout = System.currentTimeMillis() + TIMEOUT_PROPUESTA;
         }
     }
 
     private void handleProposalFailure() {
         retryCount++;
+        subjectRetries++;
         if (retryCount >= MAX_RETRIES) {
             if (assignationData.hasSalaAsignada()) {
                 // Try different room if current one isn't working
                 assignationData.setSalaAsignada(null);
             } else {
                 // If we've tried different rooms without success, move on
-                profesor.moveToNextSubject();
+                nextSubject();
             }
             retryCount = 0;
             currentState = NegotiationState.SETUP;
         } else {
             currentState = NegotiationState.COLLECTING_PROPOSALS;
-            // Add exponential backoff here too
-            long backoffTime = (long) Math.pow(2, retryCount) * 1000;
-            proposalTimeout = System.currentTimeMillis() + TIMEOUT_PROPUESTA + backoffTime;
             sendProposalRequests();
+            proposalTimeout = System.currentTimeMillis() + TIMEOUT_PROPUESTA;
         }
     }
 
     private void handleCollectingState() {
-        // If we received proposals, evaluate immediately
-        if (proposalReceived) {
-            if (!propuestas.isEmpty()) {
-                currentState = NegotiationState.EVALUATING_PROPOSALS;
-                return;
-            }
+        long now = System.currentTimeMillis();
+
+        // Todas las salas consultadas respondieron, o respondió la fracción configurada y venció su plazo
+        if (isQuorumComplete() || (now > quorumDeadline && isPartialQuorumReached())) {
+            finishCollecting();
+            return;
         }
 
         // If we hit timeout
-        if (System.currentTimeMillis() > proposalTimeout) {
-            if (!propuestas.isEmpty()) {
-                currentState = NegotiationState.EVALUATING_PROPOSALS;
-            } else {
-                handleNoProposals();
-            }
+        if (now > proposalTimeout) {
+            finishCollecting();
+        }
+    }
+
+    private void finishCollecting() {
+        synchronized (this) {
+            PROPUESTAS_POR_RONDA.registrar(proposeCount);
+            RECHAZOS_POR_RONDA.registrar(refuseCount);
+        }
+
+        if (!propuestas.isEmpty()) {
+            currentState = NegotiationState.EVALUATING_PROPOSALS;
+        } else {
+            handleNoProposals();
         }
     }
 
     private boolean tryAssignBatchProposals(List<BatchProposal> batchProposals) {
         Asignatura currentSubject = profesor.getCurrentSubject();
         int requiredHours = currentSubject.getHoras();
-        long batchStartTime = System.currentTimeMillis();
+        batchStartTime = System.currentTimeMillis();
         if (bloquesPendientes <= 0 || bloquesPendientes > requiredHours) {
             System.out.printf("Invalid pending hours state: %d/%d for %s%n",
                     bloquesPendientes, requiredHours, currentSubject.getNombre());
@@ -515,11 +467,13 @@ public class NegotiationStateBehaviour extends TickerBehaviour {
         }
 
         Map<Day, Integer> dailyAssignments = new HashMap<>();
+        // Bloques ya pedidos a otra sala en este mismo lote (aún sin confirmar)
+        Map<Day, Set<Integer>> reservedBlocks = new HashMap<>();
         int totalAssigned = 0;
+        pendingConfirmations.clear();
 
         // Process each batch proposal (which represents one room's available blocks)
         for (BatchProposal batchProposal : batchProposals) {
-            long proposalStartTime = System.currentTimeMillis();
             List<BatchAssignmentRequest.AssignmentRequest> requests = new ArrayList<>();
 
             // Process each day's blocks in this room
@@ -535,8 +489,9 @@ public class NegotiationStateBehaviour extends TickerBehaviour {
                     // Stop if we've assigned all needed blocks
                     if (totalAssigned >= bloquesPendientes) break;
 
-                    // Skip if block not available
+                    // Skip if block not available or already requested in this batch
                     if (!profesor.isBlockAvailable(day, block.getBlock())) continue;
+                    if (!reservedBlocks.computeIfAbsent(day, k -> new HashSet<>()).add(block.getBlock())) continue;
 
                     requests.add(new BatchAssignmentRequest.AssignmentRequest(
                             day,
@@ -555,121 +510,87 @@ public class NegotiationStateBehaviour extends TickerBehaviour {
             // Send batch assignment if we have requests
             if (!requests.isEmpty()) {
                 try {
-                    if (sendBatchAssignment(requests, batchProposal.getOriginalMessage())) {
-                        System.out.printf("Successfully assigned %d blocks in room %s for %s%n",
-                                requests.size(), batchProposal.getRoomCode(),
-                                currentSubject.getNombre());
-
-                        long proposalTime = System.currentTimeMillis() - proposalStartTime;
-                        System.out.printf("[TIMING] Room %s assignment took %d ms - Assigned %d blocks for %s%n",
-                                batchProposal.getRoomCode(), proposalTime, requests.size(),
-                                currentSubject.getNombre());
-                    }
+                    sendBatchAssignment(requests, batchProposal);
                 } catch (Exception e) {
                     System.err.println("Error in batch assignment: " + e.getMessage());
-                    return false;
+                    return !pendingConfirmations.isEmpty();
                 }
             }
         }
 
-        long totalBatchTime = System.currentTimeMillis() - batchStartTime;
-        System.out.printf("[TIMING] Total batch assignment time for %s: %d ms - Total blocks assigned: %d%n",
-                currentSubject.getNombre(), totalBatchTime, totalAssigned);
-
         return totalAssigned > 0;
     }
 
-    private boolean sendBatchAssignment(List<BatchAssignmentRequest.AssignmentRequest> requests,
-                                        ACLMessage originalMsg) throws IOException {
+    private void sendBatchAssignment(List<BatchAssignmentRequest.AssignmentRequest> requests,
+                                     BatchProposal batchProposal) throws IOException {
         // Create batch request
         BatchAssignmentRequest batchRequest = new BatchAssignmentRequest(requests);
 
-        // Send acceptance message
-        ACLMessage batchAccept = originalMsg.createReply();
+        // Send acceptance message; the room's INFORM/FAILURE comes back with this reply-with as in-reply-to
+        ACLMessage batchAccept = batchProposal.getOriginalMessage().createReply();
+        if (Config.TABLON_DISPONIBILIDAD) {
+            // La propuesta vino del tablón, pero solo la sala puede confirmar sus bloques
+            AID sala = CatalogoSalasDF.agenteDeSala(profesor, AgenteSala.SERVICE_NAME, batchProposal.getRoomCode());
+            if (sala == null) {
+                throw new IOException("Room " + batchProposal.getRoomCode() + " is no longer in the DF");
+            }
+            batchAccept.clearAllReceiver();
+            batchAccept.addReceiver(sala);
+        }
         batchAccept.setPerformative(ACLMessage.ACCEPT_PROPOSAL);
-        batchAccept.setContentObject(batchRequest);
-        profesor.send(batchAccept);
+        batchAccept.setProtocol(FIPANames.InteractionProtocol.FIPA_CONTRACT_NET);
+        String replyWith = "accept-" + profesor.getNombre() + "-" + (++acceptCounter);
+        batchAccept.setReplyWith(replyWith);
+        batchAccept.setByteSequenceContent(MessageCodec.encode(batchRequest));
 
-        // Wait for confirmation
-        MessageTemplate mt = MessageTemplate.and(
-                MessageTemplate.MatchSender(originalMsg.getSender()),
-                MessageTemplate.MatchPerformative(ACLMessage.INFORM)
-        );
-
-        return waitForConfirmation(mt, requests);
+        pendingConfirmations.put(replyWith, new PendingAssignment(
+                batchProposal.getRoomCode(), requests.size(), System.nanoTime()));
+        profesor.send(batchAccept);
     }
 
-    // Helper method to handle confirmation waiting
-    private boolean waitForConfirmation(MessageTemplate mt, List<BatchAssignmentRequest.AssignmentRequest> requests) {
-        if (bloquesPendientes - requests.size() < 0) {
-            System.out.println("WARNING: Assignment would exceed required hours");
-            return false;
-        }
-
-        long startTime = System.currentTimeMillis();
-        long timeout = 1000;
-
-        while (System.currentTimeMillis() - startTime < timeout) {
-            ACLMessage confirm = myAgent.receive(mt);
-            if (confirm != null) {
-                try {
-                    BatchAssignmentConfirmation confirmation =
-                            (BatchAssignmentConfirmation) confirm.getContentObject();
-
-                    for (BatchAssignmentConfirmation.ConfirmedAssignment assignment :
-                            confirmation.getConfirmedAssignments()) {
-                        profesor.updateScheduleInfo(
-                                assignment.getDay(),
-                                assignment.getClassroomCode(),
-                                assignment.getBlock(),
-                                profesor.getCurrentSubject().getNombre(),
-                                assignment.getSatisfaction()
-                        );
-
-                        bloquesPendientes--;
-                        assignationData.assign(
-                                assignment.getDay(),
-                                assignment.getClassroomCode(),
-                                assignment.getBlock()
-                        );
-                    }
-                    return true;
-                } catch (UnreadableException e) {
-                    System.err.println("Error reading confirmation: " + e.getMessage());
-                    e.printStackTrace();
-                    return false;
-                }
-            }
-            block(50);
-        }
-        return false;
+    private synchronized boolean isCurrentRound(ACLMessage msg) {
+        return currentConversationId != null && currentConversationId.equals(msg.getConversationId());
     }
 
-    private String sanitizeSubjectName(String name) {
-        return name.replaceAll("[^a-zA-Z0-9]", "");
+    private synchronized void startRound(String conversationId, int receivers) {
+        currentConversationId = conversationId;
+        expectedReplies = receivers;
+        repliedRooms.clear();
+        proposeCount = 0;
+        refuseCount = 0;
+        quorumDeadline = System.currentTimeMillis() + Config.PLAZO_QUORUM;
+        roundStartNanos = System.nanoTime();
     }
 
     private void sendProposalRequests() {
         try {
-            List<DFAgentDescription> results = DFCache.search(profesor, AgenteSala.SERVICE_NAME);
-            if (results.isEmpty()) {
-                return;
-            }
-
             Asignatura currentSubject = profesor.getCurrentSubject();
             if (currentSubject == null) {
                 System.err.println("Warning: No current subject available for professor " + profesor.getNombre());
                 return;
             }
 
+            // Only rooms on the subject's campus with enough capacity
+            List<AID> rooms = CatalogoSalasDF.candidatas(profesor, AgenteSala.SERVICE_NAME,
+                    currentSubject.getCampus(), currentSubject.getVacantes());
+            if (rooms.isEmpty()) {
+                // Sin salas no hay respuestas que esperar
+                startRound(null, 0);
+                return;
+            }
+
             // Create CFP message once
             ACLMessage cfp = createCFPMessage(currentSubject);
-            // Filter rooms before adding receivers
-            results.stream()
-                    .filter(room -> !canQuickReject(currentSubject, room))
-                    .forEach(room -> cfp.addReceiver(room.getName()));
+            if (Config.TABLON_DISPONIBILIDAD) {
+                // Una sola consulta: el tablón responde por todas las salas candidatas
+                rooms = Collections.singletonList(AgenteTablon.getAIDTablon());
+            }
+            for (AID room : rooms) {
+                cfp.addReceiver(room);
+            }
+            int receivers = rooms.size();
 
-            profesor.send(cfp);
+            startRound(cfp.getConversationId(), receivers);
 
             // Send the message
             profesor.send(cfp);
@@ -680,64 +601,16 @@ public class NegotiationStateBehaviour extends TickerBehaviour {
         }
     }
 
-    private final Map<String, DFAgentDescription> roomCache = new ConcurrentHashMap<>();
-    private final Map<String, Boolean> quickRejectCache = new ConcurrentHashMap<>();
-
-    // Cache key generator
-    private String getCacheKey(Asignatura subject, String roomId) {
-        return subject.getCodigoAsignatura() + "-" + roomId;
-    }
-
-    //FIXME: La capacidad está como "turno" en el json de salas
-    private boolean canQuickReject(Asignatura subject, DFAgentDescription room) {
-        String cacheKey = getCacheKey(subject, room.getName().getLocalName());
-
-        return quickRejectCache.computeIfAbsent(cacheKey, k -> {
-            // Basic room requirements
-            ServiceDescription sd = (ServiceDescription) room.getAllServices().next();
-            List<Property> props = new ArrayList<>();
-            sd.getAllProperties().forEachRemaining(prop -> props.add((Property) prop));
-
-            //first 0 is the campus, and 1 is the capacity
-            Property roomCampusProp = props.get(0);
-            String roomCampus = (String) roomCampusProp.getValue();
-
-            Property roomCapacityProp = props.get(2);
-            int roomCapacity = Integer.parseInt((String) roomCapacityProp.getValue());
-
-            // Quick reject conditions
-            if (!roomCampus.equals(subject.getCampus())) {
-                return true;
-            }
-
-            if (roomCapacity < subject.getVacantes()) {
-                return true; // Room too small
-            }
-
-            return false; // Passed basic checks
-        });
-    }
-
     // Separate method for creating the CFP message to improve readability
-    private ACLMessage createCFPMessage(Asignatura currentSubject) {
+    private ACLMessage createCFPMessage(Asignatura currentSubject) throws IOException {
         ACLMessage cfp = new ACLMessage(ACLMessage.CFP);
 
         cfp.setProtocol(FIPANames.InteractionProtocol.FIPA_CONTRACT_NET);
 
-        // Build request info
-        String solicitudInfo = String.format("%s,%d,%d,%s,%d,%s,%s,%d",
-                sanitizeSubjectName(currentSubject.getNombre()),
-                currentSubject.getVacantes(),
-                currentSubject.getNivel(),
-                currentSubject.getCampus(),
-                bloquesPendientes,
-                assignationData.getSalaAsignada(),
-                assignationData.getUltimoDiaAsignado() != null ?
-                        assignationData.getUltimoDiaAsignado().toString() : "",
-                assignationData.getUltimoBloqueAsignado());
-
-        cfp.setContent(solicitudInfo);
-        cfp.setConversationId("neg-" + profesor.getNombre() + "-" + bloquesPendientes);
+        // Build request info (encoded once, shared by every receiver of the round)
+        CFPRequest solicitud = CFPRequest.of(currentSubject, bloquesPendientes, assignationData);
+        cfp.setByteSequenceContent(MessageCodec.encode(solicitud));
+        cfp.setConversationId("neg-" + profesor.getNombre() + "-" + bloquesPendientes + "-" + (++cfpRound));
 
         return cfp;
     }
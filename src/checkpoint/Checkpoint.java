@@ -0,0 +1,256 @@
+package checkpoint;
+
+import constants.enums.Day;
+import objetos.AsignacionProfesor;
+import objetos.AsignacionSala;
+import objetos.DatosProfesor;
+import objetos.DatosSala;
+import objetos.HorarioSala;
+import objetos.OcupacionSala;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Snapshot binario de una ejecución, tomado cuando un profesor termina y antes de pasar el turno:
+ * la ocupación de cada sala, el horario de los profesores que ya terminaron y el orden del siguiente
+ * profesor (quien recibe el turno). Con él, {@code Aplicacion --resume} continúa desde ese profesor.
+ * <p>
+ * Las salas van como su máscara semanal (ver OcupacionSala) seguida de la asignación de cada bloque
+ * ocupado. Los textos repetidos (asignaturas, salas, códigos) se escriben una vez y luego por índice.
+ */
+public class Checkpoint {
+    private static final int MAGIC = 0x48534331; // "HSC1"
+    private static final int NUEVO_TEXTO = -1;
+
+    private static final Day[] DIAS = Day.values();
+
+    private final int siguienteOrden;
+    private final Map<String, AsignacionSala[]> salas;
+    private final Map<Integer, Profesor> profesores;
+
+    /**
+     * Estado de un profesor que ya terminó de negociar.
+     */
+    public static class Profesor {
+        private final int orden;
+        private final String nombre;
+        private final int asignaturaActual;
+        private final int currentInstanceIndex;
+        private final List<AsignacionProfesor> asignaciones;
+
+        public Profesor(int orden, String nombre, int asignaturaActual, int currentInstanceIndex,
+                        List<AsignacionProfesor> asignaciones) {
+            this.orden = orden;
+            this.nombre = nombre;
+            this.asignaturaActual = asignaturaActual;
+            this.currentInstanceIndex = currentInstanceIndex;
+            this.asignaciones = asignaciones;
+        }
+
+        public int getOrden() {
+            return orden;
+        }
+
+        public String getNombre() {
+            return nombre;
+        }
+
+        public int getAsignaturaActual() {
+            return asignaturaActual;
+        }
+
+        public int getCurrentInstanceIndex() {
+            return currentInstanceIndex;
+        }
+
+        public List<AsignacionProfesor> getAsignaciones() {
+            return asignaciones;
+        }
+    }
+
+    private Checkpoint(int siguienteOrden, Map<String, AsignacionSala[]> salas, Map<Integer, Profesor> profesores) {
+        this.siguienteOrden = siguienteOrden;
+        this.salas = salas;
+        this.profesores = profesores;
+    }
+
+    /**
+     * Orden del profesor que tenía el turno al tomar el snapshot.
+     */
+    public int getSiguienteOrden() {
+        return siguienteOrden;
+    }
+
+    /**
+     * Asignaciones de la sala por bloque de la semana (null si está libre), o null si la sala no está.
+     */
+    public AsignacionSala[] getSala(String codigo) {
+        return salas.get(codigo);
+    }
+
+    public Map<String, AsignacionSala[]> getSalas() {
+        return Collections.unmodifiableMap(salas);
+    }
+
+    /**
+     * @return El profesor si ya había terminado al tomar el snapshot, o null.
+     */
+    public Profesor getProfesor(int orden) {
+        return profesores.get(orden);
+    }
+
+    /**
+     * Compara el snapshot con la entrada actual: las mismas salas y, en cada orden ya terminado, el mismo
+     * profesor. Reanudar con otra entrada mezclaría horarios de profesores distintos.
+     * @return null si el snapshot corresponde a la entrada, o el motivo por el que no.
+     */
+    public String diferenciaCon(List<DatosProfesor> profesoresEntrada, List<DatosSala> salasEntrada) {
+        Set<String> codigos = new HashSet<>();
+        for (DatosSala sala : salasEntrada) {
+            codigos.add(sala.getCodigo());
+        }
+        if (!codigos.equals(salas.keySet())) {
+            return "las salas no coinciden con las de la entrada";
+        }
+
+        if (siguienteOrden > profesoresEntrada.size()) {
+            return "el siguiente profesor (" + siguienteOrden + ") no existe en la entrada";
+        }
+        for (Profesor profesor : profesores.values()) {
+            if (profesor.orden >= profesoresEntrada.size()
+                    || !profesor.nombre.equals(profesoresEntrada.get(profesor.orden).getNombre())) {
+                return "el profesor " + profesor.nombre + " (orden " + profesor.orden + ") no coincide con la entrada";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Escribe el snapshot a un archivo temporal y lo mueve sobre {@code archivo}, para que un corte a mitad
+     * de escritura deje el snapshot anterior intacto.
+     */
+    static void escribir(Path archivo, int siguienteOrden, Collection<HorarioSala> salas,
+                         Collection<Profesor> profesores) throws IOException {
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        Map<String, Integer> textos = new HashMap<>();
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporal)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(siguienteOrden);
+
+            out.writeInt(salas.size());
+            for (HorarioSala sala : salas) {
+                OcupacionSala ocupacion = sala.getOcupacion();
+                long mascara = ocupacion.getMascara();
+
+                writeTexto(out, sala.getCodigo(), textos);
+                out.writeLong(mascara);
+                for (long resto = mascara; resto != 0; resto &= resto - 1) {
+                    int i = Long.numberOfTrailingZeros(resto);
+                    AsignacionSala asignacion = ocupacion.getAsignacion(
+                            DIAS[i / OcupacionSala.BLOQUES_POR_DIA], i % OcupacionSala.BLOQUES_POR_DIA + 1);
+                    writeTexto(out, asignacion.getNombreAsignatura(), textos);
+                    out.writeByte(asignacion.getSatisfaccion());
+                    out.writeFloat(asignacion.getCapacidad());
+                }
+            }
+
+            out.writeInt(profesores.size());
+            for (Profesor profesor : profesores) {
+                out.writeInt(profesor.orden);
+                writeTexto(out, profesor.nombre, textos);
+                out.writeInt(profesor.asignaturaActual);
+                out.writeInt(profesor.currentInstanceIndex);
+
+                out.writeInt(profesor.asignaciones.size());
+                for (AsignacionProfesor asignacion : profesor.asignaciones) {
+                    writeTexto(out, asignacion.getNombre(), textos);
+                    writeTexto(out, asignacion.getSala(), textos);
+                    writeTexto(out, asignacion.getCodigoAsignatura(), textos);
+                    out.writeByte(asignacion.getDia().ordinal());
+                    out.writeByte(asignacion.getBloque());
+                    out.writeByte(asignacion.getSatisfaccion());
+                    out.writeShort(asignacion.getInstance());
+                }
+            }
+        }
+
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static Checkpoint leer(Path archivo) throws IOException {
+        List<String> textos = new ArrayList<>();
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(archivo)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(archivo + " no es un checkpoint válido");
+            }
+            int siguienteOrden = in.readInt();
+
+            int totalSalas = in.readInt();
+            Map<String, AsignacionSala[]> salas = new LinkedHashMap<>();
+            for (int s = 0; s < totalSalas; s++) {
+                String codigo = readTexto(in, textos);
+                AsignacionSala[] bloques = new AsignacionSala[OcupacionSala.TOTAL_BLOQUES];
+                for (long resto = in.readLong(); resto != 0; resto &= resto - 1) {
+                    String nombre = readTexto(in, textos);
+                    int satisfaccion = in.readUnsignedByte();
+                    float capacidad = in.readFloat();
+                    bloques[Long.numberOfTrailingZeros(resto)] = new AsignacionSala(nombre, satisfaccion, capacidad);
+                }
+                salas.put(codigo, bloques);
+            }
+
+            int totalProfesores = in.readInt();
+            Map<Integer, Profesor> profesores = new HashMap<>();
+            for (int p = 0; p < totalProfesores; p++) {
+                int orden = in.readInt();
+                String nombre = readTexto(in, textos);
+                int asignaturaActual = in.readInt();
+                int currentInstanceIndex = in.readInt();
+
+                int totalAsignaciones = in.readInt();
+                List<AsignacionProfesor> asignaciones = new ArrayList<>(totalAsignaciones);
+                for (int a = 0; a < totalAsignaciones; a++) {
+                    String asignatura = readTexto(in, textos);
+                    String sala = readTexto(in, textos);
+                    String codigoAsignatura = readTexto(in, textos);
+                    Day dia = DIAS[in.readUnsignedByte()];
+                    int bloque = in.readUnsignedByte();
+                    int satisfaccion = in.readUnsignedByte();
+                    int instance = in.readUnsignedShort();
+                    asignaciones.add(new AsignacionProfesor(asignatura, sala, bloque, dia, satisfaccion,
+                            codigoAsignatura, instance));
+                }
+                profesores.put(orden, new Profesor(orden, nombre, asignaturaActual, currentInstanceIndex, asignaciones));
+            }
+
+            return new Checkpoint(siguienteOrden, salas, profesores);
+        }
+    }
+
+    private static void writeTexto(DataOutputStream out, String texto, Map<String, Integer> textos) throws IOException {
+        Integer indice = textos.get(texto);
+        if (indice != null) {
+            out.writeInt(indice);
+        } else {
+            textos.put(texto, textos.size());
+            out.writeInt(NUEVO_TEXTO);
+            out.writeUTF(texto);
+        }
+    }
+
+    private static String readTexto(DataInputStream in, List<String> textos) throws IOException {
+        int indice = in.readInt();
+        if (indice != NUEVO_TEXTO) {
+            return textos.get(indice);
+        }
+        String texto = in.readUTF();
+        textos.add(texto);
+        return texto;
+    }
+}
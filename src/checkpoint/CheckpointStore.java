@@ -0,0 +1,118 @@
+package checkpoint;
+
+import constants.Config;
+import json_stuff.JSONHelper;
+import objetos.DatosProfesor;
+import objetos.DatosSala;
+import objetos.HorarioProfesor;
+import objetos.HorarioSala;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Estado de la ejecución que se guarda en agent_output/checkpoint.bin. Las salas se registran al crearse
+ * y los profesores al terminar; cada {@code checkpoint.intervalo} profesores terminados se escribe un
+ * snapshot (0 lo desactiva). El snapshot se borra al iniciar una ejecución nueva y al terminar una
+ * ejecución completa, así {@code --resume} solo continúa una ejecución que se cortó.
+ * <p>
+ * Con más de un profesor negociando a la vez no se escriben snapshots: las salas tendrían bloques de
+ * profesores a medio negociar, que al reanudar volverían a pedirse.
+ */
+public class CheckpointStore {
+    private static final String ARCHIVO = "checkpoint.bin";
+
+    private static CheckpointStore instance;
+    private static final ReentrantLock instanceLock = new ReentrantLock();
+
+    private final Map<String, HorarioSala> salas = new LinkedHashMap<>();
+    private final TreeMap<Integer, Checkpoint.Profesor> profesores = new TreeMap<>();
+    private int terminadosDesdeSnapshot = 0;
+
+    private CheckpointStore() {
+    }
+
+    public static CheckpointStore getInstance() {
+        if (instance == null) {
+            instanceLock.lock();
+            try {
+                if (instance == null) {
+                    instance = new CheckpointStore();
+                }
+            } finally {
+                instanceLock.unlock();
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Lee el último snapshot.
+     * @return El snapshot, o null si no existe.
+     */
+    public static Checkpoint leer() throws IOException {
+        Path archivo = JSONHelper.outputPath(ARCHIVO);
+        return Files.exists(archivo) ? Checkpoint.leer(archivo) : null;
+    }
+
+    /**
+     * Borra el snapshot de agent_output, si existe.
+     */
+    public static void borrar() {
+        try {
+            Files.deleteIfExists(JSONHelper.outputPath(ARCHIVO));
+        } catch (IOException e) {
+            System.err.println("Error deleting checkpoint: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rechaza un snapshot tomado con otra entrada (otros profesores u otras salas).
+     */
+    public static boolean corresponde(Checkpoint checkpoint, List<DatosProfesor> profesores, List<DatosSala> salas) {
+        String diferencia = checkpoint.diferenciaCon(profesores, salas);
+        if (diferencia != null) {
+            System.err.println("Checkpoint does not match the input, not resuming: " + diferencia);
+            return false;
+        }
+        return true;
+    }
+
+    public synchronized void registrarSala(HorarioSala sala) {
+        salas.put(sala.getCodigo(), sala);
+    }
+
+    /**
+     * Registra un profesor que ya había terminado (restaurado desde un snapshot), sin escribir.
+     */
+    public synchronized void registrarProfesor(int orden, String nombre, HorarioProfesor horario) {
+        profesores.put(orden, new Checkpoint.Profesor(orden, nombre, horario.getAsignaturaActual(),
+                horario.getCurrentInstanceIndex(), horario.getAsignaciones()));
+    }
+
+    /**
+     * Registra un profesor que acaba de terminar y, si corresponde, escribe el snapshot.
+     * Debe llamarse antes de pasar el turno, cuando no hay negociaciones en curso.
+     */
+    public synchronized void profesorTerminado(int orden, String nombre, HorarioProfesor horario) {
+        registrarProfesor(orden, nombre, horario);
+
+        if (Config.CHECKPOINT_INTERVALO <= 0 || Config.PROFESORES_CONCURRENTES > 1
+                || ++terminadosDesdeSnapshot < Config.CHECKPOINT_INTERVALO) {
+            return;
+        }
+        terminadosDesdeSnapshot = 0;
+
+        try {
+            Checkpoint.escribir(JSONHelper.outputPath(ARCHIVO), profesores.lastKey() + 1,
+                    salas.values(), profesores.values());
+            System.out.println("[Checkpoint] Snapshot guardado, siguiente profesor: " + (profesores.lastKey() + 1));
+        } catch (IOException e) {
+            System.err.println("Error writing checkpoint: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}
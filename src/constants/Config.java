@@ -0,0 +1,41 @@
+package constants;
+
+/**
+ * Parámetros de ejecución configurables con propiedades de sistema (-Dclave=valor).
+ */
+public class Config {
+    // true: la negociación despierta con cada propuesta o al vencer un plazo; false: TickerBehaviour clásico
+    public static final boolean NEGOCIACION_POR_EVENTOS =
+            Boolean.parseBoolean(System.getProperty("negociacion.eventos", "true"));
+    // Profesores que negocian a la vez; cada uno pasa el turno al que está K posiciones más adelante
+    public static final int PROFESORES_CONCURRENTES = Math.max(1, Integer.getInteger("negociacion.concurrentes", 1));
+    // true: un AgenteHostSalas por campus atiende todas sus salas; false: un AgenteSala por sala
+    public static final boolean SALAS_EN_HOST = Boolean.parseBoolean(System.getProperty("salas.host", "false"));
+    // true: los profesores consultan la disponibilidad al AgenteTablon y envían los ACCEPT directo a las salas
+    public static final boolean TABLON_DISPONIBILIDAD =
+            Boolean.parseBoolean(System.getProperty("negociacion.tablon", "false"));
+    // Periodo del modo ticker (ms)
+    public static final long PERIODO_NEGOCIACION = Long.getLong("negociacion.periodo", 500L);
+    // Fracción de salas consultadas que debe responder para evaluar al vencer el plazo del quórum
+    public static final double FRACCION_QUORUM =
+            Double.parseDouble(System.getProperty("negociacion.quorum", "0.8"));
+    // Plazo (ms) desde el CFP tras el cual basta el quórum parcial
+    public static final long PLAZO_QUORUM = Long.getLong("negociacion.quorum.plazo", 300L);
+    // true: Horarios_salas.json se compacta al final desde un registro de asignaciones; false: reescritura por lotes
+    public static final boolean JOURNAL_SALAS =
+            Boolean.parseBoolean(System.getProperty("salida.journal", "true"));
+    // Cada cuántos profesores terminados se escribe agent_output/checkpoint.bin (0: nunca)
+    public static final int CHECKPOINT_INTERVALO = Integer.getInteger("checkpoint.intervalo", 10);
+    // Vacantes máximas por paralelo; las asignaturas con más se separan en paralelos parejos (0: según las salas)
+    public static final int CAPACIDAD_PARALELO = Integer.getInteger("paralelos.capacidad", 0);
+    // Sin capacidad fija, el máximo es la capacidad de sala en este percentil de cada campus
+    public static final double PERCENTIL_PARALELO =
+            Double.parseDouble(System.getProperty("paralelos.percentil", "0.8"));
+    // Campus de esta partición (ver Aplicacion --particionado): solo sus salas y asignaturas, con la salida en
+    // agent_output/<campus> (vacío: todos los campus)
+    public static final String CAMPUS_PARTICION = System.getProperty("particion.campus", "");
+    // Puerto del contenedor principal de JADE; cada partición corre en su propia plataforma
+    public static final int PUERTO_JADE = Integer.getInteger("jade.puerto", 1099);
+    // Cada cuántos ms se exportan agent_output/metricas_runtime.json y .csv durante la ejecución (0: solo al final)
+    public static final long PERIODO_METRICAS = Long.getLong("metricas.periodo", 10000L);
+}
@@ -4,4 +4,8 @@ public class Messages {
     public static final String START = "START";
     public static final String STOP = "STOP";
     public static final String CONFIRM = "CONFIRM";
+    // Reportes de los profesores al AgenteSupervisor
+    public static final String PROGRESS = "PROGRESS";
+    public static final String DONE = "DONE";
+    public static final String FAILED = "FAILED";
 }
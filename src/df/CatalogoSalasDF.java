@@ -0,0 +1,111 @@
+package df;
+
+import jade.core.AID;
+import jade.core.Agent;
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.Property;
+import jade.domain.FIPAAgentManagement.ServiceDescription;
+import objetos.CatalogoSalas;
+
+import java.util.*;
+
+/**
+ * Catálogo de salas compartido por los profesores de la JVM, armado desde el directorio de DFCache.
+ * Se reconstruye solo cuando DFCache entrega una lista distinta (alta o baja de una sala, o búsqueda
+ * directa mientras la suscripción no está sincronizada).
+ * <p>
+ * Se indexa cada servicio de sala, no cada agente: un AgenteHostSalas publica varias salas y recibe un
+ * solo CFP por todas ellas.
+ */
+public final class CatalogoSalasDF {
+    private static List<DFAgentDescription> indexadas;
+    private static CatalogoSalas<Servicio> catalogo;
+    private static boolean conHosts; // algún agente publica más de una sala
+    private static Map<String, AID> agentePorSala = new HashMap<>();
+
+    // Una sala publicada en el DF y el agente que la atiende
+    private static final class Servicio {
+        final AID agente;
+        final String campus;
+        final int capacidad;
+
+        Servicio(AID agente, String campus, int capacidad) {
+            this.agente = agente;
+            this.campus = campus;
+            this.capacidad = capacidad;
+        }
+    }
+
+    private CatalogoSalasDF() {
+    }
+
+    /**
+     * Agentes que atienden salas del campus con capacidad mayor o igual a {@code vacantes}, sin repetir,
+     * en el orden de sus salas de menor a mayor capacidad.
+     */
+    public static synchronized List<AID> candidatas(Agent agent, String serviceType, String campus, int vacantes) {
+        List<DFAgentDescription> salas = DFCache.search(agent, serviceType);
+        if (salas != indexadas) {
+            indexar(salas, serviceType);
+        }
+
+        List<Servicio> servicios = catalogo.candidatas(campus, vacantes);
+        List<AID> agentes = new ArrayList<>(servicios.size());
+        for (Servicio servicio : servicios) {
+            // Las salas de un host comparten agente: un solo CFP por host
+            if (!conHosts || !agentes.contains(servicio.agente)) {
+                agentes.add(servicio.agente);
+            }
+        }
+        return agentes;
+    }
+
+    /**
+     * Agente que atiende la sala con ese código, o null si no está en el DF.
+     */
+    public static synchronized AID agenteDeSala(Agent agent, String serviceType, String codigo) {
+        List<DFAgentDescription> salas = DFCache.search(agent, serviceType);
+        if (salas != indexadas) {
+            indexar(salas, serviceType);
+        }
+        return agentePorSala.get(codigo);
+    }
+
+    private static void indexar(List<DFAgentDescription> salas, String serviceType) {
+        List<Servicio> servicios = new ArrayList<>();
+        Map<String, AID> agentes = new HashMap<>();
+        conHosts = false;
+        for (DFAgentDescription dfd : salas) {
+            int delAgente = 0;
+            Iterator<?> it = dfd.getAllServices();
+            while (it.hasNext()) {
+                ServiceDescription sd = (ServiceDescription) it.next();
+                if (!serviceType.equals(sd.getType())) {
+                    continue;
+                }
+                Object capacidad = propiedad(sd, "capacidad");
+                servicios.add(new Servicio(dfd.getName(), String.valueOf(propiedad(sd, "campus")),
+                        capacidad == null ? 0 : Integer.parseInt(capacidad.toString())));
+                agentes.put(sd.getName(), dfd.getName());
+                delAgente++;
+            }
+            conHosts |= delAgente > 1;
+        }
+
+        catalogo = new CatalogoSalas<>(servicios, servicio -> servicio.campus, servicio -> servicio.capacidad);
+        agentePorSala = agentes;
+        indexadas = salas;
+    }
+
+    // Propiedad del servicio buscada por nombre (no por posición)
+    private static Object propiedad(ServiceDescription sd, String nombre) {
+        Iterator<?> props = sd.getAllProperties();
+        while (props.hasNext()) {
+            Property prop = (Property) props.next();
+            if (prop.getName().equals(nombre)) {
+                return prop.getValue();
+            }
+        }
+        return null;
+    }
+}
@@ -1,31 +1,41 @@
 package df;
 
+import jade.core.AID;
 import jade.core.Agent;
+import jade.core.behaviours.CyclicBehaviour;
 import jade.domain.DFService;
 import jade.domain.FIPAAgentManagement.DFAgentDescription;
 import jade.domain.FIPAAgentManagement.Property;
 import jade.domain.FIPAAgentManagement.ServiceDescription;
 import jade.domain.FIPAException;
+import jade.lang.acl.ACLMessage;
+import jade.proto.SubscriptionInitiator;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Directorio local de los agentes de un tipo de servicio, mantenido al día con una suscripción al DF
+ * (igual que ProfessorMonitorBehaviour en AgenteSala) en vez de repetir búsquedas con un TTL.
+ * <p>
+ * Hay una sola suscripción al DF por tipo de servicio, compartida por todos los agentes que llaman a
+ * {@link #subscribe}: corre en el agente del primer suscriptor y, cuando ese agente la cancela, pasa al
+ * siguiente. Así el DF envía cada alta o baja una sola vez, no una por profesor. Mientras la suscripción no
+ * haya recibido la notificación inicial, {@link #search} consulta directamente al DF.
+ * <p>
+ * El traspaso se hace por la cola O2A del nuevo dueño, que abre la suscripción desde su propio hilo; si ese
+ * agente cancela antes de tomarla, la pasa al siguiente igual que un dueño.
+ */
 public class DFCache {
-    private static Map<String, List<DFAgentDescription>> agentCache = new ConcurrentHashMap<>();
-    private static Map<String, Long> cacheTimestamps = new ConcurrentHashMap<>();
-    private static final long CACHE_DURATION = 2000; // 2 seconds should be enough for this use case
+    private static final Map<String, Directorio> directorios = new ConcurrentHashMap<>();
 
     public static List<DFAgentDescription> search(Agent agent, String serviceType, Property... properties) {
-        String cacheKey = buildCacheKey(serviceType, properties);
-        long currentTime = System.currentTimeMillis();
-
-        // Check cache validity
-        if (agentCache.containsKey(cacheKey) &&
-                currentTime - cacheTimestamps.get(cacheKey) < CACHE_DURATION) {
-            return agentCache.get(cacheKey);
+        Directorio directorio = directorios.get(serviceType);
+        if (directorio != null) {
+            List<DFAgentDescription> cached = directorio.buscar(properties);
+            if (cached != null) {
+                return cached;
+            }
         }
 
         // Perform actual DF search
@@ -41,29 +51,241 @@ public class DFCache {
             template.addServices(sd);
 
             DFAgentDescription[] results = DFService.search(agent, template);
-            List<DFAgentDescription> resultList = Arrays.asList(results);
-
-            // Update cache
-            agentCache.put(cacheKey, resultList);
-            cacheTimestamps.put(cacheKey, currentTime);
-
-            return resultList;
+            return Arrays.asList(results);
         } catch (FIPAException e) {
             e.printStackTrace();
             return Collections.emptyList();
         }
     }
 
-    private static String buildCacheKey(String serviceType, Property[] properties) {
-        StringBuilder key = new StringBuilder(serviceType);
-        for (Property prop : properties) {
-            key.append("-").append(prop.getName()).append(":").append(prop.getValue());
+    /**
+     * Registra al agente como interesado en el tipo de servicio; si todavía no hay suscripción al DF, se abre
+     * en este agente. Se llama desde el hilo del agente (en setup) y hay que llamar a
+     * {@link Suscripcion#cancelar()}, también desde su hilo, antes de que el agente termine.
+     */
+    public static Suscripcion subscribe(Agent agent, String serviceType) {
+        Directorio directorio = directorios.computeIfAbsent(serviceType, Directorio::new);
+        Suscripcion suscripcion = new Suscripcion(agent, directorio);
+
+        // Recibe la suscripción cuando el dueño actual la cancela
+        agent.setEnabledO2ACommunication(true, 0);
+        agent.setO2AManager(suscripcion.traspaso);
+        agent.addBehaviour(suscripcion.traspaso);
+
+        directorio.agregar(suscripcion);
+        return suscripcion;
+    }
+
+    public static class Suscripcion {
+        private final Agent agent;
+        private final Directorio directorio;
+        private final Traspaso traspaso;
+        private boolean activa = true;
+
+        private Suscripcion(Agent agent, Directorio directorio) {
+            this.agent = agent;
+            this.directorio = directorio;
+            this.traspaso = new Traspaso(agent);
+        }
+
+        public void cancelar() {
+            if (!activa) {
+                return;
+            }
+            activa = false;
+            agent.removeBehaviour(traspaso);
+            directorio.quitar(this);
+        }
+    }
+
+    // Toma en el hilo del agente los directorios que le traspasó el dueño anterior
+    private static class Traspaso extends CyclicBehaviour {
+        private Traspaso(Agent agent) {
+            super(agent);
+        }
+
+        @Override
+        public void action() {
+            Object directorio = myAgent.getO2AObject();
+            if (directorio == null) {
+                block();
+                return;
+            }
+            ((Directorio) directorio).tomar(myAgent);
+        }
+    }
+
+    // La suscripción al DF que mantiene el directorio, en el agente de uno de los suscriptores
+    private static class Notificaciones extends SubscriptionInitiator {
+        private final Directorio directorio;
+        private boolean inicial = true;
+        private boolean enviada = false;
+        private volatile boolean abierta = true;
+
+        private Notificaciones(Agent agent, Directorio directorio) {
+            super(agent, createSubscriptionMessage(agent, directorio.serviceType));
+            this.directorio = directorio;
+        }
+
+        private static ACLMessage createSubscriptionMessage(Agent agent, String serviceType) {
+            DFAgentDescription template = new DFAgentDescription();
+            ServiceDescription sd = new ServiceDescription();
+            sd.setType(serviceType);
+            template.addServices(sd);
+
+            return DFService.createSubscriptionMessage(agent, agent.getDefaultDF(), template, null);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected Vector<ACLMessage> prepareSubscriptions(ACLMessage subscription) {
+            enviada = true;
+            return super.prepareSubscriptions(subscription);
+        }
+
+        @Override
+        protected void handleInform(ACLMessage inform) {
+            if (!abierta) {
+                return;
+            }
+            try {
+                directorio.aplicar(this, DFService.decodeNotification(inform.getContent()), inicial);
+                inicial = false;
+            } catch (FIPAException fe) {
+                fe.printStackTrace();
+            }
+        }
+
+        // Se llama desde el hilo del agente dueño, al cancelar su Suscripcion
+        void cerrar() {
+            abierta = false;
+            if (enviada) {
+                cancel(myAgent.getDefaultDF(), true);
+            } else {
+                // Recién traspasada: el SUBSCRIBE todavía no sale
+                myAgent.removeBehaviour(this);
+            }
         }
-        return key.toString();
     }
 
-    public static void invalidateCache() {
-        agentCache.clear();
-        cacheTimestamps.clear();
+    private static class Directorio {
+        private final String serviceType;
+        private final Map<AID, DFAgentDescription> agentes = new LinkedHashMap<>();
+        private final List<Suscripcion> suscriptores = new ArrayList<>();
+        private Agent propietario; // agente que tiene (o está por tomar) la suscripción; null sin suscriptores
+        private Notificaciones notificaciones; // null mientras el dueño no la abra
+        private volatile List<DFAgentDescription> snapshot = null; // null mientras no esté sincronizado
+
+        Directorio(String serviceType) {
+            this.serviceType = serviceType;
+        }
+
+        // Desde el hilo del agente que se suscribe
+        synchronized void agregar(Suscripcion suscripcion) {
+            suscriptores.add(suscripcion);
+            if (propietario == null) {
+                propietario = suscripcion.agent;
+                abrir();
+            }
+        }
+
+        // Desde el hilo del agente que cancela
+        synchronized void quitar(Suscripcion suscripcion) {
+            suscriptores.remove(suscripcion);
+            if (propietario == suscripcion.agent) {
+                // El dueño termina: la suscripción pasa al siguiente suscriptor, que recibe de nuevo la lista completa
+                if (notificaciones != null) {
+                    notificaciones.cerrar();
+                    notificaciones = null;
+                }
+                propietario = null;
+                if (!suscriptores.isEmpty()) {
+                    traspasar(suscriptores.get(0).agent);
+                }
+            }
+            if (suscriptores.isEmpty()) {
+                // Sin suscripciones vivas nadie más actualiza las entradas
+                agentes.clear();
+                snapshot = null;
+            }
+        }
+
+        // El nuevo dueño abre la suscripción en su propio hilo, al sacar el directorio de su cola O2A
+        private void traspasar(Agent agent) {
+            propietario = agent;
+            try {
+                agent.putO2AObject(this, false);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Desde el hilo de agent; ignora traspasos que ya pasaron a otro agente
+        synchronized void tomar(Agent agent) {
+            if (propietario == agent && notificaciones == null) {
+                abrir();
+            }
+        }
+
+        private void abrir() {
+            notificaciones = new Notificaciones(propietario, this);
+            propietario.addBehaviour(notificaciones);
+        }
+
+        synchronized void aplicar(Notificaciones origen, DFAgentDescription[] cambios, boolean inicial) {
+            if (origen != notificaciones) {
+                return;
+            }
+            if (inicial) {
+                // La primera notificación trae todos los agentes registrados
+                agentes.clear();
+            }
+            for (DFAgentDescription dfd : cambios) {
+                // El DF notifica las bajas con una descripción sin servicios
+                if (dfd.getAllServices().hasNext()) {
+                    agentes.put(dfd.getName(), dfd);
+                } else {
+                    agentes.remove(dfd.getName());
+                }
+            }
+            snapshot = Collections.unmodifiableList(new ArrayList<>(agentes.values()));
+        }
+
+        /**
+         * @return Los agentes con todas las propiedades pedidas, o null si el directorio no está sincronizado.
+         */
+        List<DFAgentDescription> buscar(Property[] properties) {
+            List<DFAgentDescription> actual = snapshot;
+            if (actual == null || properties.length == 0) {
+                return actual;
+            }
+
+            List<DFAgentDescription> result = new ArrayList<>();
+            for (DFAgentDescription dfd : actual) {
+                if (tienePropiedades(dfd, properties)) {
+                    result.add(dfd);
+                }
+            }
+            return result;
+        }
+
+        private static boolean tienePropiedades(DFAgentDescription dfd, Property[] properties) {
+            for (Property buscada : properties) {
+                boolean encontrada = false;
+                Iterator<?> servicios = dfd.getAllServices();
+                while (servicios.hasNext() && !encontrada) {
+                    Iterator<?> props = ((ServiceDescription) servicios.next()).getAllProperties();
+                    while (props.hasNext() && !encontrada) {
+                        Property prop = (Property) props.next();
+                        encontrada = prop.getName().equals(buscada.getName()) &&
+                                String.valueOf(prop.getValue()).equals(String.valueOf(buscada.getValue()));
+                    }
+                }
+                if (!encontrada) {
+                    return false;
+                }
+            }
+            return true;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,112 @@
+package headless;
+
+import checkpoint.Checkpoint;
+import checkpoint.CheckpointStore;
+import json_stuff.JSONInputReader;
+import json_stuff.JSONProcessor;
+import json_stuff.ProfesorHorarioJSON;
+import json_stuff.SalaHorarioJSON;
+import metricas.MetricasHorario;
+import objetos.CatalogoSalas;
+import objetos.DatosProfesor;
+import objetos.DatosSala;
+import objetos.HorarioProfesor;
+import objetos.HorarioSala;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ejecuta la negociación completa dentro de la JVM, sin contenedor JADE, GUI ni mensajes ACL.
+ * Lee los mismos archivos de agent_input y escribe los mismos archivos de agent_output que Aplicacion.
+ */
+public class HeadlessNegotiationEngine {
+    private final Map<String, HorarioSala> salas = new LinkedHashMap<>();
+    private final List<ProfesorNegociador> profesores = new ArrayList<>();
+    private CatalogoSalas<HorarioSala> catalogo;
+
+    public void ejecutar() {
+        ejecutar(null);
+    }
+
+    /**
+     * @param checkpoint Snapshot desde el que se reanuda (salas ocupadas y profesores ya terminados), o null.
+     */
+    public void ejecutar(Checkpoint checkpoint) {
+        long startTime = System.currentTimeMillis();
+
+        List<DatosProfesor> profesoresData;
+        List<DatosSala> salasData;
+        try {
+            salasData = JSONProcessor.salasDeParticion(JSONInputReader.leerSalas("inputOfSala.json"));
+            // Los paralelos se separan a medida que se lee cada profesor
+            profesoresData = JSONProcessor.profesoresDeParticion(JSONInputReader.leerProfesores(
+                    "inputOfProfesores.json", JSONProcessor.prepararParalelos(salasData)));
+        } catch (IOException e) {
+            System.err.println("[Headless] No se pudieron leer los archivos de entrada: " + e.getMessage());
+            return;
+        }
+        if (checkpoint != null && !CheckpointStore.corresponde(checkpoint, profesoresData, salasData)) {
+            return;
+        }
+
+        cargarSalas(salasData, checkpoint);
+        cargarProfesores(profesoresData);
+        MetricasHorario.getInstance().registrarAsignaturas(profesoresData);
+        System.out.println("[Headless] " + salas.size() + " salas y " + profesores.size() + " profesores cargados");
+
+        // Mismo orden que la cadena de turnos de AgenteProfesor (orden 0, 1, 2, ...)
+        for (int orden = 0; orden < profesores.size(); orden++) {
+            ProfesorNegociador profesor = profesores.get(orden);
+            HorarioProfesor horario = profesor.getHorario();
+            Checkpoint.Profesor terminado = checkpoint != null ? checkpoint.getProfesor(orden) : null;
+
+            if (terminado != null) {
+                horario.restaurar(terminado.getAsignaturaActual(), terminado.getCurrentInstanceIndex(),
+                        terminado.getAsignaciones());
+                CheckpointStore.getInstance().registrarProfesor(orden, profesor.getNombre(), horario);
+            } else {
+                profesor.negociar();
+                CheckpointStore.getInstance().profesorTerminado(orden, profesor.getNombre(), horario);
+            }
+            ProfesorHorarioJSON.getInstance().agregarHorarioProfesor(
+                    profesor.getNombre(), horario.getAsignaciones(), horario.getAsignaturas());
+        }
+
+        ProfesorHorarioJSON.getInstance().generarArchivoJSON();
+        SalaHorarioJSON.getInstance().generarArchivoJSON();
+        MetricasHorario.getInstance().generarArchivos();
+        CheckpointStore.borrar();
+
+        System.out.printf("[Headless] Negociación completa en %d ms%n", System.currentTimeMillis() - startTime);
+    }
+
+    private void cargarSalas(List<DatosSala> salasData, Checkpoint checkpoint) {
+        for (DatosSala datos : salasData) {
+            String codigo = datos.getCodigo();
+            HorarioSala sala = new HorarioSala(codigo, datos.getCampus(), datos.getCapacidad(), datos.getTurno());
+
+            // Mismo orden que AgenteSala.setup
+            MetricasHorario.getInstance().registrarSala(codigo, sala.getCapacidad());
+            SalaHorarioJSON.getInstance().registrarSala(codigo, sala.getCampus());
+            if (checkpoint != null && checkpoint.getSala(codigo) != null) {
+                sala.restaurar(checkpoint.getSala(codigo));
+                SalaHorarioJSON.getInstance().restaurarSala(codigo, sala.getCampus(), sala.getOcupacion());
+                MetricasHorario.getInstance().restaurarSala(codigo, sala.getOcupacion());
+            }
+            CheckpointStore.getInstance().registrarSala(sala);
+            salas.put(codigo, sala);
+        }
+        catalogo = new CatalogoSalas<>(salas.values(), HorarioSala::getCampus, HorarioSala::getCapacidad);
+    }
+
+    private void cargarProfesores(List<DatosProfesor> profesoresData) {
+        for (DatosProfesor datos : profesoresData) {
+            profesores.add(new ProfesorNegociador(datos.getNombre(), new HorarioProfesor(datos.getAsignaturas()),
+                    salas, catalogo));
+        }
+    }
+}
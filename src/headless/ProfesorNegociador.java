@@ -0,0 +1,279 @@
+package headless;
+
+import constants.enums.Day;
+import json_stuff.SalaHorarioJSON;
+import metricas.MetricasHorario;
+import objetos.Asignatura;
+import objetos.AssignationData;
+import objetos.CatalogoSalas;
+import objetos.ClassroomAvailability;
+import objetos.HorarioProfesor;
+import objetos.HorarioSala;
+import objetos.helper.BatchAssignmentConfirmation;
+import objetos.helper.BatchAssignmentRequest;
+import objetos.helper.BatchProposal;
+import objetos.helper.CFPRequest;
+import service.ProposalEvaluator;
+
+import java.util.*;
+
+/**
+ * Versión headless de NegotiationStateBehaviour: recorre los mismos estados
+ * (SETUP -> COLLECTING_PROPOSALS -> EVALUATING_PROPOSALS) pero el CFP, el PROPOSE/REFUSE
+ * y el ACCEPT/INFORM son llamadas directas a las salas en vez de mensajes ACL.
+ */
+class ProfesorNegociador {
+    private static final int MAX_RETRIES = 3;
+
+    private final String nombre;
+    private final HorarioProfesor horario;
+    private final ProposalEvaluator proposalEvaluator;
+    private final Map<String, HorarioSala> salas; // codigo -> sala, en el orden del archivo de entrada
+    private final CatalogoSalas<HorarioSala> catalogo;
+    private final AssignationData assignationData = new AssignationData();
+    private final List<BatchProposal> propuestas = new ArrayList<>();
+
+    private NegotiationState currentState = NegotiationState.SETUP;
+    private int bloquesPendientes = 0;
+    private int retryCount = 0;
+
+    private enum NegotiationState {
+        SETUP,
+        COLLECTING_PROPOSALS,
+        EVALUATING_PROPOSALS,
+        FINISHED
+    }
+
+    ProfesorNegociador(String nombre, HorarioProfesor horario, Map<String, HorarioSala> salas,
+                       CatalogoSalas<HorarioSala> catalogo) {
+        this.nombre = nombre;
+        this.horario = horario;
+        this.salas = salas;
+        this.catalogo = catalogo;
+        this.proposalEvaluator = new ProposalEvaluator(horario);
+    }
+
+    String getNombre() {
+        return nombre;
+    }
+
+    HorarioProfesor getHorario() {
+        return horario;
+    }
+
+    void negociar() {
+        while (currentState != NegotiationState.FINISHED) {
+            switch (currentState) {
+                case SETUP:
+                    handleSetupState();
+                    break;
+                case COLLECTING_PROPOSALS:
+                    handleCollectingState();
+                    break;
+                case EVALUATING_PROPOSALS:
+                    handleEvaluatingState();
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private void handleSetupState() {
+        if (!horario.canUseMoreSubjects()) {
+            currentState = NegotiationState.FINISHED;
+            return;
+        }
+
+        Asignatura currentSubject = horario.getCurrentSubject();
+        bloquesPendientes = currentSubject.getHoras();
+        assignationData.clear();
+
+        sendProposalRequests();
+        currentState = NegotiationState.COLLECTING_PROPOSALS;
+    }
+
+    private void handleCollectingState() {
+        // Las respuestas llegan de forma síncrona, no hay nada que esperar
+        if (!propuestas.isEmpty()) {
+            currentState = NegotiationState.EVALUATING_PROPOSALS;
+        } else {
+            handleNoProposals();
+        }
+    }
+
+    private void handleEvaluatingState() {
+        List<BatchProposal> currentBatchProposals = new ArrayList<>(propuestas);
+        propuestas.clear();
+
+        List<BatchProposal> validProposals = proposalEvaluator.filterAndSortProposals(
+                currentBatchProposals, horario.getCurrentSubject(), bloquesPendientes);
+
+        if (!validProposals.isEmpty() && tryAssignBatchProposals(validProposals)) {
+            retryCount = 0;
+            if (bloquesPendientes == 0) {
+                horario.moveToNextSubject();
+                currentState = NegotiationState.SETUP;
+            } else {
+                sendProposalRequests();
+                currentState = NegotiationState.COLLECTING_PROPOSALS;
+            }
+        } else {
+            handleProposalFailure();
+        }
+    }
+
+    private void handleNoProposals() {
+        retryCount++;
+        if (retryCount >= MAX_RETRIES) {
+            if (bloquesPendientes == horario.getCurrentSubject().getHoras()) {
+                // If no blocks assigned yet for this subject, move to next subject
+                horario.moveToNextSubject();
+            } else {
+                // If some blocks assigned, try different room
+                assignationData.setSalaAsignada(null);
+            }
+            retryCount = 0;
+            currentState = NegotiationState.SETUP;
+        } else {
+            sendProposalRequests();
+        }
+    }
+
+    private void handleProposalFailure() {
+        retryCount++;
+        if (retryCount >= MAX_RETRIES) {
+            if (assignationData.hasSalaAsignada()) {
+                // Try different room if current one isn't working
+                assignationData.setSalaAsignada(null);
+            } else {
+                // If we've tried different rooms without success, move on
+                horario.moveToNextSubject();
+            }
+            retryCount = 0;
+            currentState = NegotiationState.SETUP;
+        } else {
+            currentState = NegotiationState.COLLECTING_PROPOSALS;
+            sendProposalRequests();
+        }
+    }
+
+    /**
+     * Equivalente al CFP: pregunta a cada sala compatible y encola sus propuestas (los REFUSE se descartan).
+     */
+    private void sendProposalRequests() {
+        Asignatura currentSubject = horario.getCurrentSubject();
+        if (currentSubject == null) {
+            return;
+        }
+
+        String nombreAsignatura = CFPRequest.sanitizeSubjectName(currentSubject.getNombre());
+        for (HorarioSala sala : catalogo.candidatas(currentSubject.getCampus(), currentSubject.getVacantes())) {
+            ClassroomAvailability availability = sala.evaluarSolicitud(
+                    nombreAsignatura,
+                    currentSubject.getVacantes(),
+                    currentSubject.getNivel(),
+                    currentSubject.getCampus(),
+                    bloquesPendientes
+            );
+
+            if (availability != null) {
+                propuestas.add(new BatchProposal(availability, null));
+            }
+        }
+    }
+
+    private boolean tryAssignBatchProposals(List<BatchProposal> batchProposals) {
+        Asignatura currentSubject = horario.getCurrentSubject();
+        int requiredHours = currentSubject.getHoras();
+        if (bloquesPendientes <= 0 || bloquesPendientes > requiredHours) {
+            System.out.printf("Invalid pending hours state: %d/%d for %s%n",
+                    bloquesPendientes, requiredHours, currentSubject.getNombre());
+            return false;
+        }
+
+        Map<Day, Integer> dailyAssignments = new HashMap<>();
+        Map<Day, Set<Integer>> reservedBlocks = new HashMap<>();
+        Map<HorarioSala, List<BatchAssignmentRequest.AssignmentRequest>> accepts = new LinkedHashMap<>();
+        int totalAssigned = 0;
+
+        // Process each batch proposal (which represents one room's available blocks)
+        for (BatchProposal batchProposal : batchProposals) {
+            List<BatchAssignmentRequest.AssignmentRequest> requests = new ArrayList<>();
+
+            for (Map.Entry<Day, List<BatchProposal.BlockProposal>> entry :
+                    batchProposal.getDayProposals().entrySet()) {
+                Day day = entry.getKey();
+
+                // Skip if day already has 2 blocks
+                if (dailyAssignments.getOrDefault(day, 0) >= 2) continue;
+
+                for (BatchProposal.BlockProposal block : entry.getValue()) {
+                    // Stop if we've assigned all needed blocks
+                    if (totalAssigned >= bloquesPendientes) break;
+
+                    // Skip if block not available or already requested in this batch
+                    if (!horario.isBlockAvailable(day, block.getBlock())) continue;
+                    if (!reservedBlocks.computeIfAbsent(day, k -> new HashSet<>()).add(block.getBlock())) continue;
+
+                    requests.add(new BatchAssignmentRequest.AssignmentRequest(
+                            day,
+                            block.getBlock(),
+                            currentSubject.getNombre(),
+                            batchProposal.getSatisfactionScore(),
+                            batchProposal.getRoomCode(),
+                            currentSubject.getVacantes()
+                    ));
+
+                    totalAssigned++;
+                    dailyAssignments.merge(day, 1, Integer::sum);
+                }
+            }
+
+            HorarioSala sala = salas.get(batchProposal.getRoomCode());
+            if (!requests.isEmpty() && sala != null) {
+                accepts.put(sala, requests);
+            }
+        }
+
+        // Igual que los ACCEPT en paralelo: todo el lote se decide antes de recibir confirmaciones
+        accepts.forEach((sala, requests) -> sendBatchAssignment(requests, sala));
+
+        return totalAssigned > 0;
+    }
+
+    /**
+     * Equivalente al ACCEPT_PROPOSAL + INFORM/FAILURE: la sala confirma los bloques que sigan libres.
+     */
+    private void sendBatchAssignment(List<BatchAssignmentRequest.AssignmentRequest> requests, HorarioSala sala) {
+        List<BatchAssignmentConfirmation.ConfirmedAssignment> confirmed =
+                sala.confirmarAsignaciones(new BatchAssignmentRequest(requests));
+
+        // Como AgenteSala.confirmarAsignacion
+        if (!confirmed.isEmpty()) {
+            SalaHorarioJSON.getInstance().agregarAsignaciones(sala.getCodigo(), sala.getCampus(), sala.getOcupacion(), confirmed);
+            MetricasHorario.getInstance().registrarAsignaciones(sala.getCodigo(), sala.getOcupacion(), confirmed);
+        }
+
+        for (BatchAssignmentConfirmation.ConfirmedAssignment assignment : confirmed) {
+            if (bloquesPendientes <= 0) {
+                System.out.println("WARNING: Assignment would exceed required hours");
+                break;
+            }
+
+            horario.registrarAsignacion(
+                    assignment.getDay(),
+                    assignment.getClassroomCode(),
+                    assignment.getBlock(),
+                    assignment.getSatisfaction()
+            );
+
+            bloquesPendientes--;
+            assignationData.assign(
+                    assignment.getDay(),
+                    assignment.getClassroomCode(),
+                    assignment.getBlock()
+            );
+        }
+    }
+}
@@ -1,81 +1,49 @@
 package json_stuff;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
+import constants.Config;
 
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
- * Clase para trabajar con archivos JSON.
+ * Rutas de los archivos de entrada (agent_input) y de salida (agent_output).
  */
 public class JSONHelper {
     private static final String RESOURCES_PATH = System.getProperty("user.dir") + "/agent_input/";
-    private static final String OUTPUT_PATH = System.getProperty("user.dir") + "/agent_output/";
+    private static final String OUTPUT_BASE = System.getProperty("user.dir") + "/agent_output/";
+    // Cada partición por campus escribe en su propia subcarpeta
+    private static final String OUTPUT_PATH = Config.CAMPUS_PARTICION.isEmpty()
+            ? OUTPUT_BASE : OUTPUT_BASE + carpetaParticion(Config.CAMPUS_PARTICION) + "/";
 
-    private static String formatJsonString(String crudeJson) {
-        ObjectMapper mapper = new ObjectMapper();
-        String prettyJson = "";
-
-        try {
-            Object json = mapper.readValue(crudeJson, Object.class);
-            prettyJson = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(json);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-
-        return prettyJson;
-    }
-
-    public static JSONArray parseAsArray(String filePath) {
-        JSONParser parser = new JSONParser();
-        try {
-            Object obj = parser.parse(new FileReader(RESOURCES_PATH + filePath));
-            return (JSONArray) obj;
-        } catch (IOException | ParseException e) {
-            e.printStackTrace();
-            return null;
-        }
+    /**
+     * Ruta de un archivo en la carpeta de entrada (agent_input).
+     */
+    static Path inputPath(String fileName) {
+        return Paths.get(RESOURCES_PATH, fileName);
     }
 
     /**
-     * Parsea un archivo JSON y lo convierte en un objeto JSONObject.
-     * @param El archivo json (el archivo tiene que estar en la carpeta resources)
-     * @return El objeto JSONObject
+     * Ruta de un archivo en la carpeta de salida, creando la carpeta si no existe.
      */
-    public static JSONObject parseJsonFile(String filePath) {
-        JSONParser parser = new JSONParser();
-        try {
-            Object obj = parser.parse(new FileReader(RESOURCES_PATH + filePath));
-            return (JSONObject) obj;
-        } catch (IOException | ParseException e) {
-            e.printStackTrace();
-            return null;
-        }
+    public static Path outputPath(String fileName) {
+        ensureOutputDir();
+        return Paths.get(OUTPUT_PATH, fileName);
     }
 
-    private static void internalJsonWrite(String fileName, String jsonString) {
-        if (!new java.io.File(OUTPUT_PATH).exists()) {
-            new java.io.File(OUTPUT_PATH).mkdir();
-        }
-
-        try (FileWriter file = new FileWriter(OUTPUT_PATH + fileName)) {
-            file.write(formatJsonString(jsonString));
-            System.out.println("Archivo " + fileName + " generado exitosamente.");
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    /**
+     * Ruta de un archivo en la subcarpeta de agent_output de la partición de un campus.
+     */
+    public static Path particionPath(String campus, String fileName) {
+        return Paths.get(OUTPUT_BASE, carpetaParticion(campus), fileName);
     }
 
-    public static void writeJsonFile(String fileName, JSONArray jsonArray) {
-        internalJsonWrite(fileName, jsonArray.toJSONString());
+    private static String carpetaParticion(String campus) {
+        return campus.replace(' ', '_');
     }
 
-    public static void writeJsonFile(String fileName, String jsonString) {
-        internalJsonWrite(fileName, jsonString);
+    private static void ensureOutputDir() {
+        if (!new java.io.File(OUTPUT_PATH).exists()) {
+            new java.io.File(OUTPUT_PATH).mkdirs();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,148 @@
+package json_stuff;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import objetos.Asignatura;
+import objetos.DatosProfesor;
+import objetos.DatosSala;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Lee inputOfProfesores.json e inputOfSala.json con el JsonParser de Jackson y los convierte directamente
+ * a DatosProfesor / DatosSala, sin armar un JSONArray intermedio. Los agentes reciben estos objetos como
+ * argumentos, así la entrada se lee una sola vez por ejecución. Una transformación opcional (como la
+ * separación en paralelos de JSONProcessor) se aplica a cada profesor apenas se lee.
+ * <p>
+ * Los campos que no se usan se saltan; los archivos se leen en UTF-8.
+ */
+public final class JSONInputReader {
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private JSONInputReader() {
+    }
+
+    public static List<DatosProfesor> leerProfesores(String fileName) throws IOException {
+        return leerProfesores(fileName, UnaryOperator.identity());
+    }
+
+    public static List<DatosProfesor> leerProfesores(String fileName, UnaryOperator<DatosProfesor> transformacion)
+            throws IOException {
+        try (InputStream in = abrir(fileName)) {
+            return leerProfesores(in, transformacion);
+        }
+    }
+
+    public static List<DatosSala> leerSalas(String fileName) throws IOException {
+        try (InputStream in = abrir(fileName)) {
+            return leerSalas(in);
+        }
+    }
+
+    public static List<DatosProfesor> leerProfesores(InputStream in, UnaryOperator<DatosProfesor> transformacion)
+            throws IOException {
+        List<DatosProfesor> profesores = new ArrayList<>();
+
+        try (JsonParser parser = FACTORY.createParser(in)) {
+            iniciarArreglo(parser);
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                String nombre = null;
+                String rut = null;
+                int turno = 0;
+                List<Asignatura> asignaturas = new ArrayList<>();
+
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String campo = parser.currentName();
+                    JsonToken valor = parser.nextToken();
+                    switch (campo) {
+                        case "Nombre": nombre = parser.getText(); break;
+                        case "RUT": rut = parser.getText(); break;
+                        case "Turno": turno = parser.getIntValue(); break;
+                        case "Asignaturas":
+                            if (valor == JsonToken.START_ARRAY) {
+                                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                                    asignaturas.add(leerAsignatura(parser));
+                                }
+                            }
+                            break;
+                        default: parser.skipChildren();
+                    }
+                }
+                profesores.add(transformacion.apply(new DatosProfesor(nombre, rut, turno, asignaturas)));
+            }
+        }
+        return profesores;
+    }
+
+    public static List<DatosSala> leerSalas(InputStream in) throws IOException {
+        List<DatosSala> salas = new ArrayList<>();
+
+        try (JsonParser parser = FACTORY.createParser(in)) {
+            iniciarArreglo(parser);
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                String codigo = null;
+                String campus = null;
+                int capacidad = 0;
+                int turno = 0;
+
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String campo = parser.currentName();
+                    parser.nextToken();
+                    switch (campo) {
+                        case "Codigo": codigo = parser.getText(); break;
+                        case "Campus": campus = parser.getText(); break;
+                        case "Capacidad": capacidad = parser.getIntValue(); break;
+                        case "Turno": turno = parser.getIntValue(); break;
+                        default: parser.skipChildren();
+                    }
+                }
+                salas.add(new DatosSala(codigo, campus, capacidad, turno));
+            }
+        }
+        return salas;
+    }
+
+    // El parser queda en el START_OBJECT de la asignatura y termina en su END_OBJECT
+    private static Asignatura leerAsignatura(JsonParser parser) throws IOException {
+        String nombre = null;
+        int nivel = 0;
+        String paralelo = null;
+        int horas = 0;
+        int vacantes = 0;
+        String campus = null;
+        String codigo = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String campo = parser.currentName();
+            parser.nextToken();
+            switch (campo) {
+                case "Nombre": nombre = parser.getText(); break;
+                case "Nivel": nivel = parser.getIntValue(); break;
+                case "Paralelo": paralelo = parser.getText(); break;
+                case "Horas": horas = parser.getIntValue(); break;
+                case "Vacantes": vacantes = parser.getIntValue(); break;
+                case "Campus": campus = parser.getText(); break;
+                case "CodigoAsignatura": codigo = parser.getText(); break;
+                default: parser.skipChildren();
+            }
+        }
+        return new Asignatura(nombre, nivel, paralelo, horas, vacantes, campus, codigo);
+    }
+
+    private static InputStream abrir(String fileName) throws IOException {
+        return Files.newInputStream(JSONHelper.inputPath(fileName));
+    }
+
+    private static void iniciarArreglo(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new JsonParseException(parser, "Se esperaba un arreglo JSON");
+        }
+    }
+}
@@ -1,64 +1,133 @@
 package json_stuff;
 
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
+import constants.Config;
+import objetos.Asignatura;
+import objetos.DatosProfesor;
+import objetos.DatosSala;
+
+import java.util.*;
+import java.util.function.UnaryOperator;
 
 public class JSONProcessor {
-    public static JSONArray prepararParalelos(JSONArray profesoresJson) {
-        System.out.println("\nIniciando procesamiento de paralelos...");
-        
-        for (int i = 0; i < profesoresJson.size(); i++) {
-            JSONObject profesor = (JSONObject) profesoresJson.get(i);
-            JSONArray asignaturas = (JSONArray) profesor.get("Asignaturas");
+    /**
+     * Separa en paralelos las asignaturas con más vacantes que la capacidad máxima por paralelo de su campus,
+     * en la menor cantidad de paralelos que quepan y con vacantes repartidas de forma pareja (difieren a lo
+     * más en 1). Se aplica a cada profesor a medida que se lee (ver JSONInputReader.leerProfesores).
+     * <p>
+     * La capacidad máxima es {@code paralelos.capacidad} si se fijó, o la capacidad de sala en el percentil
+     * {@code paralelos.percentil} del campus, para que cada paralelo tenga varias salas donde caber.
+     */
+    public static UnaryOperator<DatosProfesor> prepararParalelos(List<DatosSala> salas) {
+        Map<String, Integer> capacidadPorCampus = capacidadMaximaPorCampus(salas);
+        System.out.println("\nCapacidad máxima por paralelo: " + capacidadPorCampus);
 
-            if(asignaturas == null) {
-                System.out.println("Profesor sin asignaturas: " + profesor.get("Nombre"));
-                continue;
+        return profesor -> {
+            List<Asignatura> asignaturas = profesor.getAsignaturas();
+            if (asignaturas.isEmpty()) {
+                System.out.println("Profesor sin asignaturas: " + profesor.getNombre());
+                return profesor;
             }
 
-            JSONArray processedAsignaturas = new JSONArray();
-
-            for (Object asigObj : asignaturas) {
-                JSONObject asignatura = (JSONObject) asigObj;
-                Long vacantes = (Long) asignatura.get("Vacantes");
-
-                if (vacantes != null && vacantes >= 70) {
-                    System.out.println("Procesando asignatura con 70+ vacantes: " +
-                                     asignatura.get("CodigoAsignatura") +
-                                     " - Vacantes originales: " + vacantes);
+            List<Asignatura> processedAsignaturas = null;
+            for (int i = 0; i < asignaturas.size(); i++) {
+                Asignatura asignatura = asignaturas.get(i);
+                Integer maximo = capacidadPorCampus.get(asignatura.getCampus());
+                if (maximo == null || asignatura.getVacantes() <= maximo) {
+                    if (processedAsignaturas != null) {
+                        processedAsignaturas.add(asignatura);
+                    }
+                    continue;
+                }
 
-                    int mitadVacantes = vacantes.intValue() / 2;
+                // Copia solo si hay algo que separar
+                if (processedAsignaturas == null) {
+                    processedAsignaturas = new ArrayList<>(asignaturas.subList(0, i));
+                }
+                separar(asignatura, maximo, processedAsignaturas);
+            }
 
-                    // Create two parallel sections
-                    JSONObject paraleloA = createParalelo(asignatura, "A", mitadVacantes);
-                    JSONObject paraleloB = createParalelo(asignatura, "B", mitadVacantes);
+            return processedAsignaturas != null ? profesor.conAsignaturas(processedAsignaturas) : profesor;
+        };
+    }
 
-                    processedAsignaturas.add(paraleloA);
-                    processedAsignaturas.add(paraleloB);
+    /**
+     * Con {@code particion.campus} fijado deja solo las salas de ese campus; si no, devuelve la lista tal cual.
+     */
+    public static List<DatosSala> salasDeParticion(List<DatosSala> salas) {
+        if (Config.CAMPUS_PARTICION.isEmpty()) {
+            return salas;
+        }
+        List<DatosSala> delCampus = new ArrayList<>();
+        for (DatosSala sala : salas) {
+            if (Config.CAMPUS_PARTICION.equals(sala.getCampus())) {
+                delCampus.add(sala);
+            }
+        }
+        System.out.println("Partición " + Config.CAMPUS_PARTICION + ": " + delCampus.size() + " salas");
+        return delCampus;
+    }
 
-                    System.out.println("Creados paralelos A y B con 35 vacantes cada uno");
-                } else {
-                    processedAsignaturas.add(asignatura);
+    /**
+     * Con {@code particion.campus} fijado deja a cada profesor solo sus asignaturas de ese campus, y descarta a
+     * los que no tienen ninguna ahí.
+     */
+    public static List<DatosProfesor> profesoresDeParticion(List<DatosProfesor> profesores) {
+        if (Config.CAMPUS_PARTICION.isEmpty()) {
+            return profesores;
+        }
+        List<DatosProfesor> delCampus = new ArrayList<>();
+        for (DatosProfesor profesor : profesores) {
+            List<Asignatura> asignaturas = new ArrayList<>();
+            for (Asignatura asignatura : profesor.getAsignaturas()) {
+                if (Config.CAMPUS_PARTICION.equals(asignatura.getCampus())) {
+                    asignaturas.add(asignatura);
                 }
             }
+            if (asignaturas.isEmpty()) {
+                continue;
+            }
+            delCampus.add(asignaturas.size() == profesor.getAsignaturas().size()
+                    ? profesor : profesor.conAsignaturas(asignaturas));
+        }
+        System.out.println("Partición " + Config.CAMPUS_PARTICION + ": " + delCampus.size() + " profesores");
+        return delCampus;
+    }
 
-            // Actualizar directamente el objeto profesor original
-            profesor.put("Asignaturas", processedAsignaturas);
+    private static void separar(Asignatura asignatura, int maximo, List<Asignatura> destino) {
+        int vacantes = asignatura.getVacantes();
+        int paralelos = (vacantes + maximo - 1) / maximo;
+        int base = vacantes / paralelos;
+        int conUnoMas = vacantes % paralelos;
+
+        for (int p = 0; p < paralelos; p++) {
+            destino.add(createParalelo(asignatura, String.valueOf((char) ('A' + p)), base + (p < conUnoMas ? 1 : 0)));
         }
-        
-        System.out.println("Procesamiento de paralelos completado\n");
-        return profesoresJson;
+        System.out.println("Asignatura " + asignatura.getCodigoAsignatura() + " con " + vacantes +
+                " vacantes separada en " + paralelos + " paralelos de " + base + (conUnoMas > 0 ? "-" + (base + 1) : ""));
     }
-    
-    private static JSONObject createParalelo(JSONObject original, String paralelo, long vacantes) {
-        JSONObject newParalelo = new JSONObject();
-        newParalelo.put("CodigoAsignatura", original.get("CodigoAsignatura"));
-        newParalelo.put("Nombre", original.get("Nombre"));
-        newParalelo.put("Nivel", original.get("Nivel"));
-        newParalelo.put("Paralelo", paralelo);
-        newParalelo.put("Horas", original.get("Horas"));
-        newParalelo.put("Vacantes", vacantes);
-        newParalelo.put("Campus", original.get("Campus"));
-        return newParalelo;
+
+    private static Map<String, Integer> capacidadMaximaPorCampus(List<DatosSala> salas) {
+        Map<String, List<Integer>> capacidades = new HashMap<>();
+        for (DatosSala sala : salas) {
+            capacidades.computeIfAbsent(sala.getCampus(), c -> new ArrayList<>()).add(sala.getCapacidad());
+        }
+
+        Map<String, Integer> maximos = new TreeMap<>();
+        for (Map.Entry<String, List<Integer>> entry : capacidades.entrySet()) {
+            if (Config.CAPACIDAD_PARALELO > 0) {
+                maximos.put(entry.getKey(), Config.CAPACIDAD_PARALELO);
+                continue;
+            }
+            List<Integer> delCampus = entry.getValue();
+            Collections.sort(delCampus);
+            int indice = (int) Math.floor(Config.PERCENTIL_PARALELO * (delCampus.size() - 1));
+            maximos.put(entry.getKey(), Math.max(1, delCampus.get(Math.max(0, Math.min(indice, delCampus.size() - 1)))));
+        }
+        return maximos;
+    }
+
+    private static Asignatura createParalelo(Asignatura original, String paralelo, int vacantes) {
+        return new Asignatura(original.getNombre(), original.getNivel(), paralelo, original.getHoras(),
+                vacantes, original.getCampus(), original.getCodigoAsignatura());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,150 @@
+package json_stuff;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import constants.enums.Day;
+import objetos.AsignacionProfesor;
+import objetos.AsignacionSala;
+import objetos.OcupacionSala;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Escribe Horarios_asignados.json y Horarios_salas.json con el JsonGenerator de Jackson, directamente
+ * desde las asignaciones de cada profesor y sala, sin armar el arreglo completo en memoria; el archivo
+ * sale con el pretty printer por defecto de Jackson y en UTF-8.
+ * <p>
+ * Se escribe a un archivo temporal que luego reemplaza al final, para que nunca quede un archivo a medias.
+ */
+final class JSONStreamWriter {
+    private static final JsonFactory FACTORY = new JsonFactory();
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Horario final de un profesor.
+     */
+    static class Profesor {
+        final String nombre;
+        final List<AsignacionProfesor> asignaciones;
+        final int solicitudes;
+        final int completadas;
+
+        Profesor(String nombre, List<AsignacionProfesor> asignaciones, int solicitudes, int completadas) {
+            this.nombre = nombre;
+            this.asignaciones = asignaciones;
+            this.solicitudes = solicitudes;
+            this.completadas = completadas;
+        }
+    }
+
+    /**
+     * Horario de una sala, con una asignación (o null) por bloque de la semana.
+     */
+    static class Sala {
+        final String codigo;
+        final String campus;
+        final AsignacionSala[] bloques = new AsignacionSala[OcupacionSala.TOTAL_BLOQUES];
+
+        Sala(String codigo, String campus) {
+            this.codigo = codigo;
+            this.campus = campus;
+        }
+
+        int contarAsignaciones() {
+            int total = 0;
+            for (AsignacionSala asignacion : bloques) {
+                if (asignacion != null) {
+                    total++;
+                }
+            }
+            return total;
+        }
+    }
+
+    private JSONStreamWriter() {
+    }
+
+    static void escribirProfesores(String fileName, Collection<Profesor> profesores) throws IOException {
+        Path destino = JSONHelper.outputPath(fileName);
+        Path temporal = destino.resolveSibling(fileName + ".tmp");
+
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporal), BUFFER_SIZE);
+             JsonGenerator gen = FACTORY.createGenerator(out, JsonEncoding.UTF8).useDefaultPrettyPrinter()) {
+            gen.writeStartArray();
+            for (Profesor profesor : profesores) {
+                gen.writeStartObject();
+                gen.writeStringField("Nombre", profesor.nombre);
+                gen.writeNumberField("AsignaturasCompletadas", profesor.completadas);
+                gen.writeNumberField("Solicitudes", profesor.solicitudes);
+
+                gen.writeArrayFieldStart("Asignaturas");
+                for (AsignacionProfesor asignacion : profesor.asignaciones) {
+                    gen.writeStartObject();
+                    gen.writeStringField("Nombre", asignacion.getNombre());
+                    gen.writeStringField("Sala", asignacion.getSala());
+                    gen.writeNumberField("Instance", asignacion.getInstance());
+                    gen.writeNumberField("Bloque", asignacion.getBloque());
+                    gen.writeStringField("CodigoAsignatura", asignacion.getCodigoAsignatura());
+                    gen.writeStringField("Dia", asignacion.getDia().getDisplayName());
+                    gen.writeNumberField("Satisfaccion", asignacion.getSatisfaccion());
+                    gen.writeEndObject();
+                }
+                gen.writeEndArray();
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        }
+
+        reemplazar(temporal, destino);
+        System.out.println("Archivo " + fileName + " generado exitosamente.");
+    }
+
+    static void escribirSalas(String fileName, Collection<Sala> salas) throws IOException {
+        Path destino = JSONHelper.outputPath(fileName);
+        Path temporal = destino.resolveSibling(fileName + ".tmp");
+        Day[] dias = Day.values();
+
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporal), BUFFER_SIZE);
+             JsonGenerator gen = FACTORY.createGenerator(out, JsonEncoding.UTF8).useDefaultPrettyPrinter()) {
+            gen.writeStartArray();
+            for (Sala sala : salas) {
+                gen.writeStartObject();
+                gen.writeStringField("Campus", sala.campus);
+                gen.writeStringField("Codigo", sala.codigo);
+
+                gen.writeArrayFieldStart("Asignaturas");
+                for (int i = 0; i < sala.bloques.length; i++) {
+                    AsignacionSala asignacion = sala.bloques[i];
+                    if (asignacion == null) {
+                        continue;
+                    }
+                    gen.writeStartObject();
+                    gen.writeStringField("Nombre", asignacion.getNombreAsignatura());
+                    gen.writeNumberField("Bloque", i % OcupacionSala.BLOQUES_POR_DIA + 1);
+                    gen.writeNumberField("Capacidad", asignacion.getCapacidad());
+                    gen.writeStringField("Dia", dias[i / OcupacionSala.BLOQUES_POR_DIA].getDisplayName());
+                    gen.writeNumberField("Satisfaccion", asignacion.getSatisfaccion());
+                    gen.writeEndObject();
+                }
+                gen.writeEndArray();
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        }
+
+        reemplazar(temporal, destino);
+        System.out.println("Archivo " + fileName + " generado exitosamente.");
+    }
+
+    private static void reemplazar(Path temporal, Path destino) throws IOException {
+        Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
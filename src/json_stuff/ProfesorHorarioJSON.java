@@ -1,8 +1,7 @@
 package json_stuff;
 
+import objetos.AsignacionProfesor;
 import objetos.Asignatura;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
 
 import java.util.HashMap;
 import java.util.List;
@@ -19,7 +18,7 @@ public class ProfesorHorarioJSON {
     private static final int WRITE_THRESHOLD = 10;
 
     // In-memory storage
-    private final Map<String, JSONObject> profesoresHorarios;
+    private final Map<String, JSONStreamWriter.Profesor> profesoresHorarios;
     private final AtomicInteger updateCount;
 
     // Lock for file writing operations
@@ -45,24 +44,15 @@ public class ProfesorHorarioJSON {
         return instance;
     }
 
-    public void agregarHorarioProfesor(String nombre, JSONObject horario, List<Asignatura> originalAsignaturas) {
+    public void agregarHorarioProfesor(String nombre, List<AsignacionProfesor> asignaciones, List<Asignatura> originalAsignaturas) {
         try {
-            JSONObject profesorJSON = new JSONObject();
-            profesorJSON.put("Nombre", nombre);
-
-            JSONArray asignaturas = (JSONArray) horario.get("Asignaturas");
-            if (asignaturas == null) {
-                asignaturas = new JSONArray();
-            }
-
             // Group assignments by instance
             Map<String, Integer> assignedHoursByInstance = new HashMap<>();
-            for (Object obj : asignaturas) {
-                JSONObject asignatura = (JSONObject) obj;
+            for (AsignacionProfesor asignacion : asignaciones) {
                 String instanceKey = String.format("%s-%s-%d",
-                        asignatura.get("Nombre"),
-                        asignatura.get("CodigoAsignatura"),
-                        ((Number) asignatura.get("Instance")).intValue());
+                        asignacion.getNombre(),
+                        asignacion.getCodigoAsignatura(),
+                        asignacion.getInstance());
                 assignedHoursByInstance.merge(instanceKey, 1, Integer::sum);
             }
 
@@ -87,12 +77,9 @@ public class ProfesorHorarioJSON {
                         original.getNombre(), i, required, assigned);
             }
 
-            profesorJSON.put("Asignaturas", asignaturas);
-            profesorJSON.put("Solicitudes", originalAsignaturas.size());
-            profesorJSON.put("AsignaturasCompletadas", completedSubjects);
-
             // Store in memory
-            profesoresHorarios.put(nombre, profesorJSON);
+            profesoresHorarios.put(nombre, new JSONStreamWriter.Profesor(
+                    nombre, asignaciones, originalAsignaturas.size(), completedSubjects));
 
             if (updateCount.incrementAndGet() >= WRITE_THRESHOLD) {
                 flushUpdates(false);
@@ -118,10 +105,7 @@ public class ProfesorHorarioJSON {
                 return;
             }
 
-            JSONArray jsonArray = new JSONArray();
-            jsonArray.addAll(profesoresHorarios.values());
-
-            JSONHelper.writeJsonFile("Horarios_asignados.json", jsonArray);
+            JSONStreamWriter.escribirProfesores("Horarios_asignados.json", profesoresHorarios.values());
 
             if (isFinalWrite) {
                 printAsignationSummary();
@@ -138,12 +122,9 @@ public class ProfesorHorarioJSON {
     }
 
     private void printAsignationSummary() {
-        for (JSONObject profesor : profesoresHorarios.values()) {
-            String nombreProf = (String) profesor.get("Nombre");
-            JSONArray asignaturasProf = (JSONArray) profesor.get("Asignaturas");
-            int solicitudes = ((Number) profesor.get("Solicitudes")).intValue();
-            System.out.println("Profesor " + nombreProf + ": " +
-                    asignaturasProf.size() + "/" + solicitudes +
+        for (JSONStreamWriter.Profesor profesor : profesoresHorarios.values()) {
+            System.out.println("Profesor " + profesor.nombre + ": " +
+                    profesor.asignaciones.size() + "/" + profesor.solicitudes +
                     " asignaturas asignadas");
         }
     }
@@ -1,10 +1,13 @@
 package json_stuff;
 
+import constants.Config;
 import constants.enums.Day;
 import objetos.AsignacionSala;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
+import objetos.OcupacionSala;
+import objetos.helper.BatchAssignmentConfirmation;
 
+import java.io.IOException;
+import java.util.Collection;
 import java.util.Map;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
@@ -18,10 +21,13 @@ public class SalaHorarioJSON {
     // Threshold for number of updates before writing to disk
     private static final int WRITE_THRESHOLD = 20;
 
-    // In-memory storage of pending updates
-    private final Map<String, JSONObject> pendingUpdates;
+    // In-memory storage of the latest schedule of every room (snapshot mode)
+    private final Map<String, JSONStreamWriter.Sala> pendingUpdates;
     private final AtomicInteger updateCount;
 
+    // Append-only record of confirmed assignments (journal mode), compacted in generarArchivoJSON
+    private final SalaHorarioJournal journal;
+
     // Lock for file writing operations
     private final ReentrantLock writeLock;
 
@@ -29,6 +35,7 @@ public class SalaHorarioJSON {
         pendingUpdates = new ConcurrentHashMap<>();
         updateCount = new AtomicInteger(0);
         writeLock = new ReentrantLock();
+        journal = Config.JOURNAL_SALAS ? new SalaHorarioJournal(JSONHelper.outputPath("Horarios_salas.journal")) : null;
     }
 
     public void generarArchivoJSON() {
@@ -38,18 +45,25 @@ public class SalaHorarioJSON {
             flushUpdates();
 
             // Then do the final write of everything
-            JSONArray jsonArray = new JSONArray();
-            jsonArray.addAll(pendingUpdates.values());
+            Collection<JSONStreamWriter.Sala> salas = salas();
 
-            if (!jsonArray.isEmpty()) {
-                JSONHelper.writeJsonFile("Horarios_salas.json", jsonArray);
-                System.out.println("Generated final Horarios_salas.json with " + pendingUpdates.size() + " salas");
+            if (!salas.isEmpty()) {
+                JSONStreamWriter.escribirSalas("Horarios_salas.json", salas);
+                System.out.println("Generated final Horarios_salas.json with " + salas.size() + " salas");
             }
+        } catch (IOException e) {
+            System.err.println("Error writing final classroom schedules: " + e.getMessage());
+            e.printStackTrace();
         } finally {
             writeLock.unlock();
         }
     }
 
+    // Latest schedule of every room, from the journal or from the in-memory snapshots
+    private Collection<JSONStreamWriter.Sala> salas() throws IOException {
+        return journal == null ? pendingUpdates.values() : journal.compactar().values();
+    }
+
     public static SalaHorarioJSON getInstance() {
         if (instance == null) {
             instanceLock.lock();
@@ -64,13 +78,87 @@ public class SalaHorarioJSON {
         return instance;
     }
 
+    /**
+     * Registra una sala al crearla, para que aparezca en el archivo final aunque no tenga clases. Se llama
+     * antes de cualquier asignación: el supervisor puede escribir los archivos antes de que las salas terminen.
+     */
+    public void registrarSala(String codigo, String campus) {
+        if (journal == null) {
+            pendingUpdates.putIfAbsent(codigo, new JSONStreamWriter.Sala(codigo, campus));
+            return;
+        }
+
+        try {
+            journal.registrarSala(codigo, campus);
+        } catch (IOException e) {
+            System.err.println("Error registering classroom: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Registra los bloques recién confirmados de una sala. En modo journal se agrega un registro por bloque;
+     * si no, se reemplaza el horario completo de la sala.
+     */
+    public void agregarAsignaciones(String codigo, String campus, OcupacionSala ocupacion,
+                                    List<BatchAssignmentConfirmation.ConfirmedAssignment> confirmadas) {
+        if (journal == null) {
+            agregarHorarioSala(codigo, campus, ocupacion.toMapa());
+            return;
+        }
+
+        try {
+            for (BatchAssignmentConfirmation.ConfirmedAssignment confirmada : confirmadas) {
+                journal.registrarAsignacion(codigo, campus, confirmada.getDay(), confirmada.getBlock(),
+                        ocupacion.getAsignacion(confirmada.getDay(), confirmada.getBlock()));
+            }
+        } catch (IOException e) {
+            System.err.println("Error appending classroom assignments: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Registra los bloques con que una sala se restauró desde un checkpoint.
+     */
+    public void restaurarSala(String codigo, String campus, OcupacionSala ocupacion) {
+        if (ocupacion.getMascara() == 0) {
+            return; // Nothing confirmed before the checkpoint, same as a room that was never updated
+        }
+        if (journal == null) {
+            agregarHorarioSala(codigo, campus, ocupacion.toMapa());
+            return;
+        }
+
+        try {
+            journal.registrarSala(codigo, campus);
+            for (Day dia : Day.values()) {
+                for (int bloque = 1; bloque <= OcupacionSala.BLOQUES_POR_DIA; bloque++) {
+                    AsignacionSala asignacion = ocupacion.getAsignacion(dia, bloque);
+                    if (asignacion != null) {
+                        journal.registrarAsignacion(codigo, campus, dia, bloque, asignacion);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error appending restored classroom assignments: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Estado completo de una sala. En modo journal las asignaciones ya están registradas y solo se asegura
+     * que la sala aparezca en el archivo final (ver {@link #registrarSala}).
+     */
     public void agregarHorarioSala(String codigo, String campus, Map<Day, List<AsignacionSala>> horario) {
         try {
-            // Create JSON for this update
-            JSONObject salaJSON = createSalaJSON(codigo, campus, horario);
+            if (journal != null) {
+                journal.registrarSala(codigo, campus);
+                return;
+            }
 
             // Store update in memory
-            pendingUpdates.put(codigo, salaJSON);
+            pendingUpdates.put(codigo, createSala(codigo, campus, horario));
 
             // Check if we should write to disk
             if (updateCount.incrementAndGet() >= WRITE_THRESHOLD) {
@@ -82,33 +170,18 @@ public class SalaHorarioJSON {
         }
     }
 
-    private JSONObject createSalaJSON(String codigo, String campus, Map<Day, List<AsignacionSala>> horario) {
-        JSONObject salaJSON = new JSONObject();
-        salaJSON.put("Codigo", codigo);
-        salaJSON.put("Campus", campus);
-
-        JSONArray asignaturasJSON = new JSONArray();
+    private JSONStreamWriter.Sala createSala(String codigo, String campus, Map<Day, List<AsignacionSala>> horario) {
+        JSONStreamWriter.Sala sala = new JSONStreamWriter.Sala(codigo, campus);
 
         for (Map.Entry<Day, List<AsignacionSala>> entry : horario.entrySet()) {
-            Day dia = entry.getKey();
+            int base = entry.getKey().ordinal() * OcupacionSala.BLOQUES_POR_DIA;
             List<AsignacionSala> asignaciones = entry.getValue();
 
-            for (int i = 0; i < asignaciones.size(); i++) {
-                AsignacionSala asignacion = asignaciones.get(i);
-                if (asignacion != null) {
-                    JSONObject asignaturaJSON = new JSONObject();
-                    asignaturaJSON.put("Nombre", asignacion.getNombreAsignatura());
-                    asignaturaJSON.put("Capacidad", asignacion.getCapacidad());
-                    asignaturaJSON.put("Bloque", i + 1);
-                    asignaturaJSON.put("Dia", dia.getDisplayName());
-                    asignaturaJSON.put("Satisfaccion", asignacion.getSatisfaccion());
-                    asignaturasJSON.add(asignaturaJSON);
-                }
+            for (int i = 0; i < asignaciones.size() && i < OcupacionSala.BLOQUES_POR_DIA; i++) {
+                sala.bloques[base + i] = asignaciones.get(i);
             }
         }
-
-        salaJSON.put("Asignaturas", asignaturasJSON);
-        return salaJSON;
+        return sala;
     }
 
     private void flushUpdates() {
@@ -123,18 +196,11 @@ public class SalaHorarioJSON {
                 return;
             }
 
-            // Create JSON array with all pending updates
-            JSONArray jsonArray = new JSONArray();
-            jsonArray.addAll(pendingUpdates.values());
-
             // Write to file
-            if (!jsonArray.isEmpty()) {
-                JSONHelper.writeJsonFile("Horarios_salas.json", jsonArray);
-                System.out.println("Successfully wrote " + pendingUpdates.size() + " classroom schedules to file");
-            }
+            JSONStreamWriter.escribirSalas("Horarios_salas.json", pendingUpdates.values());
+            System.out.println("Successfully wrote " + pendingUpdates.size() + " classroom schedules to file");
 
-            // Clear pending updates and reset counter
-            pendingUpdates.clear();
+            // Keep every room for the next write; only reset the counter
             updateCount.set(0);
 
         } catch (Exception e) {
@@ -167,12 +233,13 @@ public class SalaHorarioJSON {
             // Force write any pending updates before generating summary
             flushUpdates();
 
-            for (JSONObject sala : pendingUpdates.values()) {
-                String codigo = (String) sala.get("Codigo");
-                JSONArray asignaturas = (JSONArray) sala.get("Asignaturas");
-                System.out.println("Sala " + codigo + ": " +
-                        (asignaturas != null ? asignaturas.size() : 0) + " asignaturas asignadas");
+            for (JSONStreamWriter.Sala sala : salas()) {
+                System.out.println("Sala " + sala.codigo + ": " +
+                        sala.contarAsignaciones() + " asignaturas asignadas");
             }
+        } catch (IOException e) {
+            System.err.println("Error compacting classroom journal: " + e.getMessage());
+            e.printStackTrace();
         } finally {
             writeLock.unlock();
         }
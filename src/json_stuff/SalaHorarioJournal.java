@@ -0,0 +1,143 @@
+package json_stuff;
+
+import constants.enums.Day;
+import objetos.AsignacionSala;
+import objetos.OcupacionSala;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Registro de solo-agregar de las asignaciones de sala. Cada asignación confirmada es un registro binario
+ * que se acumula en un buffer y se escribe al canal cuando se llena (o en {@link #compactar()}), así el
+ * costo de E/S es proporcional a los cambios y no al horario completo. El archivo se trunca al abrirse,
+ * una vez por ejecución.
+ * <p>
+ * Registros: {@code SALA codigo campus} la primera vez que aparece una sala y
+ * {@code ASIGNACION codigo dia bloque nombre satisfaccion capacidad} por cada bloque confirmado.
+ */
+class SalaHorarioJournal {
+    private static final byte SALA = 1;
+    private static final byte ASIGNACION = 2;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path archivo;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final Map<String, String> salasRegistradas = new LinkedHashMap<>();
+    private FileChannel canal;
+
+    SalaHorarioJournal(Path archivo) {
+        this.archivo = archivo;
+    }
+
+    synchronized void registrarSala(String codigo, String campus) throws IOException {
+        if (salasRegistradas.containsKey(codigo)) {
+            return;
+        }
+        byte[] codigoBytes = codigo.getBytes(StandardCharsets.UTF_8);
+        byte[] campusBytes = campus.getBytes(StandardCharsets.UTF_8);
+
+        reservar(1 + 2 + codigoBytes.length + 2 + campusBytes.length);
+        buffer.put(SALA);
+        putString(codigoBytes);
+        putString(campusBytes);
+        salasRegistradas.put(codigo, campus);
+    }
+
+    synchronized void registrarAsignacion(String codigo, String campus, Day dia, int bloque,
+                                          AsignacionSala asignacion) throws IOException {
+        registrarSala(codigo, campus);
+
+        byte[] codigoBytes = codigo.getBytes(StandardCharsets.UTF_8);
+        byte[] nombreBytes = asignacion.getNombreAsignatura().getBytes(StandardCharsets.UTF_8);
+
+        reservar(1 + 2 + codigoBytes.length + 1 + 1 + 2 + nombreBytes.length + 4 + 4);
+        buffer.put(ASIGNACION);
+        putString(codigoBytes);
+        buffer.put((byte) dia.ordinal());
+        buffer.put((byte) bloque);
+        putString(nombreBytes);
+        buffer.putInt(asignacion.getSatisfaccion());
+        buffer.putFloat(asignacion.getCapacidad());
+    }
+
+    /**
+     * Escribe lo pendiente y reconstruye el estado final de cada sala a partir del registro completo.
+     * Si un bloque aparece más de una vez gana el último registro.
+     * @return Salas en el orden en que aparecieron por primera vez.
+     */
+    synchronized Map<String, JSONStreamWriter.Sala> compactar() throws IOException {
+        Map<String, JSONStreamWriter.Sala> salas = new LinkedHashMap<>();
+        if (canal == null) {
+            return salas;
+        }
+        vaciar();
+
+        ByteBuffer datos = ByteBuffer.allocate((int) canal.size());
+        while (datos.hasRemaining() && canal.read(datos, datos.position()) >= 0) {
+            // read() avanza la posición del buffer
+        }
+        datos.flip();
+
+        while (datos.hasRemaining()) {
+            byte tipo = datos.get();
+            String codigo = getString(datos);
+            if (tipo == SALA) {
+                String campus = getString(datos);
+                salas.putIfAbsent(codigo, new JSONStreamWriter.Sala(codigo, campus));
+            } else if (tipo == ASIGNACION) {
+                Day dia = Day.values()[datos.get()];
+                int bloque = datos.get();
+                String nombre = getString(datos);
+                int satisfaccion = datos.getInt();
+                float capacidad = datos.getFloat();
+                // El registro SALA siempre precede a las asignaciones de la sala
+                salas.get(codigo).bloques[dia.ordinal() * OcupacionSala.BLOQUES_POR_DIA + bloque - 1] =
+                        new AsignacionSala(nombre, satisfaccion, capacidad);
+            } else {
+                throw new IOException("Registro desconocido en " + archivo + ": " + tipo);
+            }
+        }
+        return salas;
+    }
+
+    // Deja espacio para un registro, escribiendo el buffer al canal si hace falta
+    private void reservar(int bytes) throws IOException {
+        if (canal == null) {
+            canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+        if (bytes > buffer.capacity()) {
+            throw new IOException("Registro de " + bytes + " bytes excede el buffer del registro");
+        }
+        if (buffer.remaining() < bytes) {
+            vaciar();
+        }
+    }
+
+    private void vaciar() throws IOException {
+        buffer.flip();
+        long fin = canal.size();
+        while (buffer.hasRemaining()) {
+            fin += canal.write(buffer, fin);
+        }
+        buffer.clear();
+    }
+
+    private void putString(byte[] bytes) {
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer datos) {
+        byte[] bytes = new byte[datos.getShort() & 0xFFFF];
+        datos.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,92 @@
+package metricas;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de valores no negativos con cubetas log-lineales, al estilo de HdrHistogram: los valores
+ * menores que 64 tienen cubeta propia y sobre eso cada potencia de 2 se divide en 32 cubetas, con un error
+ * relativo de a lo más 1/32 en los percentiles. Registrar un valor es un incremento atómico, sin locks, así
+ * que se puede llamar desde los hilos de los agentes.
+ */
+public class Histograma {
+    private static final int LINEALES = 64;
+    private static final int SUB_CUBETAS = 32;
+    private static final int BITS_SUB = 5; // log2(SUB_CUBETAS)
+    private static final int CUBETAS = LINEALES + (Long.SIZE - BITS_SUB - 1) * SUB_CUBETAS;
+
+    private final AtomicLongArray conteos = new AtomicLongArray(CUBETAS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder suma = new LongAdder();
+    private final AtomicLong minimo = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong maximo = new AtomicLong(0);
+
+    public void registrar(long valor) {
+        if (valor < 0) {
+            valor = 0;
+        }
+        conteos.incrementAndGet(cubeta(valor));
+        total.increment();
+        suma.add(valor);
+        minimo.accumulateAndGet(valor, Math::min);
+        maximo.accumulateAndGet(valor, Math::max);
+    }
+
+    public long getConteo() {
+        return total.sum();
+    }
+
+    public long getMinimo() {
+        return getConteo() == 0 ? 0 : minimo.get();
+    }
+
+    public long getMaximo() {
+        return maximo.get();
+    }
+
+    public double getMedia() {
+        long conteo = getConteo();
+        return conteo == 0 ? 0 : (double) suma.sum() / conteo;
+    }
+
+    /**
+     * @param percentil Entre 0 y 100.
+     * @return El mayor valor de la cubeta donde cae el percentil (acotado al máximo registrado).
+     */
+    public long getPercentil(double percentil) {
+        long conteo = getConteo();
+        if (conteo == 0) {
+            return 0;
+        }
+        long objetivo = Math.max(1, (long) Math.ceil(percentil / 100.0 * conteo));
+        long acumulado = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            acumulado += conteos.get(i);
+            if (acumulado >= objetivo) {
+                return Math.min(valorMaximo(i), getMaximo());
+            }
+        }
+        return getMaximo();
+    }
+
+    // Cubeta de un valor: lineal bajo 64, luego 32 cubetas por potencia de 2
+    private static int cubeta(long valor) {
+        if (valor < LINEALES) {
+            return (int) valor;
+        }
+        int desplazamiento = (Long.SIZE - 1 - Long.numberOfLeadingZeros(valor)) - BITS_SUB;
+        int sub = (int) (valor >>> desplazamiento) - SUB_CUBETAS;
+        return LINEALES + (desplazamiento - 1) * SUB_CUBETAS + sub;
+    }
+
+    private static long valorMaximo(int cubeta) {
+        if (cubeta < LINEALES) {
+            return cubeta;
+        }
+        int k = cubeta - LINEALES;
+        int desplazamiento = k / SUB_CUBETAS + 1;
+        long sub = k % SUB_CUBETAS + SUB_CUBETAS;
+        return ((sub + 1) << desplazamiento) - 1;
+    }
+}
@@ -0,0 +1,24 @@
+package metricas;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Valor instantáneo (por ejemplo, mensajes pendientes en un buzón) con el máximo observado.
+ */
+public class Medidor {
+    private final AtomicLong actual = new AtomicLong();
+    private final AtomicLong maximo = new AtomicLong();
+
+    public void registrar(long valor) {
+        actual.set(valor);
+        maximo.accumulateAndGet(valor, Math::max);
+    }
+
+    public long getActual() {
+        return actual.get();
+    }
+
+    public long getMaximo() {
+        return maximo.get();
+    }
+}
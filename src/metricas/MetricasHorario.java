@@ -0,0 +1,486 @@
+package metricas;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import constants.enums.Day;
+import json_stuff.JSONHelper;
+import objetos.AsignacionSala;
+import objetos.Asignatura;
+import objetos.DatosProfesor;
+import objetos.OcupacionSala;
+import objetos.helper.BatchAssignmentConfirmation;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Métricas de calidad del horario que antes calculaban los notebooks de Metricas/ releyendo los JSON de
+ * salida: ocupación, capacidad, compactación (ventanas), salas adecuadas (RE) y TE. Los contadores se
+ * actualizan con cada asignación confirmada y al final se escriben los metricas_*.json en agent_output,
+ * con las mismas claves que los notebooks.
+ * <p>
+ * La ocupación de cada sala se guarda como máscara semanal (ver OcupacionSala); las ventanas se obtienen
+ * de esas máscaras al escribir.
+ */
+public class MetricasHorario {
+    private static final JsonFactory FACTORY = new JsonFactory();
+    private static final Day[] DIAS = Day.values();
+    private static final int BLOQUES_POR_DIA = OcupacionSala.BLOQUES_POR_DIA;
+    private static final int TOTAL_BLOQUES = OcupacionSala.TOTAL_BLOQUES;
+
+    private static MetricasHorario instance;
+    private static final ReentrantLock instanceLock = new ReentrantLock();
+
+    private final Map<String, Sala> salas = new LinkedHashMap<>();
+    private final List<Asignatura> asignaturas = new ArrayList<>();
+    private final int[] ocupadosPorDia = new int[DIAS.length];
+    private int totalOcupados = 0;
+
+    private static class Sala {
+        final int capacidad;
+        long mascara;
+        int bajo;
+        int exacta;
+        int sobre;
+
+        Sala(int capacidad) {
+            this.capacidad = capacidad;
+        }
+
+        int ocupados() {
+            return Long.bitCount(mascara);
+        }
+    }
+
+    private MetricasHorario() {
+    }
+
+    public static MetricasHorario getInstance() {
+        if (instance == null) {
+            instanceLock.lock();
+            try {
+                if (instance == null) {
+                    instance = new MetricasHorario();
+                }
+            } finally {
+                instanceLock.unlock();
+            }
+        }
+        return instance;
+    }
+
+    public synchronized void registrarSala(String codigo, int capacidad) {
+        salas.putIfAbsent(codigo, new Sala(capacidad));
+    }
+
+    /**
+     * Asignaturas a negociar (ya separadas en paralelos), para las métricas RE y TE.
+     */
+    public synchronized void registrarAsignaturas(List<DatosProfesor> profesores) {
+        for (DatosProfesor profesor : profesores) {
+            asignaturas.addAll(profesor.getAsignaturas());
+        }
+    }
+
+    /**
+     * Registra los bloques recién confirmados de una sala (mismos argumentos que SalaHorarioJSON).
+     */
+    public synchronized void registrarAsignaciones(String codigo, OcupacionSala ocupacion,
+                                                   List<BatchAssignmentConfirmation.ConfirmedAssignment> confirmadas) {
+        for (BatchAssignmentConfirmation.ConfirmedAssignment confirmada : confirmadas) {
+            registrar(codigo, confirmada.getDay(), confirmada.getBlock(),
+                    ocupacion.getAsignacion(confirmada.getDay(), confirmada.getBlock()));
+        }
+    }
+
+    /**
+     * Registra los bloques con que una sala se restauró desde un checkpoint.
+     */
+    public synchronized void restaurarSala(String codigo, OcupacionSala ocupacion) {
+        for (long resto = ocupacion.getMascara(); resto != 0; resto &= resto - 1) {
+            int i = Long.numberOfTrailingZeros(resto);
+            Day dia = DIAS[i / BLOQUES_POR_DIA];
+            int bloque = i % BLOQUES_POR_DIA + 1;
+            registrar(codigo, dia, bloque, ocupacion.getAsignacion(dia, bloque));
+        }
+    }
+
+    private void registrar(String codigo, Day dia, int bloque, AsignacionSala asignacion) {
+        Sala sala = salas.get(codigo);
+        long bit = 1L << (dia.ordinal() * BLOQUES_POR_DIA + bloque - 1);
+        if (sala == null || asignacion == null || (sala.mascara & bit) != 0) {
+            return;
+        }
+        sala.mascara |= bit;
+        ocupadosPorDia[dia.ordinal()]++;
+        totalOcupados++;
+
+        // Mismas categorías que Metricas/Capacidad: fracción de la sala que ocupan las vacantes
+        float fraccion = asignacion.getCapacidad();
+        if (fraccion < 1.0f) {
+            sala.bajo++;
+        } else if (fraccion > 1.0f) {
+            sala.sobre++;
+        } else {
+            sala.exacta++;
+        }
+    }
+
+    /**
+     * Escribe metricas_ocupacion.json, metricas_capacidad.json, metricas_compactacion.json,
+     * metricas_capacidad_salas.json y metricas_te.json.
+     */
+    public synchronized void generarArchivos() {
+        try {
+            escribirOcupacion();
+            escribirCapacidad();
+            escribirCompactacion();
+            escribirCapacidadSalas();
+            escribirTE();
+            System.out.printf("Métricas generadas: ocupación global %.2f%% en %d salas%n",
+                    porcentaje(totalOcupados, salas.size() * TOTAL_BLOQUES), salas.size());
+        } catch (IOException e) {
+            System.err.println("Error writing schedule metrics: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    // Metricas/Ocupacion
+    private void escribirOcupacion() throws IOException {
+        try (Escritor out = new Escritor("metricas_ocupacion.json")) {
+            JsonGenerator gen = out.gen;
+            gen.writeStartObject();
+
+            gen.writeObjectFieldStart("room_stats");
+            for (Map.Entry<String, Sala> entry : salas.entrySet()) {
+                int ocupados = entry.getValue().ocupados();
+                gen.writeObjectFieldStart(entry.getKey());
+                gen.writeNumberField("Bloques Ocupados", ocupados);
+                gen.writeNumberField("Bloques Desocupados", TOTAL_BLOQUES - ocupados);
+                gen.writeNumberField("Tasa de Ocupacion", redondear(porcentaje(ocupados, TOTAL_BLOQUES)));
+                gen.writeEndObject();
+            }
+            gen.writeEndObject();
+
+            int total = salas.size() * TOTAL_BLOQUES;
+            gen.writeObjectFieldStart("global_stats");
+            gen.writeNumberField("total_ocupados", totalOcupados);
+            gen.writeNumberField("total_desocupados", total - totalOcupados);
+            gen.writeNumberField("tasa_ocupacion_global", porcentaje(totalOcupados, total));
+            gen.writeEndObject();
+
+            int totalDia = salas.size() * BLOQUES_POR_DIA;
+            gen.writeObjectFieldStart("daily_stats");
+            for (Day dia : DIAS) {
+                int ocupados = ocupadosPorDia[dia.ordinal()];
+                gen.writeObjectFieldStart(dia.getDisplayName());
+                gen.writeNumberField("bloques_ocupados", ocupados);
+                gen.writeNumberField("bloques_desocupados", totalDia - ocupados);
+                gen.writeNumberField("tasa_ocupacion", redondear(porcentaje(ocupados, totalDia)));
+                gen.writeEndObject();
+            }
+            gen.writeEndObject();
+
+            gen.writeEndObject();
+        }
+    }
+
+    // Metricas/Capacidad: solo salas con al menos una asignación, agrupadas por rangos de 10 de capacidad
+    private void escribirCapacidad() throws IOException {
+        int bajo = 0;
+        int exacta = 0;
+        int sobre = 0;
+        Map<String, int[]> porRango = new TreeMap<>(Comparator.comparingInt(r -> Integer.parseInt(r.split("-")[0])));
+
+        try (Escritor out = new Escritor("metricas_capacidad.json")) {
+            JsonGenerator gen = out.gen;
+            gen.writeStartObject();
+
+            gen.writeObjectFieldStart("room_stats");
+            for (Map.Entry<String, Sala> entry : salas.entrySet()) {
+                Sala sala = entry.getValue();
+                int total = sala.ocupados();
+                if (total == 0) {
+                    continue;
+                }
+                String rango = (sala.capacidad / 10 * 10) + "-" + (sala.capacidad / 10 * 10 + 9);
+
+                gen.writeObjectFieldStart(entry.getKey());
+                gen.writeNumberField("bajo", sala.bajo);
+                gen.writeNumberField("exacta", sala.exacta);
+                gen.writeNumberField("sobre", sala.sobre);
+                gen.writeNumberField("total", total);
+                gen.writeNumberField("room_capacity", sala.capacidad);
+                gen.writeNumberField("bajo_pct", redondear(porcentaje(sala.bajo, total)));
+                gen.writeNumberField("exacta_pct", redondear(porcentaje(sala.exacta, total)));
+                gen.writeNumberField("sobre_pct", redondear(porcentaje(sala.sobre, total)));
+                gen.writeStringField("capacity_range", rango);
+                gen.writeEndObject();
+
+                bajo += sala.bajo;
+                exacta += sala.exacta;
+                sobre += sala.sobre;
+                int[] conteos = porRango.computeIfAbsent(rango, r -> new int[3]);
+                conteos[0] += sala.bajo;
+                conteos[1] += sala.exacta;
+                conteos[2] += sala.sobre;
+            }
+            gen.writeEndObject();
+
+            int total = bajo + exacta + sobre;
+            gen.writeObjectFieldStart("global_stats");
+            gen.writeNumberField("bajo_capacidad", porcentaje(bajo, total));
+            gen.writeNumberField("capacidad_exacta", porcentaje(exacta, total));
+            gen.writeNumberField("sobre_capacidad", porcentaje(sobre, total));
+            gen.writeEndObject();
+
+            // Como DataFrame.to_dict(): categoría -> rango -> bloques
+            String[] categorias = {"bajo", "exacta", "sobre"};
+            gen.writeObjectFieldStart("range_analysis");
+            for (int c = 0; c < categorias.length; c++) {
+                gen.writeObjectFieldStart(categorias[c]);
+                for (Map.Entry<String, int[]> rango : porRango.entrySet()) {
+                    gen.writeNumberField(rango.getKey(), rango.getValue()[c]);
+                }
+                gen.writeEndObject();
+            }
+            gen.writeEndObject();
+
+            gen.writeEndObject();
+        }
+    }
+
+    // Metricas/Compactacion: una ventana es cada tramo libre después del primer bloque ocupado del día
+    private void escribirCompactacion() throws IOException {
+        try (Escritor out = new Escritor("metricas_compactacion.json")) {
+            JsonGenerator gen = out.gen;
+            gen.writeStartObject();
+
+            gen.writeObjectFieldStart("estadisticas_por_sala");
+            for (Map.Entry<String, Sala> entry : salas.entrySet()) {
+                long mascara = entry.getValue().mascara;
+                int ventanas = 0;
+                for (Day dia : DIAS) {
+                    ventanas += ventanas(mascaraDia(mascara, dia), null);
+                }
+
+                gen.writeObjectFieldStart(entry.getKey());
+                gen.writeNumberField("ventanas", ventanas);
+                gen.writeNumberField("bloques_ocupados", Long.bitCount(mascara));
+                gen.writeArrayFieldStart("schedule");
+                for (Day dia : DIAS) {
+                    int delDia = mascaraDia(mascara, dia);
+                    gen.writeStartArray();
+                    for (int b = 0; b < BLOQUES_POR_DIA; b++) {
+                        gen.writeBoolean((delDia & (1 << b)) != 0);
+                    }
+                    gen.writeEndArray();
+                }
+                gen.writeEndArray();
+                gen.writeEndObject();
+            }
+            gen.writeEndObject();
+
+            gen.writeObjectFieldStart("estadisticas_duracion");
+            for (Map.Entry<String, Sala> entry : salas.entrySet()) {
+                int[] duraciones = new int[BLOQUES_POR_DIA + 1];
+                for (Day dia : DIAS) {
+                    ventanas(mascaraDia(entry.getValue().mascara, dia), duraciones);
+                }
+
+                int totalBloques = 0;
+                gen.writeObjectFieldStart(entry.getKey());
+                gen.writeObjectFieldStart("duraciones");
+                for (int d = 1; d < duraciones.length; d++) {
+                    if (duraciones[d] > 0) {
+                        gen.writeNumberField(String.valueOf(d), duraciones[d]);
+                        totalBloques += d * duraciones[d];
+                    }
+                }
+                gen.writeEndObject();
+                gen.writeNumberField("total_bloques", totalBloques);
+                gen.writeEndObject();
+            }
+            gen.writeEndObject();
+
+            gen.writeEndObject();
+        }
+    }
+
+    // Metricas/Adecuadas: cuántas asignaturas caben en cada sala
+    private void escribirCapacidadSalas() throws IOException {
+        int[] vacantes = asignaturas.stream().mapToInt(Asignatura::getVacantes).sorted().toArray();
+
+        try (Escritor out = new Escritor("metricas_capacidad_salas.json")) {
+            JsonGenerator gen = out.gen;
+            gen.writeStartObject();
+            for (Map.Entry<String, Sala> entry : salas.entrySet()) {
+                int optimas = contarHasta(vacantes, entry.getValue().capacidad);
+                gen.writeObjectFieldStart(entry.getKey());
+                gen.writeNumberField("capacidad", entry.getValue().capacidad);
+                gen.writeNumberField("optimas", optimas);
+                gen.writeNumberField("no_optimas", vacantes.length - optimas);
+                gen.writeNumberField("total", vacantes.length);
+                gen.writeEndObject();
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    // Metricas/TE: por código de asignatura (horas sumadas), fracción de salas en que caben sus vacantes
+    private void escribirTE() throws IOException {
+        Map<String, int[]> porCodigo = new LinkedHashMap<>(); // código -> {vacantes, horas}
+        Map<String, String> nombres = new HashMap<>();
+        for (Asignatura asignatura : asignaturas) {
+            int[] datos = porCodigo.get(asignatura.getCodigoAsignatura());
+            if (datos == null) {
+                porCodigo.put(asignatura.getCodigoAsignatura(), new int[]{asignatura.getVacantes(), asignatura.getHoras()});
+                nombres.put(asignatura.getCodigoAsignatura(), asignatura.getNombre());
+            } else {
+                datos[1] += asignatura.getHoras();
+            }
+        }
+
+        int[] capacidades = salas.values().stream().mapToInt(s -> s.capacidad).sorted().toArray();
+        double[] tes = new double[porCodigo.size()];
+        int i = 0;
+
+        try (Escritor out = new Escritor("metricas_te.json")) {
+            JsonGenerator gen = out.gen;
+            gen.writeStartObject();
+
+            gen.writeArrayFieldStart("asignaturas");
+            for (Map.Entry<String, int[]> entry : porCodigo.entrySet()) {
+                int vacantes = entry.getValue()[0];
+                int utiles = capacidades.length - contarHasta(capacidades, vacantes - 1);
+                double te = capacidades.length > 0 ? (double) utiles / capacidades.length : 0;
+                tes[i++] = te;
+
+                gen.writeStartObject();
+                gen.writeStringField("Asignatura", entry.getKey() + " - " + nombres.get(entry.getKey()));
+                gen.writeNumberField("Vacantes", vacantes);
+                gen.writeNumberField("Horas_Semanales", entry.getValue()[1]);
+                gen.writeNumberField("Num_salas_utiles", utiles);
+                gen.writeNumberField("Bloques_disponibles", utiles * TOTAL_BLOQUES);
+                gen.writeNumberField("TE", redondear(te));
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+
+            gen.writeObjectFieldStart("resumen");
+            gen.writeNumberField("num_salas", capacidades.length);
+            gen.writeNumberField("bloques_dia", BLOQUES_POR_DIA);
+            gen.writeNumberField("num_dias", DIAS.length);
+            gen.writeNumberField("promedio", promedio(tes));
+            gen.writeNumberField("mediana", mediana(tes));
+            gen.writeNumberField("desviacion_estandar", desviacion(tes));
+            gen.writeEndObject();
+
+            gen.writeEndObject();
+        }
+    }
+
+    /**
+     * Cuenta los tramos libres del día posteriores al primer bloque ocupado (incluido el final del día).
+     * Si {@code duraciones} no es null, suma cada tramo en duraciones[largo].
+     */
+    private static int ventanas(int mascaraDia, int[] duraciones) {
+        if (mascaraDia == 0) {
+            return 0;
+        }
+        int ventanas = 0;
+        int largo = 0;
+        for (int b = Integer.numberOfTrailingZeros(mascaraDia) + 1; b < BLOQUES_POR_DIA; b++) {
+            if ((mascaraDia & (1 << b)) == 0) {
+                largo++;
+            } else if (largo > 0) {
+                ventanas++;
+                if (duraciones != null) {
+                    duraciones[largo]++;
+                }
+                largo = 0;
+            }
+        }
+        if (largo > 0) {
+            ventanas++;
+            if (duraciones != null) {
+                duraciones[largo]++;
+            }
+        }
+        return ventanas;
+    }
+
+    private static int mascaraDia(long mascara, Day dia) {
+        return (int) (mascara >>> (dia.ordinal() * BLOQUES_POR_DIA)) & OcupacionSala.MASCARA_DIA;
+    }
+
+    // Cantidad de valores <= limite en un arreglo ascendente
+    private static int contarHasta(int[] ordenados, int limite) {
+        int lo = 0;
+        int hi = ordenados.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ordenados[mid] <= limite) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static double porcentaje(int parte, int total) {
+        return total > 0 ? parte * 100.0 / total : 0;
+    }
+
+    private static double redondear(double valor) {
+        return Math.round(valor * 100) / 100.0;
+    }
+
+    private static double promedio(double[] valores) {
+        return valores.length > 0 ? Arrays.stream(valores).sum() / valores.length : 0;
+    }
+
+    private static double mediana(double[] valores) {
+        if (valores.length == 0) {
+            return 0;
+        }
+        double[] ordenados = valores.clone();
+        Arrays.sort(ordenados);
+        int mitad = ordenados.length / 2;
+        return ordenados.length % 2 == 1 ? ordenados[mitad] : (ordenados[mitad - 1] + ordenados[mitad]) / 2;
+    }
+
+    // Desviación estándar muestral, como pandas
+    private static double desviacion(double[] valores) {
+        if (valores.length < 2) {
+            return 0;
+        }
+        double media = promedio(valores);
+        double suma = 0;
+        for (double valor : valores) {
+            suma += (valor - media) * (valor - media);
+        }
+        return Math.sqrt(suma / (valores.length - 1));
+    }
+
+    // Generador con pretty printer sobre un archivo de agent_output
+    private static class Escritor implements AutoCloseable {
+        final JsonGenerator gen;
+
+        Escritor(String fileName) throws IOException {
+            OutputStream stream = new BufferedOutputStream(Files.newOutputStream(JSONHelper.outputPath(fileName)));
+            gen = FACTORY.createGenerator(stream, JsonEncoding.UTF8).useDefaultPrettyPrinter();
+        }
+
+        @Override
+        public void close() throws IOException {
+            gen.close(); // cierra también el stream
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package metricas;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import constants.Config;
+import json_stuff.JSONHelper;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Métricas de la negociación en tiempo de ejecución (latencias, propuestas por ronda, reintentos, buzones),
+ * que antes se imprimían por consola en cada paso. Registrar es barato y no bloquea; cada {@code metricas.periodo}
+ * ms (0 lo desactiva) y al terminar se escriben agent_output/metricas_runtime.json y metricas_runtime.csv.
+ * <p>
+ * Los histogramas de tiempo llevan la unidad en el nombre (_us, _ms).
+ */
+public class RegistroMetricas {
+    private static final JsonFactory FACTORY = new JsonFactory();
+    private static final String ARCHIVO_JSON = "metricas_runtime.json";
+    private static final String ARCHIVO_CSV = "metricas_runtime.csv";
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] NOMBRES_PERCENTILES = {"p50", "p90", "p99", "p999"};
+
+    private static RegistroMetricas instance;
+    private static final ReentrantLock instanceLock = new ReentrantLock();
+
+    private final Map<String, Histograma> histogramas = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> contadores = new ConcurrentHashMap<>();
+    private final Map<String, Medidor> medidores = new ConcurrentHashMap<>();
+    private ScheduledExecutorService exportador;
+
+    private RegistroMetricas() {
+    }
+
+    public static RegistroMetricas getInstance() {
+        if (instance == null) {
+            instanceLock.lock();
+            try {
+                if (instance == null) {
+                    instance = new RegistroMetricas();
+                }
+            } finally {
+                instanceLock.unlock();
+            }
+        }
+        return instance;
+    }
+
+    public Histograma histograma(String nombre) {
+        return histogramas.computeIfAbsent(nombre, n -> new Histograma());
+    }
+
+    public LongAdder contador(String nombre) {
+        return contadores.computeIfAbsent(nombre, n -> new LongAdder());
+    }
+
+    public Medidor medidor(String nombre) {
+        return medidores.computeIfAbsent(nombre, n -> new Medidor());
+    }
+
+    /**
+     * Inicia la exportación periódica en un hilo daemon, si {@code metricas.periodo} es mayor que 0.
+     */
+    public synchronized void iniciarExportacion() {
+        if (exportador != null || Config.PERIODO_METRICAS <= 0) {
+            return;
+        }
+        exportador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "metricas-runtime");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        exportador.scheduleAtFixedRate(this::exportarSinErrores, Config.PERIODO_METRICAS,
+                Config.PERIODO_METRICAS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Detiene la exportación periódica y escribe los valores finales.
+     */
+    public void finalizar() {
+        synchronized (this) {
+            if (exportador != null) {
+                exportador.shutdownNow();
+                exportador = null;
+            }
+        }
+        exportarSinErrores();
+    }
+
+    private void exportarSinErrores() {
+        try {
+            exportar();
+        } catch (IOException e) {
+            System.err.println("Error writing runtime metrics: " + e.getMessage());
+        }
+    }
+
+    // Sincronizado para que el exportador periódico y el final no se pisen los temporales
+    public synchronized void exportar() throws IOException {
+        Map<String, Histograma> h = new TreeMap<>(histogramas);
+        Map<String, LongAdder> c = new TreeMap<>(contadores);
+        Map<String, Medidor> m = new TreeMap<>(medidores);
+
+        escribirAtomico(ARCHIVO_JSON, destino -> {
+            try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(destino));
+                 JsonGenerator gen = FACTORY.createGenerator(stream, JsonEncoding.UTF8).useDefaultPrettyPrinter()) {
+                gen.writeStartObject();
+                gen.writeObjectFieldStart("histogramas");
+                for (Map.Entry<String, Histograma> entry : h.entrySet()) {
+                    Histograma histograma = entry.getValue();
+                    gen.writeObjectFieldStart(entry.getKey());
+                    gen.writeNumberField("conteo", histograma.getConteo());
+                    gen.writeNumberField("min", histograma.getMinimo());
+                    gen.writeNumberField("max", histograma.getMaximo());
+                    gen.writeNumberField("media", redondear(histograma.getMedia()));
+                    for (int i = 0; i < PERCENTILES.length; i++) {
+                        gen.writeNumberField(NOMBRES_PERCENTILES[i], histograma.getPercentil(PERCENTILES[i]));
+                    }
+                    gen.writeEndObject();
+                }
+                gen.writeEndObject();
+
+                gen.writeObjectFieldStart("contadores");
+                for (Map.Entry<String, LongAdder> entry : c.entrySet()) {
+                    gen.writeNumberField(entry.getKey(), entry.getValue().sum());
+                }
+                gen.writeEndObject();
+
+                gen.writeObjectFieldStart("medidores");
+                for (Map.Entry<String, Medidor> entry : m.entrySet()) {
+                    gen.writeObjectFieldStart(entry.getKey());
+                    gen.writeNumberField("actual", entry.getValue().getActual());
+                    gen.writeNumberField("max", entry.getValue().getMaximo());
+                    gen.writeEndObject();
+                }
+                gen.writeEndObject();
+                gen.writeEndObject();
+            }
+        });
+
+        escribirAtomico(ARCHIVO_CSV, destino -> {
+            try (BufferedWriter out = Files.newBufferedWriter(destino, StandardCharsets.UTF_8)) {
+                out.write("tipo,nombre,conteo,min,max,media,p50,p90,p99,p999,valor");
+                out.newLine();
+                for (Map.Entry<String, Histograma> entry : h.entrySet()) {
+                    Histograma histograma = entry.getValue();
+                    StringBuilder linea = new StringBuilder("histograma,").append(entry.getKey())
+                            .append(',').append(histograma.getConteo())
+                            .append(',').append(histograma.getMinimo())
+                            .append(',').append(histograma.getMaximo())
+                            .append(',').append(redondear(histograma.getMedia()));
+                    for (double percentil : PERCENTILES) {
+                        linea.append(',').append(histograma.getPercentil(percentil));
+                    }
+                    out.write(linea.append(',').toString());
+                    out.newLine();
+                }
+                for (Map.Entry<String, LongAdder> entry : c.entrySet()) {
+                    out.write("contador," + entry.getKey() + ",,,,,,,,," + entry.getValue().sum());
+                    out.newLine();
+                }
+                for (Map.Entry<String, Medidor> entry : m.entrySet()) {
+                    out.write("medidor," + entry.getKey() + ",,," + entry.getValue().getMaximo() + ",,,,,,"
+                            + entry.getValue().getActual());
+                    out.newLine();
+                }
+            }
+        });
+    }
+
+    private interface Escritura {
+        void escribir(Path destino) throws IOException;
+    }
+
+    // Escribe en un temporal y lo renombra, para que quien lea a mitad de la ejecución no vea un archivo a medias
+    private static void escribirAtomico(String fileName, Escritura escritura) throws IOException {
+        Path destino = JSONHelper.outputPath(fileName);
+        Path temporal = destino.resolveSibling(fileName + ".tmp");
+        escritura.escribir(temporal);
+        Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static double redondear(double valor) {
+        return Math.round(valor * 100.0) / 100.0;
+    }
+}
@@ -0,0 +1,52 @@
+package objetos;
+
+import constants.enums.Day;
+
+public class AsignacionProfesor {
+    private final String nombre;
+    private final String sala;
+    private final int bloque;
+    private final Day dia;
+    private final int satisfaccion;
+    private final String codigoAsignatura;
+    private final int instance;
+
+    public AsignacionProfesor(String nombre, String sala, int bloque, Day dia, int satisfaccion,
+                              String codigoAsignatura, int instance) {
+        this.nombre = nombre;
+        this.sala = sala;
+        this.bloque = bloque;
+        this.dia = dia;
+        this.satisfaccion = satisfaccion;
+        this.codigoAsignatura = codigoAsignatura;
+        this.instance = instance;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public String getSala() {
+        return sala;
+    }
+
+    public int getBloque() {
+        return bloque;
+    }
+
+    public Day getDia() {
+        return dia;
+    }
+
+    public int getSatisfaccion() {
+        return satisfaccion;
+    }
+
+    public String getCodigoAsignatura() {
+        return codigoAsignatura;
+    }
+
+    public int getInstance() {
+        return instance;
+    }
+}
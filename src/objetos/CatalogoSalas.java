@@ -0,0 +1,72 @@
+package objetos;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Salas indexadas por campus y ordenadas por capacidad, para que un profesor solo contacte a las salas
+ * factibles para su asignatura (mismo campus y capacidad >= vacantes) con una búsqueda binaria.
+ * No depende de JADE: el motor headless lo usa con HorarioSala y los agentes con los AID del DF.
+ *
+ * @param <T> Lo que se devuelve por cada sala (AID, HorarioSala, ...)
+ */
+public class CatalogoSalas<T> {
+    private final Map<String, Campus<T>> porCampus = new HashMap<>();
+
+    private static class Campus<T> {
+        final int[] capacidades; // ascendente
+        final List<T> salas; // en el mismo orden que capacidades
+
+        Campus(int[] capacidades, List<T> salas) {
+            this.capacidades = capacidades;
+            this.salas = salas;
+        }
+    }
+
+    public CatalogoSalas(Collection<T> salas, Function<T, String> campus, ToIntFunction<T> capacidad) {
+        Map<String, List<T>> agrupadas = new HashMap<>();
+        for (T sala : salas) {
+            agrupadas.computeIfAbsent(campus.apply(sala), k -> new ArrayList<>()).add(sala);
+        }
+
+        for (Map.Entry<String, List<T>> entry : agrupadas.entrySet()) {
+            List<T> ordenadas = entry.getValue();
+            ordenadas.sort(Comparator.comparingInt(capacidad)); // estable: conserva el orden de entrada en empates
+
+            int[] capacidades = new int[ordenadas.size()];
+            for (int i = 0; i < capacidades.length; i++) {
+                capacidades[i] = capacidad.applyAsInt(ordenadas.get(i));
+            }
+            porCampus.put(entry.getKey(), new Campus<>(capacidades, Collections.unmodifiableList(ordenadas)));
+        }
+    }
+
+    /**
+     * Salas del campus con capacidad mayor o igual a {@code vacantes}, de menor a mayor capacidad.
+     * La lista es una vista de solo lectura; no se copia.
+     */
+    public List<T> candidatas(String campus, int vacantes) {
+        Campus<T> salas = porCampus.get(campus);
+        if (salas == null) {
+            return Collections.emptyList();
+        }
+        int desde = primeraConCapacidad(salas.capacidades, vacantes);
+        return salas.salas.subList(desde, salas.salas.size());
+    }
+
+    // Primer índice con capacidad >= vacantes
+    private static int primeraConCapacidad(int[] capacidades, int vacantes) {
+        int lo = 0;
+        int hi = capacidades.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (capacidades[mid] < vacantes) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,43 @@
+package objetos;
+
+import java.util.List;
+
+/**
+ * Datos de entrada de un profesor (inputOfProfesores.json), ya convertidos a objetos.
+ */
+public class DatosProfesor {
+    private final String nombre;
+    private final String rut;
+    private final int turno;
+    private final List<Asignatura> asignaturas;
+
+    public DatosProfesor(String nombre, String rut, int turno, List<Asignatura> asignaturas) {
+        this.nombre = nombre;
+        this.rut = rut;
+        this.turno = turno;
+        this.asignaturas = asignaturas;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public String getRut() {
+        return rut;
+    }
+
+    public int getTurno() {
+        return turno;
+    }
+
+    public List<Asignatura> getAsignaturas() {
+        return asignaturas;
+    }
+
+    /**
+     * Mismo profesor con otra lista de asignaturas (por ejemplo, con los paralelos ya separados).
+     */
+    public DatosProfesor conAsignaturas(List<Asignatura> asignaturas) {
+        return new DatosProfesor(nombre, rut, turno, asignaturas);
+    }
+}
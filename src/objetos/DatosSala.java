@@ -0,0 +1,34 @@
+package objetos;
+
+/**
+ * Datos de entrada de una sala (inputOfSala.json), ya convertidos a objetos.
+ */
+public class DatosSala {
+    private final String codigo;
+    private final String campus;
+    private final int capacidad;
+    private final int turno;
+
+    public DatosSala(String codigo, String campus, int capacidad, int turno) {
+        this.codigo = codigo;
+        this.campus = campus;
+        this.capacidad = capacidad;
+        this.turno = turno;
+    }
+
+    public String getCodigo() {
+        return codigo;
+    }
+
+    public String getCampus() {
+        return campus;
+    }
+
+    public int getCapacidad() {
+        return capacidad;
+    }
+
+    public int getTurno() {
+        return turno;
+    }
+}
@@ -0,0 +1,288 @@
+package objetos;
+
+import constants.Commons;
+import constants.enums.Day;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+import java.util.*;
+
+/**
+ * Horario de un profesor: asignatura en negociación, bloques ocupados por día y bloques asignados
+ * por instancia de asignatura, junto con las asignaciones de salida.
+ * No depende de JADE, por lo que puede usarse desde los behaviours, los benchmarks o el motor headless.
+ * <p>
+ * Los bloques se indexan como en OcupacionSala ({@code dia * 9 + (bloque - 1)}): cada slot guarda la
+ * instancia de asignatura y su BloqueInfo, y cada instancia y asignatura su máscara semanal, de modo
+ * que las consultas del scoring de propuestas son de tiempo constante.
+ */
+public class HorarioProfesor {
+    private static final int BLOQUES_POR_DIA = Commons.MAX_BLOQUE_DIURNO;
+    private static final int MASCARA_DIA = (1 << BLOQUES_POR_DIA) - 1;
+    private static final Day[] DIAS = Day.values();
+
+    private final List<Asignatura> asignaturas;
+    private final List<AsignacionProfesor> asignaciones = new ArrayList<>(); // en orden de confirmación
+    private int asignaturaActual = 0;
+    private int currentInstanceIndex = 0;
+
+    // Índice de bloques ocupados
+    private long ocupados;
+    private final BloqueInfo[] slotInfo = new BloqueInfo[BLOQUES_POR_DIA * DIAS.length];
+    private final int[] slotInstancia = new int[BLOQUES_POR_DIA * DIAS.length];
+    private final List<String> instancias = new ArrayList<>(); // id -> "nombre-codigo-indice"
+    private final Map<String, Integer> idInstancia = new HashMap<>();
+    private long[] mascaraInstancia = new long[8];
+    private final Map<String, long[]> mascaraAsignatura = new HashMap<>(); // nombre -> {mascara}
+
+    public HorarioProfesor(List<Asignatura> asignaturas) {
+        this.asignaturas = asignaturas;
+    }
+
+    public List<Asignatura> getAsignaturas() {
+        return asignaturas;
+    }
+
+    /**
+     * Bloques confirmados, en el orden en que se asignaron. La lista es de solo lectura.
+     */
+    public List<AsignacionProfesor> getAsignaciones() {
+        return Collections.unmodifiableList(asignaciones);
+    }
+
+    /**
+     * Vista JSON de las asignaciones ({@code {"Asignaturas": [...]}}) para la ventana de depuración.
+     * Se construye en cada llamada.
+     */
+    public JSONObject getHorarioJSON() {
+        JSONArray asignaturasJSON = new JSONArray();
+        for (AsignacionProfesor asignacion : asignaciones) {
+            JSONObject asignatura = new JSONObject();
+            asignatura.put("Nombre", asignacion.getNombre());
+            asignatura.put("Sala", asignacion.getSala());
+            asignatura.put("Bloque", asignacion.getBloque());
+            asignatura.put("Dia", asignacion.getDia().getDisplayName());
+            asignatura.put("Satisfaccion", asignacion.getSatisfaccion());
+            asignatura.put("CodigoAsignatura", asignacion.getCodigoAsignatura());
+            asignatura.put("Instance", asignacion.getInstance());
+            asignaturasJSON.add(asignatura);
+        }
+
+        JSONObject horarioJSON = new JSONObject();
+        horarioJSON.put("Asignaturas", asignaturasJSON);
+        return horarioJSON;
+    }
+
+    public int getAsignaturaActual() {
+        return asignaturaActual;
+    }
+
+    public int getCurrentInstanceIndex() {
+        return currentInstanceIndex;
+    }
+
+    public boolean canUseMoreSubjects() {
+        try {
+            // First check basic index bounds
+            if (asignaturaActual >= asignaturas.size()) {
+                return false;
+            }
+
+            // Validate the current subject exists
+            Asignatura current = asignaturas.get(asignaturaActual);
+            if (current == null) {
+                System.out.println("Warning: Null subject at index " + asignaturaActual);
+                return false;
+            }
+
+            return true;
+        } catch (IndexOutOfBoundsException e) {
+            System.err.printf("Index out of bounds checking for more subjects: %d/%d%n",
+                    asignaturaActual, asignaturas.size());
+            return false;
+        }
+    }
+
+    public Asignatura getCurrentSubject() {
+        if (!canUseMoreSubjects()) {
+            return null;
+        }
+        return asignaturas.get(asignaturaActual);
+    }
+
+    public void moveToNextSubject() {
+        System.out.printf("[MOVE] Moving from subject index %d (total: %d)%n",
+                asignaturaActual, asignaturas.size());
+
+        if (asignaturaActual >= asignaturas.size()) {
+            System.out.println("[MOVE] Already at last subject");
+            return;
+        }
+
+        String currentName = getCurrentSubject().getNombre();
+        String currentCode = getCurrentSubject().getCodigoAsignatura();
+        asignaturaActual++;
+
+        if (asignaturaActual < asignaturas.size()) {
+            Asignatura next = asignaturas.get(asignaturaActual);
+            if (next.getNombre().equals(currentName) &&
+                    next.getCodigoAsignatura().equals(currentCode)) {
+                currentInstanceIndex++;
+                System.out.printf("[MOVE] Moving to next instance (%d) of %s%n",
+                        currentInstanceIndex, currentName);
+            } else {
+                currentInstanceIndex = 0;
+                System.out.printf("[MOVE] Moving to new subject %s%n",
+                        next.getNombre());
+            }
+        } else {
+            System.out.println("[MOVE] Reached end of subjects");
+        }
+    }
+
+    private static String instanceKey(Asignatura asignatura, int instancia) {
+        return String.format("%s-%s-%d",
+                asignatura.getNombre(),
+                asignatura.getCodigoAsignatura(),
+                instancia);  // Instance index
+    }
+
+    private static int indice(Day dia, int bloque) {
+        return dia.ordinal() * BLOQUES_POR_DIA + (bloque - 1);
+    }
+
+    private static boolean bloqueValido(int bloque) {
+        return bloque >= 1 && bloque <= BLOQUES_POR_DIA;
+    }
+
+    private static int mascaraDia(long mascara, Day dia) {
+        return (int) (mascara >>> (dia.ordinal() * BLOQUES_POR_DIA)) & MASCARA_DIA;
+    }
+
+    private static List<Integer> bloquesDe(int mascaraDia) {
+        List<Integer> bloques = new ArrayList<>(Integer.bitCount(mascaraDia));
+        while (mascaraDia != 0) {
+            bloques.add(Integer.numberOfTrailingZeros(mascaraDia) + 1);
+            mascaraDia &= mascaraDia - 1;
+        }
+        return bloques;
+    }
+
+    /**
+     * Registra un bloque confirmado por una sala para la asignatura actual.
+     */
+    public void registrarAsignacion(Day dia, String sala, int bloque, int satisfaccion) {
+        registrarBloque(dia, getCurrentSubject(), currentInstanceIndex, bloque);
+
+        // Get current subject
+        Asignatura currentSubject = asignaturas.get(asignaturaActual);
+        asignaciones.add(new AsignacionProfesor(currentSubject.getNombre(), sala, bloque, dia, satisfaccion,
+                currentSubject.getCodigoAsignatura(), currentInstanceIndex));
+    }
+
+    /**
+     * Vuelve al estado de un profesor que ya había terminado (checkpoint): bloques, asignaciones y progreso.
+     */
+    public void restaurar(int asignaturaActual, int currentInstanceIndex, List<AsignacionProfesor> asignaciones) {
+        for (AsignacionProfesor asignacion : asignaciones) {
+            for (Asignatura asignatura : asignaturas) {
+                if (asignatura.getNombre().equals(asignacion.getNombre()) &&
+                        asignatura.getCodigoAsignatura().equals(asignacion.getCodigoAsignatura())) {
+                    registrarBloque(asignacion.getDia(), asignatura, asignacion.getInstance(), asignacion.getBloque());
+                    break;
+                }
+            }
+            this.asignaciones.add(asignacion);
+        }
+        this.asignaturaActual = asignaturaActual;
+        this.currentInstanceIndex = currentInstanceIndex;
+    }
+
+    /**
+     * Marca el bloque como ocupado por la instancia {@code instancia} de la asignatura.
+     * Un bloque fuera de 1..9 o ya ocupado se ignora.
+     */
+    public void registrarBloque(Day dia, Asignatura asignatura, int instancia, int bloque) {
+        if (!bloqueValido(bloque) || !isBlockAvailable(dia, bloque)) {
+            return;
+        }
+
+        int i = indice(dia, bloque);
+        int id = idInstancia.computeIfAbsent(instanceKey(asignatura, instancia), key -> {
+            instancias.add(key);
+            if (instancias.size() > mascaraInstancia.length) {
+                mascaraInstancia = Arrays.copyOf(mascaraInstancia, mascaraInstancia.length * 2);
+            }
+            return instancias.size() - 1;
+        });
+
+        ocupados |= 1L << i;
+        slotInfo[i] = new BloqueInfo(asignatura.getCampus(), bloque);
+        slotInstancia[i] = id;
+        mascaraInstancia[id] |= 1L << i;
+        mascaraAsignatura.computeIfAbsent(asignatura.getNombre(), k -> new long[1])[0] |= 1L << i;
+    }
+
+    public boolean isBlockAvailable(Day dia, int bloque) {
+        return !bloqueValido(bloque) || (ocupados & (1L << indice(dia, bloque))) == 0;
+    }
+
+    /**
+     * Bloques de la asignatura (todas sus instancias) en la semana, con el bit {@code dia * 9 + (bloque - 1)}.
+     */
+    public long getSubjectMask(String nombreAsignatura) {
+        long[] mascara = mascaraAsignatura.get(nombreAsignatura);
+        return mascara == null ? 0L : mascara[0];
+    }
+
+    /**
+     * Bloques de la asignatura en el día, con el bit 0 para el bloque 1.
+     */
+    public int getSubjectDayMask(String nombreAsignatura, Day dia) {
+        return mascaraDia(getSubjectMask(nombreAsignatura), dia);
+    }
+
+    /**
+     * Bloques ocupados del profesor en el día, con el bit 0 para el bloque 1.
+     */
+    public int getDayMask(Day dia) {
+        return mascaraDia(ocupados, dia);
+    }
+
+    public Map<String, List<Integer>> getBlocksByDay(Day dia) {
+        Map<String, List<Integer>> result = new HashMap<>();
+        for (int id = 0; id < instancias.size(); id++) {
+            int mascara = mascaraDia(mascaraInstancia[id], dia);
+            if (mascara != 0) {
+                result.put(instancias.get(id), bloquesDe(mascara));
+            }
+        }
+        return result;
+    }
+
+    public Map<Day, List<Integer>> getBlocksBySubject(String nombreAsignatura) {
+        Map<Day, List<Integer>> bloquesAsignados = new HashMap<>();
+        long mascara = getSubjectMask(nombreAsignatura);
+        for (Day dia : DIAS) {
+            int delDia = mascaraDia(mascara, dia);
+            if (delDia != 0) {
+                bloquesAsignados.put(dia, bloquesDe(delDia));
+            }
+        }
+        return bloquesAsignados;
+    }
+
+    /**
+     * Instancia ("nombre-codigo-indice") que ocupa el bloque, o null si está libre.
+     */
+    public String getInstanceAt(Day dia, int bloque) {
+        return isBlockAvailable(dia, bloque) ? null : instancias.get(slotInstancia[indice(dia, bloque)]);
+    }
+
+    /**
+     * Campus de la asignatura que ocupa el bloque, o null si está libre o fuera de rango.
+     */
+    public BloqueInfo getBloqueInfo(Day dia, int bloque) {
+        return bloqueValido(bloque) ? slotInfo[indice(dia, bloque)] : null;
+    }
+}
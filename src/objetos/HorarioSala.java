@@ -0,0 +1,218 @@
+package objetos;
+
+import constants.Commons;
+import constants.enums.Day;
+import objetos.helper.BatchAssignmentConfirmation;
+import objetos.helper.BatchAssignmentRequest;
+import service.BitmaskTimetablingEvaluator;
+
+import java.util.*;
+
+/**
+ * Horario semanal de una sala y la lógica con la que responde a los CFP y ACCEPT de los profesores.
+ * No depende de JADE: lo usan tanto AgenteSala como el motor headless.
+ */
+public class HorarioSala {
+    private final String codigo;
+    private final String campus;
+    private final int capacidad;
+    private final int turno;
+    private final OcupacionSala ocupacion = new OcupacionSala(); // bloques ocupados de la semana
+    private final Map<Day, Integer> dayLoadCount = new HashMap<>();
+
+    public HorarioSala(String codigo, String campus, int capacidad, int turno) {
+        this.codigo = codigo;
+        this.campus = campus;
+        this.capacidad = capacidad;
+        this.turno = turno;
+    }
+
+    public String getCodigo() {
+        return codigo;
+    }
+
+    public String getCampus() {
+        return campus;
+    }
+
+    public int getCapacidad() {
+        return capacidad;
+    }
+
+    public int getTurno() {
+        return turno;
+    }
+
+    public OcupacionSala getOcupacion() {
+        return ocupacion;
+    }
+
+    /**
+     * Vista día -> asignaciones por bloque (null si está libre), en el formato que espera SalaHorarioJSON.
+     * Se construye en cada llamada.
+     */
+    public Map<Day, List<AsignacionSala>> getHorarioOcupado() {
+        return ocupacion.toMapa();
+    }
+
+    /**
+     * Vuelve a ocupar los bloques de un checkpoint.
+     * @param bloques Una asignación (o null) por bloque de la semana, indexados como en OcupacionSala.
+     */
+    public void restaurar(AsignacionSala[] bloques) {
+        Day[] dias = Day.values();
+        for (int i = 0; i < bloques.length; i++) {
+            if (bloques[i] != null) {
+                ocupacion.ocupar(dias[i / OcupacionSala.BLOQUES_POR_DIA], i % OcupacionSala.BLOQUES_POR_DIA + 1, bloques[i]);
+            }
+        }
+    }
+
+    /**
+     * Evalúa una solicitud de un profesor.
+     * @return La disponibilidad a proponer, o null si la sala debe rechazar la solicitud.
+     */
+    public ClassroomAvailability evaluarSolicitud(String nombreAsignatura, int vacantes, int nivel,
+                                                  String preferredCampus, int remainingHours) {
+        // Get available blocks with enhanced distribution
+        Map<String, List<Integer>> availableBlocks = getOptimizedAvailableBlocks(
+                nombreAsignatura,
+                nivel,
+                preferredCampus,
+                remainingHours
+        );
+
+        if (availableBlocks.isEmpty()) {
+            return null;
+        }
+
+        int satisfaccion = calculateBestSatisfaction(
+                availableBlocks,
+                vacantes,
+                nivel,
+                preferredCampus
+        );
+
+        return new ClassroomAvailability(
+                codigo,
+                campus,
+                capacidad,
+                availableBlocks,
+                satisfaccion
+        );
+    }
+
+    /**
+     * Aplica las asignaciones de un ACCEPT sobre los bloques que siguen libres.
+     * @return Las asignaciones efectivamente confirmadas (puede ser vacía).
+     */
+    public List<BatchAssignmentConfirmation.ConfirmedAssignment> confirmarAsignaciones(BatchAssignmentRequest batchRequest) {
+        List<BatchAssignmentConfirmation.ConfirmedAssignment> confirmedAssignments = new ArrayList<>();
+
+        for (BatchAssignmentRequest.AssignmentRequest request : batchRequest.getAssignments()) {
+            if (!request.getClassroomCode().equals(codigo)) {
+                continue;
+            }
+
+            float capacidadFraccion = (float) request.getVacancy() / capacidad;
+            AsignacionSala nuevaAsignacion = new AsignacionSala(
+                    request.getSubjectName(),
+                    request.getSatisfaction(),
+                    capacidadFraccion
+            );
+
+            if (ocupacion.ocupar(request.getDay(), request.getBlock(), nuevaAsignacion)) {
+                confirmedAssignments.add(new BatchAssignmentConfirmation.ConfirmedAssignment(
+                        request.getDay(),
+                        request.getBlock(),
+                        codigo,
+                        request.getSatisfaction()
+                ));
+            }
+        }
+
+        return confirmedAssignments;
+    }
+
+    private int calculateBestSatisfaction(
+            Map<String, List<Integer>> availableBlocks,
+            int studentsCount,
+            int nivel,
+            String preferredCampus) {
+
+        // Each candidate is scored as "current week + that block" on the occupancy mask;
+        // the days with large gaps are computed once for all candidates
+        long semana = ocupacion.getMascara();
+        int diasConHueco = BitmaskTimetablingEvaluator.diasConHueco(semana);
+        int bestSatisfaction = 0;
+
+        // Evaluate each day and block combination
+        for (Map.Entry<String, List<Integer>> entry : availableBlocks.entrySet()) {
+            Day day = Day.fromString(entry.getKey());
+
+            for (int block : entry.getValue()) {
+                int satisfaction = BitmaskTimetablingEvaluator.calculateSatisfactionDelta(
+                        capacidad,
+                        studentsCount,
+                        nivel,
+                        campus,
+                        preferredCampus,
+                        semana,
+                        diasConHueco,
+                        day,
+                        block
+                );
+
+                bestSatisfaction = Math.max(bestSatisfaction, satisfaction);
+            }
+        }
+
+        return bestSatisfaction;
+    }
+
+    private Map<String, List<Integer>> getOptimizedAvailableBlocks(
+            String asignatura,
+            int nivel,
+            String preferredCampus,
+            int remainingHours) {
+
+        Map<String, List<Integer>> availableBlocks = new HashMap<>();
+
+        for (Day dia : Day.values()) {
+            // Calculate day load
+            int currentDayLoad = dayLoadCount.getOrDefault(dia, 0);
+            int subjectDayLoad = ocupacion.contarBloquesAsignaturaDia(dia, asignatura);
+
+            // Skip overloaded days
+            if (currentDayLoad >= 6 || subjectDayLoad >= 2) continue;
+
+            List<Integer> freeBlocks = findOptimalBlocksForDay(
+                    dia,
+                    nivel,
+                    remainingHours
+            );
+
+            if (!freeBlocks.isEmpty()) {
+                availableBlocks.put(dia.toString(), freeBlocks);
+            }
+        }
+
+        return availableBlocks;
+    }
+
+    private List<Integer> findOptimalBlocksForDay(
+            Day dia,
+            int nivel,
+            int remainingHours) {
+
+        boolean isOddYear = nivel % 2 == 1;
+
+        // Determine preferred time slots
+        int startBlock = isOddYear ? 1 : 5;
+        int endBlock = isOddYear ? 4 : Commons.MAX_BLOQUE_DIURNO;
+
+        // First run of consecutive free blocks, up to the remaining hours
+        int tramo = ocupacion.primerTramoLibre(dia, startBlock, endBlock, remainingHours);
+        return OcupacionSala.bloquesDe(tramo);
+    }
+}
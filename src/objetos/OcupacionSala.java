@@ -0,0 +1,165 @@
+package objetos;
+
+import constants.Commons;
+import constants.enums.Day;
+
+import java.util.*;
+
+/**
+ * Ocupación semanal de una sala empaquetada en un long: el bit {@code dia * 9 + (bloque - 1)}
+ * está encendido si el bloque está asignado. La semana completa (5 días x 9 bloques) usa 45 bits.
+ * En paralelo se guarda la asignación de cada bloque (para el JSON) y, por asignatura, la máscara de
+ * los bloques que ocupa, de modo que los conteos por día son un {@code bitCount}.
+ */
+public class OcupacionSala {
+    public static final int BLOQUES_POR_DIA = Commons.MAX_BLOQUE_DIURNO;
+    public static final int TOTAL_BLOQUES = BLOQUES_POR_DIA * Day.values().length;
+    public static final int MASCARA_DIA = (1 << BLOQUES_POR_DIA) - 1;
+
+    private static final Day[] DIAS = Day.values();
+
+    private long ocupados;
+    private final AsignacionSala[] asignaciones = new AsignacionSala[TOTAL_BLOQUES];
+
+    // nombre de asignatura -> id, e id -> bloques que ocupa en la semana
+    private final Map<String, Integer> ids = new HashMap<>();
+    private long[] mascarasAsignatura = new long[8];
+
+    private static int indice(Day dia, int bloque) {
+        return dia.ordinal() * BLOQUES_POR_DIA + (bloque - 1);
+    }
+
+    private static boolean bloqueValido(int bloque) {
+        return bloque >= 1 && bloque <= BLOQUES_POR_DIA;
+    }
+
+    public long getMascara() {
+        return ocupados;
+    }
+
+    /**
+     * Bloques ocupados de un día, con el bit 0 para el bloque 1.
+     */
+    public int getMascaraDia(Day dia) {
+        return (int) (ocupados >>> (dia.ordinal() * BLOQUES_POR_DIA)) & MASCARA_DIA;
+    }
+
+    public boolean isLibre(Day dia, int bloque) {
+        return bloqueValido(bloque) && (ocupados & (1L << indice(dia, bloque))) == 0;
+    }
+
+    public AsignacionSala getAsignacion(Day dia, int bloque) {
+        return bloqueValido(bloque) ? asignaciones[indice(dia, bloque)] : null;
+    }
+
+    /**
+     * Ocupa el bloque si está libre.
+     * @return false si el bloque no existe o ya estaba ocupado.
+     */
+    public boolean ocupar(Day dia, int bloque, AsignacionSala asignacion) {
+        if (!isLibre(dia, bloque)) {
+            return false;
+        }
+
+        int i = indice(dia, bloque);
+        int id = idDe(asignacion.getNombreAsignatura());
+        ocupados |= 1L << i;
+        asignaciones[i] = asignacion;
+        mascarasAsignatura[id] |= 1L << i;
+        return true;
+    }
+
+    private int idDe(String nombreAsignatura) {
+        Integer id = ids.get(nombreAsignatura);
+        if (id == null) {
+            id = ids.size();
+            ids.put(nombreAsignatura, id);
+            if (id >= mascarasAsignatura.length) {
+                mascarasAsignatura = Arrays.copyOf(mascarasAsignatura, mascarasAsignatura.length * 2);
+            }
+        }
+        return id;
+    }
+
+    public int contarBloquesDia(Day dia) {
+        return Integer.bitCount(getMascaraDia(dia));
+    }
+
+    public int contarBloquesAsignaturaDia(Day dia, String nombreAsignatura) {
+        Integer id = ids.get(nombreAsignatura);
+        if (id == null) {
+            return 0;
+        }
+        long delDia = mascarasAsignatura[id] >>> (dia.ordinal() * BLOQUES_POR_DIA);
+        return Integer.bitCount((int) delDia & MASCARA_DIA);
+    }
+
+    /**
+     * Primer tramo de bloques libres consecutivos dentro de [desde, hasta], truncado a {@code maxBloques}
+     * (siempre incluye al menos el primer bloque libre).
+     * @return Máscara del tramo con el bit 0 para el bloque 1, o 0 si no hay bloques libres.
+     */
+    public int primerTramoLibre(Day dia, int desde, int hasta, int maxBloques) {
+        int rango = ((1 << hasta) - 1) & ~((1 << (desde - 1)) - 1);
+        int libres = ~getMascaraDia(dia) & rango;
+        if (libres == 0) {
+            return 0;
+        }
+
+        int inicio = Integer.numberOfTrailingZeros(libres);
+        int largo = Integer.numberOfTrailingZeros(~(libres >>> inicio));
+        largo = Math.max(1, Math.min(largo, maxBloques));
+        return ((1 << largo) - 1) << inicio;
+    }
+
+    /**
+     * Largo del mayor tramo de bloques ocupados consecutivos en el día.
+     */
+    public int maxBloquesConsecutivos(Day dia) {
+        int mascara = getMascaraDia(dia);
+        int largo = 0;
+        while (mascara != 0) {
+            mascara &= mascara << 1;
+            largo++;
+        }
+        return largo;
+    }
+
+    /**
+     * Convierte una máscara de día en la lista de bloques (1..9) que contiene.
+     */
+    public static List<Integer> bloquesDe(int mascaraDia) {
+        List<Integer> bloques = new ArrayList<>(Integer.bitCount(mascaraDia));
+        while (mascaraDia != 0) {
+            bloques.add(Integer.numberOfTrailingZeros(mascaraDia) + 1);
+            mascaraDia &= mascaraDia - 1;
+        }
+        return bloques;
+    }
+
+    /**
+     * Bloques ocupados por día (solo días con asignaciones), en orden creciente.
+     */
+    public Map<Day, List<Integer>> toBloquesPorDia() {
+        Map<Day, List<Integer>> result = new HashMap<>();
+        for (Day dia : DIAS) {
+            int mascara = getMascaraDia(dia);
+            if (mascara != 0) {
+                result.put(dia, bloquesDe(mascara));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Vista día -> lista de 9 asignaciones (null si el bloque está libre), el formato de SalaHorarioJSON.
+     */
+    public Map<Day, List<AsignacionSala>> toMapa() {
+        Map<Day, List<AsignacionSala>> result = new HashMap<>();
+        for (Day dia : DIAS) {
+            int base = dia.ordinal() * BLOQUES_POR_DIA;
+            result.put(dia, new ArrayList<>(Arrays.asList(asignaciones).subList(base, base + BLOQUES_POR_DIA)));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,68 @@
+package objetos.helper;
+
+import constants.enums.Day;
+import objetos.Asignatura;
+import objetos.AssignationData;
+
+/**
+ * Contenido de un CFP del profesor a las salas. Se arma una vez por ronda y viaja codificado con
+ * MessageCodec, así la sala no tiene que separar ni sanitizar texto en cada solicitud.
+ */
+public class CFPRequest {
+    private final String subjectName; // ya sanitizado
+    private final int vacancies;
+    private final int level;
+    private final String campus;
+    private final int pendingBlocks;
+    private final String lastRoom; // "" si aún no hay sala asignada
+    private final Day lastDay; // null si aún no hay bloque asignado
+    private final int lastBlock; // -1 si aún no hay bloque asignado
+
+    public CFPRequest(String subjectName, int vacancies, int level, String campus, int pendingBlocks,
+                      String lastRoom, Day lastDay, int lastBlock) {
+        this.subjectName = subjectName;
+        this.vacancies = vacancies;
+        this.level = level;
+        this.campus = campus;
+        this.pendingBlocks = pendingBlocks;
+        this.lastRoom = lastRoom;
+        this.lastDay = lastDay;
+        this.lastBlock = lastBlock;
+    }
+
+    public static CFPRequest of(Asignatura subject, int pendingBlocks, AssignationData assignationData) {
+        return new CFPRequest(
+                sanitizeSubjectName(subject.getNombre()),
+                subject.getVacantes(),
+                subject.getNivel(),
+                subject.getCampus(),
+                pendingBlocks,
+                assignationData.getSalaAsignada(),
+                assignationData.getUltimoDiaAsignado(),
+                assignationData.getUltimoBloqueAsignado()
+        );
+    }
+
+    /**
+     * Deja solo letras y dígitos ASCII (equivale a {@code replaceAll("[^a-zA-Z0-9]", "")}).
+     */
+    public static String sanitizeSubjectName(String name) {
+        StringBuilder sb = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    public String getSubjectName() { return subjectName; }
+    public int getVacancies() { return vacancies; }
+    public int getLevel() { return level; }
+    public String getCampus() { return campus; }
+    public int getPendingBlocks() { return pendingBlocks; }
+    public String getLastRoom() { return lastRoom; }
+    public Day getLastDay() { return lastDay; }
+    public int getLastBlock() { return lastBlock; }
+}
@@ -0,0 +1,324 @@
+package objetos.helper;
+
+import constants.Commons;
+import constants.enums.Day;
+import objetos.ClassroomAvailability;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Formato binario de los contenidos CFP, PROPOSE, ACCEPT_PROPOSAL e INFORM entre profesores y salas,
+ * en reemplazo de la serialización Java (se envían con {@code setByteSequenceContent}).
+ * <p>
+ * Los días van como ordinal y los bloques de un día como máscara de 9 bits (bit 0 = bloque 1).
+ * Las salas van como su id de RoomRegistry, o como {@link RoomRegistry#SIN_ID} seguido del código.
+ * Cada contenido empieza con un byte de tipo para detectar mensajes cruzados.
+ */
+public final class MessageCodec {
+    private static final byte TIPO_DISPONIBILIDAD = 1;
+    private static final byte TIPO_SOLICITUD = 2;
+    private static final byte TIPO_CONFIRMACION = 3;
+    private static final byte TIPO_CFP = 4;
+    private static final byte TIPO_DISPONIBILIDADES = 5;
+
+    private static final int SIN_DIA = 0xFF;
+
+    private static final Day[] DIAS = Day.values();
+
+    private MessageCodec() {
+    }
+
+    // Solicitud del profesor (CFP)
+
+    public static byte[] encode(CFPRequest request) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(48);
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeByte(TIPO_CFP);
+        out.writeUTF(request.getSubjectName());
+        out.writeShort(request.getVacancies());
+        out.writeByte(request.getLevel());
+        out.writeUTF(request.getCampus());
+        out.writeByte(request.getPendingBlocks());
+
+        boolean conSala = !request.getLastRoom().isEmpty();
+        out.writeBoolean(conSala);
+        if (conSala) {
+            writeSala(out, request.getLastRoom());
+        }
+        out.writeByte(request.getLastDay() != null ? request.getLastDay().ordinal() : SIN_DIA);
+        out.writeByte(request.getLastBlock());
+
+        return bytes.toByteArray();
+    }
+
+    public static CFPRequest decodeCFP(byte[] content) throws IOException {
+        DataInputStream in = open(content, TIPO_CFP);
+
+        String nombre = in.readUTF();
+        int vacantes = in.readUnsignedShort();
+        int nivel = in.readUnsignedByte();
+        String campus = in.readUTF();
+        int pendientes = in.readByte();
+        String ultimaSala = in.readBoolean() ? readSala(in) : "";
+        int ordinal = in.readUnsignedByte();
+        Day ultimoDia = null;
+        if (ordinal != SIN_DIA) {
+            if (ordinal >= DIAS.length) {
+                throw new IOException("Día inválido: " + ordinal);
+            }
+            ultimoDia = DIAS[ordinal];
+        }
+        int ultimoBloque = in.readByte();
+
+        return new CFPRequest(nombre, vacantes, nivel, campus, pendientes, ultimaSala, ultimoDia, ultimoBloque);
+    }
+
+    // Disponibilidad de una sala (PROPOSE)
+
+    public static byte[] encode(ClassroomAvailability availability) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeByte(TIPO_DISPONIBILIDAD);
+        writeDisponibilidad(out, availability);
+
+        return bytes.toByteArray();
+    }
+
+    public static ClassroomAvailability decodeAvailability(byte[] content) throws IOException {
+        return readDisponibilidad(open(content, TIPO_DISPONIBILIDAD));
+    }
+
+    // Disponibilidad de varias salas de un AgenteHostSalas (un solo PROPOSE)
+
+    public static byte[] encode(List<ClassroomAvailability> availabilities) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + 24 * availabilities.size());
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeByte(TIPO_DISPONIBILIDADES);
+        out.writeShort(availabilities.size());
+        for (ClassroomAvailability availability : availabilities) {
+            writeDisponibilidad(out, availability);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Lee el contenido de un PROPOSE, sea de una sala (AgenteSala) o de varias (AgenteHostSalas).
+     */
+    public static List<ClassroomAvailability> decodeAvailabilities(byte[] content) throws IOException {
+        if (content != null && content.length > 0 && content[0] == TIPO_DISPONIBILIDAD) {
+            return Collections.singletonList(decodeAvailability(content));
+        }
+
+        DataInputStream in = open(content, TIPO_DISPONIBILIDADES);
+        int total = in.readUnsignedShort();
+        List<ClassroomAvailability> availabilities = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            availabilities.add(readDisponibilidad(in));
+        }
+        return availabilities;
+    }
+
+    private static void writeDisponibilidad(DataOutputStream out, ClassroomAvailability availability)
+            throws IOException {
+        writeSala(out, availability.getCodigo());
+        out.writeUTF(availability.getCampus());
+        out.writeShort(availability.getCapacidad());
+        out.writeByte(availability.getSatisfactionScore());
+
+        Map<String, List<Integer>> bloques = availability.getAvailableBlocks();
+        out.writeByte(bloques.size());
+        for (Map.Entry<String, List<Integer>> entry : bloques.entrySet()) {
+            int mascara = 0;
+            for (int bloque : entry.getValue()) {
+                mascara |= 1 << indiceBloque(bloque);
+            }
+            out.writeByte(Day.fromString(entry.getKey()).ordinal());
+            out.writeShort(mascara);
+        }
+    }
+
+    private static ClassroomAvailability readDisponibilidad(DataInputStream in) throws IOException {
+        String codigo = readSala(in);
+        String campus = in.readUTF();
+        int capacidad = in.readUnsignedShort();
+        int satisfaccion = in.readByte();
+
+        int dias = in.readUnsignedByte();
+        Map<String, List<Integer>> bloques = new HashMap<>();
+        for (int i = 0; i < dias; i++) {
+            Day dia = readDia(in);
+            int mascara = in.readUnsignedShort();
+            List<Integer> delDia = new ArrayList<>(Integer.bitCount(mascara));
+            for (; mascara != 0; mascara &= mascara - 1) {
+                delDia.add(Integer.numberOfTrailingZeros(mascara) + 1);
+            }
+            bloques.put(dia.toString(), delDia);
+        }
+
+        return new ClassroomAvailability(codigo, campus, capacidad, bloques, satisfaccion);
+    }
+
+    // Lote de asignaciones pedidas a una sala (ACCEPT_PROPOSAL)
+
+    public static byte[] encode(BatchAssignmentRequest batchRequest) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        List<BatchAssignmentRequest.AssignmentRequest> assignments = batchRequest.getAssignments();
+
+        // Un lote suele ser de una sola asignatura: los nombres se escriben una vez
+        List<String> nombres = new ArrayList<>(1);
+        for (BatchAssignmentRequest.AssignmentRequest request : assignments) {
+            if (!nombres.contains(request.getSubjectName())) {
+                nombres.add(request.getSubjectName());
+            }
+        }
+
+        out.writeByte(TIPO_SOLICITUD);
+        out.writeByte(nombres.size());
+        for (String nombre : nombres) {
+            out.writeUTF(nombre);
+        }
+
+        out.writeShort(assignments.size());
+        for (BatchAssignmentRequest.AssignmentRequest request : assignments) {
+            writeSala(out, request.getClassroomCode());
+            out.writeByte(slot(request.getDay(), request.getBlock()));
+            out.writeByte(nombres.indexOf(request.getSubjectName()));
+            out.writeByte(request.getSatisfaction());
+            out.writeShort(request.getVacancy());
+        }
+
+        return bytes.toByteArray();
+    }
+
+    public static BatchAssignmentRequest decodeRequest(byte[] content) throws IOException {
+        DataInputStream in = open(content, TIPO_SOLICITUD);
+
+        String[] nombres = new String[in.readUnsignedByte()];
+        for (int i = 0; i < nombres.length; i++) {
+            nombres[i] = in.readUTF();
+        }
+
+        int total = in.readUnsignedShort();
+        List<BatchAssignmentRequest.AssignmentRequest> assignments = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            String sala = readSala(in);
+            int slot = in.readUnsignedByte();
+            int nombre = in.readUnsignedByte();
+            if (nombre >= nombres.length) {
+                throw new IOException("Índice de asignatura inválido: " + nombre);
+            }
+            int satisfaccion = in.readByte();
+            int vacantes = in.readUnsignedShort();
+            assignments.add(new BatchAssignmentRequest.AssignmentRequest(
+                    diaDe(slot), bloqueDe(slot), nombres[nombre], satisfaccion, sala, vacantes));
+        }
+
+        return new BatchAssignmentRequest(assignments);
+    }
+
+    // Asignaciones confirmadas por una sala (INFORM)
+
+    public static byte[] encode(BatchAssignmentConfirmation confirmation) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        List<BatchAssignmentConfirmation.ConfirmedAssignment> assignments = confirmation.getConfirmedAssignments();
+
+        out.writeByte(TIPO_CONFIRMACION);
+        out.writeShort(assignments.size());
+        for (BatchAssignmentConfirmation.ConfirmedAssignment assignment : assignments) {
+            writeSala(out, assignment.getClassroomCode());
+            out.writeByte(slot(assignment.getDay(), assignment.getBlock()));
+            out.writeByte(assignment.getSatisfaction());
+        }
+
+        return bytes.toByteArray();
+    }
+
+    public static BatchAssignmentConfirmation decodeConfirmation(byte[] content) throws IOException {
+        DataInputStream in = open(content, TIPO_CONFIRMACION);
+
+        int total = in.readUnsignedShort();
+        List<BatchAssignmentConfirmation.ConfirmedAssignment> assignments = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            String sala = readSala(in);
+            int slot = in.readUnsignedByte();
+            int satisfaccion = in.readByte();
+            assignments.add(new BatchAssignmentConfirmation.ConfirmedAssignment(
+                    diaDe(slot), bloqueDe(slot), sala, satisfaccion));
+        }
+
+        return new BatchAssignmentConfirmation(assignments);
+    }
+
+    // Helpers
+
+    private static DataInputStream open(byte[] content, byte tipo) throws IOException {
+        if (content == null || content.length == 0) {
+            throw new IOException("Contenido vacío");
+        }
+        if (content[0] != tipo) {
+            throw new IOException("Tipo de contenido inesperado: " + content[0] + " (se esperaba " + tipo + ")");
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(content));
+        in.skipBytes(1);
+        return in;
+    }
+
+    private static void writeSala(DataOutputStream out, String codigo) throws IOException {
+        int id = RoomRegistry.idOf(codigo);
+        out.writeInt(id);
+        if (id == RoomRegistry.SIN_ID) {
+            out.writeUTF(codigo);
+        }
+    }
+
+    private static String readSala(DataInputStream in) throws IOException {
+        int id = in.readInt();
+        if (id == RoomRegistry.SIN_ID) {
+            return in.readUTF();
+        }
+        String codigo = RoomRegistry.codeOf(id);
+        if (codigo == null) {
+            throw new IOException("Id de sala desconocido: " + id);
+        }
+        return codigo;
+    }
+
+    private static Day readDia(DataInputStream in) throws IOException {
+        int ordinal = in.readUnsignedByte();
+        if (ordinal >= DIAS.length) {
+            throw new IOException("Día inválido: " + ordinal);
+        }
+        return DIAS[ordinal];
+    }
+
+    private static int indiceBloque(int bloque) throws IOException {
+        if (bloque < 1 || bloque > Commons.MAX_BLOQUE_DIURNO) {
+            throw new IOException("Bloque fuera de rango: " + bloque);
+        }
+        return bloque - 1;
+    }
+
+    // Día y bloque en un byte: dia * 9 + (bloque - 1)
+    private static int slot(Day dia, int bloque) throws IOException {
+        return dia.ordinal() * Commons.MAX_BLOQUE_DIURNO + indiceBloque(bloque);
+    }
+
+    private static Day diaDe(int slot) throws IOException {
+        int ordinal = slot / Commons.MAX_BLOQUE_DIURNO;
+        if (ordinal >= DIAS.length) {
+            throw new IOException("Bloque semanal inválido: " + slot);
+        }
+        return DIAS[ordinal];
+    }
+
+    private static int bloqueDe(int slot) {
+        return slot % Commons.MAX_BLOQUE_DIURNO + 1;
+    }
+}
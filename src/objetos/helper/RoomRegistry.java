@@ -0,0 +1,37 @@
+package objetos.helper;
+
+import java.util.*;
+
+/**
+ * Ids enteros de las salas, en el orden de inputOfSala.json.
+ * Todos los contenedores cargan el mismo archivo, así que el id de una sala es el mismo en todos;
+ * una sala sin id (registro vacío o código desconocido) viaja con su código completo.
+ */
+public final class RoomRegistry {
+    public static final int SIN_ID = -1;
+
+    private static volatile List<String> codigos = Collections.emptyList();
+    private static volatile Map<String, Integer> ids = Collections.emptyMap();
+
+    private RoomRegistry() {
+    }
+
+    public static synchronized void registrar(List<String> codigosSalas) {
+        List<String> nuevosCodigos = new ArrayList<>(codigosSalas);
+        Map<String, Integer> nuevosIds = new HashMap<>();
+        for (int i = 0; i < nuevosCodigos.size(); i++) {
+            nuevosIds.putIfAbsent(nuevosCodigos.get(i), i);
+        }
+        codigos = Collections.unmodifiableList(nuevosCodigos);
+        ids = nuevosIds;
+    }
+
+    public static int idOf(String codigo) {
+        return ids.getOrDefault(codigo, SIN_ID);
+    }
+
+    public static String codeOf(int id) {
+        List<String> actuales = codigos;
+        return id >= 0 && id < actuales.size() ? actuales.get(id) : null;
+    }
+}
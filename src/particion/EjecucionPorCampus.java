@@ -0,0 +1,112 @@
+package particion;
+
+import aplicacion.Aplicacion;
+import constants.Config;
+import json_stuff.JSONHelper;
+import json_stuff.JSONInputReader;
+import objetos.DatosSala;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Aplicacion --particionado: negocia cada campus en su propia JVM, al mismo tiempo, y luego mezcla las
+ * salidas (ver MezclaParticiones). Las salas de un campus solo reciben asignaturas de ese campus, así que
+ * las particiones no compiten entre sí; cada una escribe en su subcarpeta de agent_output, con su consola
+ * en ejecucion.log.
+ * <p>
+ * Los argumentos (--headless, --resume) y las opciones de la JVM se pasan tal cual a cada partición.
+ */
+public final class EjecucionPorCampus {
+    private static final String LOG = "ejecucion.log";
+
+    private EjecucionPorCampus() {
+    }
+
+    public static void ejecutar(String[] args) {
+        List<String> campus = campusDeEntrada();
+        if (campus.isEmpty()) {
+            return;
+        }
+
+        List<String> argumentos = new ArrayList<>(Arrays.asList(args));
+        argumentos.remove("--particionado");
+
+        long inicio = System.currentTimeMillis();
+        List<Process> procesos = new ArrayList<>();
+        try {
+            for (int i = 0; i < campus.size(); i++) {
+                procesos.add(lanzar(campus.get(i), Config.PUERTO_JADE + 1 + i, argumentos));
+            }
+
+            for (int i = 0; i < campus.size(); i++) {
+                int codigo = procesos.get(i).waitFor();
+                System.out.printf("[Particion] %s terminó con código %d en %d ms%n",
+                        campus.get(i), codigo, System.currentTimeMillis() - inicio);
+            }
+        } catch (IOException e) {
+            System.err.println("[Particion] No se pudo lanzar una partición: " + e.getMessage());
+            procesos.forEach(Process::destroy);
+            return;
+        } catch (InterruptedException e) {
+            procesos.forEach(Process::destroy);
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        MezclaParticiones.mezclar(campus);
+    }
+
+    /**
+     * Aplicacion --merge: mezcla las salidas que ya están en agent_output, sin volver a negociar.
+     */
+    public static void mezclar() {
+        List<String> campus = campusDeEntrada();
+        if (!campus.isEmpty()) {
+            MezclaParticiones.mezclar(campus);
+        }
+    }
+
+    // Campus de las salas de entrada, en orden alfabético
+    private static List<String> campusDeEntrada() {
+        try {
+            Set<String> campus = new TreeSet<>();
+            for (DatosSala sala : JSONInputReader.leerSalas("inputOfSala.json")) {
+                campus.add(sala.getCampus());
+            }
+            return new ArrayList<>(campus);
+        } catch (IOException e) {
+            System.err.println("[Particion] No se pudieron leer las salas: " + e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    private static Process lanzar(String campus, int puerto, List<String> argumentos) throws IOException {
+        List<String> comando = new ArrayList<>();
+        comando.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        // Mismas opciones de la JVM (-D, -Xmx, ...), salvo las propias de cada partición
+        for (String opcion : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (!opcion.startsWith("-Dparticion.campus=") && !opcion.startsWith("-Djade.puerto=")) {
+                comando.add(opcion);
+            }
+        }
+        comando.add("-Dparticion.campus=" + campus);
+        comando.add("-Djade.puerto=" + puerto);
+        comando.add("-cp");
+        comando.add(System.getProperty("java.class.path"));
+        comando.add(Aplicacion.class.getName());
+        comando.addAll(argumentos);
+
+        Path log = JSONHelper.particionPath(campus, LOG);
+        Files.createDirectories(log.getParent());
+        System.out.println("[Particion] " + campus + " (puerto " + puerto + "), consola en " + log);
+        return new ProcessBuilder(comando)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+    }
+}
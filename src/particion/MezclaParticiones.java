@@ -0,0 +1,161 @@
+package particion;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import constants.enums.Day;
+import json_stuff.JSONHelper;
+import json_stuff.JSONInputReader;
+import json_stuff.JSONProcessor;
+import metricas.MetricasHorario;
+import objetos.AsignacionSala;
+import objetos.DatosSala;
+import objetos.OcupacionSala;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Junta en agent_output los Horarios_asignados.json y Horarios_salas.json de las particiones por campus.
+ * Las salas se concatenan; los profesores con asignaturas en más de un campus quedan en un solo registro,
+ * con sus asignaturas, completadas y solicitudes sumadas.
+ * <p>
+ * Cada partición negoció sin ver los horarios de las otras, así que un profesor de ambos campus puede
+ * quedar con dos clases en el mismo bloque. Esos choques se listan en conflictos_campus.json.
+ * <p>
+ * Los metricas_*.json de agent_output se recalculan sobre el horario mezclado, con todas las salas y
+ * asignaturas de la entrada, como si la negociación hubiera sido una sola.
+ */
+public final class MezclaParticiones {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String PROFESORES = "Horarios_asignados.json";
+    private static final String SALAS = "Horarios_salas.json";
+    private static final String CONFLICTOS = "conflictos_campus.json";
+
+    private MezclaParticiones() {
+    }
+
+    /**
+     * @return La cantidad de bloques en que un profesor quedó en dos campus a la vez, o -1 si no se pudo mezclar.
+     */
+    public static int mezclar(List<String> campus) {
+        ArrayNode salas = MAPPER.createArrayNode();
+        Set<String> codigosSala = new HashSet<>();
+        Map<String, ObjectNode> profesores = new LinkedHashMap<>();
+        // Profesor -> "Dia-Bloque" -> asignación (con su campus) que ocupa ese bloque
+        Map<String, Map<String, ObjectNode>> ocupados = new HashMap<>();
+        ArrayNode conflictos = MAPPER.createArrayNode();
+
+        try {
+            for (String c : campus) {
+                Path archivoSalas = JSONHelper.particionPath(c, SALAS);
+                Path archivoProfesores = JSONHelper.particionPath(c, PROFESORES);
+                if (!Files.exists(archivoSalas)) {
+                    System.err.println("[Mezcla] Falta la salida de la partición " + c + ", se omite");
+                    continue;
+                }
+
+                for (JsonNode sala : MAPPER.readTree(archivoSalas.toFile())) {
+                    if (!codigosSala.add(sala.path("Codigo").asText())) {
+                        System.err.println("[Mezcla] Sala " + sala.path("Codigo").asText() + " repetida en " + c);
+                    }
+                    salas.add(sala);
+                }
+
+                // Una partición sin profesores no escribe Horarios_asignados.json
+                if (!Files.exists(archivoProfesores)) {
+                    continue;
+                }
+                for (JsonNode profesor : MAPPER.readTree(archivoProfesores.toFile())) {
+                    String nombre = profesor.path("Nombre").asText();
+                    agregarProfesor(profesores, (ObjectNode) profesor);
+
+                    Map<String, ObjectNode> bloques = ocupados.computeIfAbsent(nombre, n -> new HashMap<>());
+                    for (JsonNode asignacion : profesor.path("Asignaturas")) {
+                        ObjectNode conCampus = ((ObjectNode) asignacion).deepCopy().put("Campus", c);
+                        String bloque = asignacion.path("Dia").asText() + "-" + asignacion.path("Bloque").asInt();
+                        ObjectNode previa = bloques.putIfAbsent(bloque, conCampus);
+                        if (previa != null && !previa.path("Campus").asText().equals(c)) {
+                            ObjectNode conflicto = conflictos.addObject()
+                                    .put("Profesor", nombre)
+                                    .put("Dia", asignacion.path("Dia").asText())
+                                    .put("Bloque", asignacion.path("Bloque").asInt());
+                            conflicto.putArray("Asignaturas").add(previa).add(conCampus);
+                        }
+                    }
+                }
+            }
+
+            escribir(PROFESORES, MAPPER.createArrayNode().addAll(profesores.values()));
+            escribir(SALAS, salas);
+            escribir(CONFLICTOS, conflictos);
+            recalcularMetricas(salas);
+        } catch (IOException e) {
+            System.err.println("[Mezcla] Error mezclando las particiones: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+
+        System.out.printf("[Mezcla] %d salas y %d profesores de %d particiones%n",
+                salas.size(), profesores.size(), campus.size());
+        if (conflictos.size() > 0) {
+            System.out.printf("[Mezcla] WARNING: %d bloques con un profesor en dos campus a la vez, ver %s%n",
+                    conflictos.size(), CONFLICTOS);
+        }
+        return conflictos.size();
+    }
+
+    private static void agregarProfesor(Map<String, ObjectNode> profesores, ObjectNode profesor) {
+        ObjectNode combinado = profesores.putIfAbsent(profesor.path("Nombre").asText(), profesor);
+        if (combinado == null) {
+            return;
+        }
+
+        combinado.put("AsignaturasCompletadas",
+                combinado.path("AsignaturasCompletadas").asInt() + profesor.path("AsignaturasCompletadas").asInt());
+        combinado.put("Solicitudes", combinado.path("Solicitudes").asInt() + profesor.path("Solicitudes").asInt());
+        JsonNode asignaturas = combinado.get("Asignaturas");
+        JsonNode nuevas = profesor.get("Asignaturas");
+        if (!(nuevas instanceof ArrayNode)) {
+            return;
+        }
+        if (asignaturas instanceof ArrayNode) {
+            ((ArrayNode) asignaturas).addAll((ArrayNode) nuevas);
+        } else {
+            combinado.set("Asignaturas", nuevas);
+        }
+    }
+
+    // Mismas salas y asignaturas que registra Aplicacion sin particionar, y los bloques del horario mezclado
+    private static void recalcularMetricas(ArrayNode salas) throws IOException {
+        MetricasHorario metricas = MetricasHorario.getInstance();
+        List<DatosSala> datosSalas = JSONInputReader.leerSalas("inputOfSala.json");
+        for (DatosSala sala : datosSalas) {
+            metricas.registrarSala(sala.getCodigo(), sala.getCapacidad());
+        }
+        metricas.registrarAsignaturas(JSONInputReader.leerProfesores(
+                "inputOfProfesores.json", JSONProcessor.prepararParalelos(datosSalas)));
+
+        for (JsonNode sala : salas) {
+            OcupacionSala ocupacion = new OcupacionSala();
+            for (JsonNode asignacion : sala.path("Asignaturas")) {
+                ocupacion.ocupar(Day.fromString(asignacion.path("Dia").asText()), asignacion.path("Bloque").asInt(),
+                        new AsignacionSala(asignacion.path("Nombre").asText(),
+                                asignacion.path("Satisfaccion").asInt(),
+                                (float) asignacion.path("Capacidad").asDouble()));
+            }
+            metricas.restaurarSala(sala.path("Codigo").asText(), ocupacion);
+        }
+        metricas.generarArchivos();
+    }
+
+    private static void escribir(String fileName, ArrayNode contenido) throws IOException {
+        File destino = JSONHelper.outputPath(fileName).toFile();
+        MAPPER.writerWithDefaultPrettyPrinter().writeValue(destino, contenido);
+        System.out.println("[Mezcla] Archivo " + fileName + " generado");
+    }
+}
@@ -0,0 +1,164 @@
+package service;
+
+import constants.Commons;
+import constants.enums.Day;
+
+/**
+ * Variante de TimetablingEvaluator sobre la semana empaquetada de OcupacionSala
+ * (bit {@code dia * 9 + (bloque - 1)}), con los puntajes de capacidad y horario precalculados.
+ * No crea objetos, no usa streams ni ordena listas, y devuelve los mismos puntajes 1-10.
+ */
+public final class BitmaskTimetablingEvaluator {
+    private static final int BLOQUES_POR_DIA = Commons.MAX_BLOQUE_DIURNO;
+    private static final int MASCARA_DIA = (1 << BLOQUES_POR_DIA) - 1;
+    private static final int DIAS = Day.values().length;
+
+    // Capacidad de sala hasta la que se precalcula la tabla de ocupación
+    private static final int MAX_CAPACIDAD_TABLA = 128;
+
+    // [capacidad sala][estudiantes], solo para estudiantes en [MIN_STUDENTS, MAX_STUDENTS]
+    private static final double[][] CAPACITY_SCORES = new double[MAX_CAPACIDAD_TABLA + 1][];
+
+    // [primer año / nivel impar / nivel par][bloque 0..9]
+    private static final double[][] TIME_SLOT_SCORES = new double[3][BLOQUES_POR_DIA + 1];
+
+    static {
+        for (int capacidad = 0; capacidad <= MAX_CAPACIDAD_TABLA; capacidad++) {
+            double[] fila = new double[TimetablingEvaluator.MAX_STUDENTS + 1];
+            for (int estudiantes = TimetablingEvaluator.MIN_STUDENTS;
+                 estudiantes <= TimetablingEvaluator.MAX_STUDENTS; estudiantes++) {
+                fila[estudiantes] = TimetablingEvaluator.evaluateCapacity(capacidad, estudiantes);
+            }
+            CAPACITY_SCORES[capacidad] = fila;
+        }
+
+        // Niveles representativos de cada categoría
+        int[] niveles = {1, 3, 4};
+        for (int categoria = 0; categoria < niveles.length; categoria++) {
+            for (int bloque = 0; bloque <= BLOQUES_POR_DIA; bloque++) {
+                TIME_SLOT_SCORES[categoria][bloque] = TimetablingEvaluator.evaluateTimeSlot(niveles[categoria], bloque);
+            }
+        }
+    }
+
+    private BitmaskTimetablingEvaluator() {
+    }
+
+    /**
+     * @param semana Bloques ocupados de la sala, incluido {@code block}.
+     */
+    public static int calculateSatisfaction(
+            int roomCapacity,
+            int studentsCount,
+            int nivel,
+            String campus,
+            String preferredCampus,
+            int block,
+            long semana) {
+
+        if (studentsCount < TimetablingEvaluator.MIN_STUDENTS || studentsCount > TimetablingEvaluator.MAX_STUDENTS) {
+            return 1; // Minimum satisfaction for invalid student counts
+        }
+
+        return TimetablingEvaluator.combine(
+                capacityScore(roomCapacity, studentsCount),
+                timeSlotScore(nivel, block),
+                campusScore(campus, preferredCampus, semana),
+                continuityScore(semana)
+        );
+    }
+
+    /**
+     * Puntaje de agregar el bloque {@code block} (1..9) de {@code dia} a {@code semana}, sin armar la semana
+     * nueva ni recorrer de nuevo los otros días. Equivale a {@link #calculateSatisfaction} sobre la semana
+     * con el bloque incluido.
+     * @param diasConHueco {@link #diasConHueco(long)} de {@code semana}; se calcula una vez y sirve para
+     *                     todos los bloques candidatos.
+     */
+    public static int calculateSatisfactionDelta(
+            int roomCapacity,
+            int studentsCount,
+            int nivel,
+            String campus,
+            String preferredCampus,
+            long semana,
+            int diasConHueco,
+            Day dia,
+            int block) {
+
+        if (studentsCount < TimetablingEvaluator.MIN_STUDENTS || studentsCount > TimetablingEvaluator.MAX_STUDENTS) {
+            return 1; // Minimum satisfaction for invalid student counts
+        }
+
+        int desplazamiento = dia.ordinal() * BLOQUES_POR_DIA;
+        long conBloque = semana | (1L << (desplazamiento + block - 1));
+
+        // Solo cambia la continuidad del día del bloque
+        boolean hueco = (diasConHueco & ~(1 << dia.ordinal())) != 0 ||
+                hasLargeGap((int) (conBloque >>> desplazamiento) & MASCARA_DIA);
+
+        return TimetablingEvaluator.combine(
+                capacityScore(roomCapacity, studentsCount),
+                timeSlotScore(nivel, block),
+                campusScore(campus, preferredCampus, conBloque),
+                hueco ? 0.6 : 1.0
+        );
+    }
+
+    /**
+     * Días de la semana con un hueco grande, con el bit {@code dia.ordinal()} encendido.
+     */
+    public static int diasConHueco(long semana) {
+        int dias = 0;
+        for (int dia = 0; dia < DIAS; dia++) {
+            if (hasLargeGap((int) (semana >>> (dia * BLOQUES_POR_DIA)) & MASCARA_DIA)) {
+                dias |= 1 << dia;
+            }
+        }
+        return dias;
+    }
+
+    /**
+     * Solo para {@code studentsCount} dentro de [MIN_STUDENTS, MAX_STUDENTS].
+     */
+    public static double capacityScore(int roomCapacity, int studentsCount) {
+        if (roomCapacity >= 0 && roomCapacity <= MAX_CAPACIDAD_TABLA) {
+            return CAPACITY_SCORES[roomCapacity][studentsCount];
+        }
+        return TimetablingEvaluator.evaluateCapacity(roomCapacity, studentsCount);
+    }
+
+    public static double timeSlotScore(int nivel, int block) {
+        if (block < 0 || block > BLOQUES_POR_DIA) {
+            return 0.0;
+        }
+        int categoria = nivel <= 2 ? 0 : (nivel % 2 == 1 ? 1 : 2);
+        return TIME_SLOT_SCORES[categoria][block];
+    }
+
+    public static double campusScore(String campus, String preferredCampus, long semana) {
+        if (campus.equals(preferredCampus)) {
+            return 1.0;
+        }
+        // Penalty for multiple campus transitions when the room already has classes
+        return semana != 0 ? 0.5 : 0.7;
+    }
+
+    public static double continuityScore(long semana) {
+        return diasConHueco(semana) != 0 ? 0.6 : 1.0;
+    }
+
+    /**
+     * Si hay dos bloques ocupados seguidos en el día separados por más de 2 (dos o más libres entre ellos).
+     */
+    public static boolean hasLargeGap(int mascaraDia) {
+        if (Integer.bitCount(mascaraDia) < 2) {
+            return false;
+        }
+        // Libres entre el primer y el último bloque ocupado
+        int desde = Integer.lowestOneBit(mascaraDia);
+        int hasta = Integer.highestOneBit(mascaraDia);
+        int huecos = ~mascaraDia & (hasta - desde);
+        return (huecos & (huecos >>> 1)) != 0;
+    }
+}
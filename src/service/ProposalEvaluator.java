@@ -0,0 +1,289 @@
+package service;
+
+import constants.Commons;
+import constants.enums.Day;
+import objetos.Asignatura;
+import objetos.BloqueInfo;
+import objetos.HorarioProfesor;
+import objetos.helper.BatchProposal;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Filtra y ordena las propuestas de las salas según el horario actual del profesor.
+ * Es el camino crítico del agente profesor en cada ronda de CFP.
+ */
+public class ProposalEvaluator {
+    private final HorarioProfesor horario;
+
+    public ProposalEvaluator(HorarioProfesor horario) {
+        this.horario = horario;
+    }
+
+    public List<BatchProposal> filterAndSortProposals(List<BatchProposal> proposals,
+                                                      Asignatura currentSubject,
+                                                      int bloquesPendientes) {
+        if (proposals.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        String currentCampus = currentSubject.getCampus();
+        int currentNivel = currentSubject.getNivel();
+        String currentAsignaturaNombre = currentSubject.getNombre();
+
+        // Track current schedule state
+        int[] blocksPerDay = new int[Day.values().length];
+        Map<String, Integer> roomUsage = new HashMap<>();
+        String mostUsedRoom = null;
+
+        // Calculate current room and day usage
+        for (Day day : Day.values()) {
+            int blocks = horario.getSubjectDayMask(currentAsignaturaNombre, day);
+            blocksPerDay[day.ordinal()] = Integer.bitCount(blocks);
+
+            // Get room usage and track most used room
+            for (; blocks != 0; blocks &= blocks - 1) {
+                BloqueInfo info = horario.getBloqueInfo(day, Integer.numberOfTrailingZeros(blocks) + 1);
+                if (info != null) {
+                    String room = info.getCampus();
+                    int count = roomUsage.merge(room, 1, Integer::sum);
+                    if (mostUsedRoom == null || count > roomUsage.getOrDefault(mostUsedRoom, 0)) {
+                        mostUsedRoom = room;
+                    }
+                }
+            }
+        }
+
+        // Pre-calculate common values
+        boolean isOddYear = currentNivel % 2 == 1;
+
+        ArrayList<BatchProposalScore> scoredProposals = new ArrayList<>();
+
+        // Filter and score proposals
+        for (BatchProposal proposal : proposals) {
+            if (!isValidProposalFast(proposal, currentSubject, isOddYear, currentAsignaturaNombre, bloquesPendientes)) {
+                continue;
+            }
+
+            Map<Day, List<BatchProposal.BlockProposal>> dayProposals = proposal.getDayProposals();
+            int totalScore = calculateProposalScore(proposal, currentCampus, currentNivel, currentSubject);
+
+            for (Map.Entry<Day, List<BatchProposal.BlockProposal>> entry : dayProposals.entrySet()) {
+                Day proposalDay = entry.getKey();
+                int dayUsage = blocksPerDay[proposalDay.ordinal()];
+
+                // Day-based scoring
+                totalScore -= dayUsage * 6000;  // Penalty for same-day assignments
+
+                if (dayUsage == 0) {
+                    totalScore += 8000;  // Bonus for new days
+                }
+
+                // Room consistency scoring
+                if (proposal.getRoomCode().equals(mostUsedRoom)) {
+                    totalScore += 7000;
+                }
+
+                if (!proposal.getRoomCode().startsWith(currentCampus.substring(0, 1))) {
+                    totalScore -= 10000;
+                }
+
+                // Penalize room changes
+                int roomCount = roomUsage.getOrDefault(proposal.getRoomCode(), 0);
+                totalScore -= roomCount * 1500;
+
+                // Campus transition penalty
+                if (!proposal.getRoomCode().startsWith(currentCampus.substring(0, 1))) {
+                    for (BatchProposal.BlockProposal block : entry.getValue()) {
+                        BloqueInfo prevBlock = horario.getBloqueInfo(proposalDay, block.getBlock() - 1);
+                        BloqueInfo nextBlock = horario.getBloqueInfo(proposalDay, block.getBlock() + 1);
+
+                        if ((prevBlock != null && !prevBlock.getCampus().equals(currentCampus)) ||
+                                (nextBlock != null && !nextBlock.getCampus().equals(currentCampus))) {
+                            totalScore -= 8000;
+                        }
+                    }
+                }
+
+                // Penalty for too many blocks in one day
+                if (dayUsage >= 2) {
+                    totalScore -= 6000;
+                }
+            }
+
+            scoredProposals.add(new BatchProposalScore(proposal, totalScore));
+        }
+
+        if (scoredProposals.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // Sort by final scores
+        scoredProposals.sort((ps1, ps2) -> ps2.score - ps1.score);
+
+        // Convert to List<BatchProposal>
+        return scoredProposals.stream()
+                .map(ps -> ps.proposal)
+                .collect(Collectors.toList());
+    }
+
+    private static class BatchProposalScore {
+        final BatchProposal proposal;
+        final int score;
+
+        BatchProposalScore(BatchProposal proposal, int score) {
+            this.proposal = proposal;
+            this.score = score;
+        }
+    }
+
+    public boolean isValidProposalFast(BatchProposal proposal, Asignatura asignatura,
+                                       boolean isOddYear, String asignaturaNombre,
+                                       int bloquesPendientes) {
+        // Basic room validation
+        if (!checkCampusConstraints(proposal, asignatura.getCampus())) {
+            return false;
+        }
+
+        // Check each day's blocks
+        for (Map.Entry<Day, List<BatchProposal.BlockProposal>> entry : proposal.getDayProposals().entrySet()) {
+            Day day = entry.getKey();
+            List<BatchProposal.BlockProposal> blocks = entry.getValue();
+
+            // Sin límite de bloques por día: el chequeo anterior buscaba el nombre de la asignatura entre
+            // claves de instancia y nunca se aplicaba. Un límite real tendría que ser por instancia (los
+            // paralelos comparten nombre) y decidir qué pasa con las asignaturas de más de 10 horas.
+
+            // Validate each block in the day
+            for (BatchProposal.BlockProposal block : blocks) {
+                int bloque = block.getBlock();
+
+                // Basic time constraints
+                if (bloque < 1 || bloque > Commons.MAX_BLOQUE_DIURNO) {
+                    continue;
+                }
+
+                // Block 9 constraint
+                if (bloque == Commons.MAX_BLOQUE_DIURNO && bloquesPendientes % 2 == 0) {
+                    continue;
+                }
+
+                // Year-based constraints
+                if (isOddYear) {
+                    if (bloque > 4 && bloque != Commons.MAX_BLOQUE_DIURNO) {
+                        continue;
+                    }
+                } else {
+                    if (bloque < 5 && proposal.getSatisfactionScore() < 8) {
+                        continue;
+                    }
+                }
+
+                // If we find at least one valid block, proposal is valid
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public int calculateProposalScore(BatchProposal proposal, String currentCampus,
+                                      int nivel, Asignatura subject) {
+        int score = 0;
+
+        // Campus consistency (high priority)
+        if (proposal.getCampus().equals(currentCampus)) {
+            score += 10000;
+        } else {
+            score -= 10000;
+        }
+
+        // Time preference based on year
+        boolean isOddYear = nivel % 2 == 1;
+        for (Map.Entry<Day, List<BatchProposal.BlockProposal>> entry : proposal.getDayProposals().entrySet()) {
+            for (BatchProposal.BlockProposal block : entry.getValue()) {
+                if (isOddYear) {
+                    if (block.getBlock() <= 4) score += 3000;
+                } else {
+                    if (block.getBlock() >= 5) score += 3000;
+                }
+            }
+        }
+
+        // Base satisfaction score
+        score += proposal.getSatisfactionScore() * 10;
+
+        // Capacity score - prefer rooms that closely match needed capacity
+        int capacityDiff = Math.abs(proposal.getCapacity() - subject.getVacantes());
+        score -= capacityDiff * 100;
+
+        return score;
+    }
+
+    public boolean checkCampusConstraints(BatchProposal proposal, String currentCampus) {
+        String proposedCampus = getCampusSala(proposal.getRoomCode());
+
+        // If same campus, always valid
+        if (proposedCampus.equals(currentCampus)) {
+            return true;
+        }
+
+        // Check transitions for each day in the proposal
+        for (Map.Entry<Day, List<BatchProposal.BlockProposal>> entry : proposal.getDayProposals().entrySet()) {
+            Day dia = entry.getKey();
+
+            // Check if there's already a campus transition this day
+            if (hasExistingTransitionInDay(dia)) {
+                return false;
+            }
+
+            // Validate buffer blocks for each proposed block
+            for (BatchProposal.BlockProposal blockProposal : entry.getValue()) {
+                if (!validateTransitionBuffer(dia, blockProposal.getBlock(), proposal.getRoomCode())) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    // Updated to take individual parameters instead of Propuesta
+    private boolean validateTransitionBuffer(Day dia, int bloque, String codigoSala) {
+        String proposedCampus = getCampusSala(codigoSala);
+
+        BloqueInfo prevBlock = horario.getBloqueInfo(dia, bloque - 1);
+        BloqueInfo nextBlock = horario.getBloqueInfo(dia, bloque + 1);
+
+        // Check if there's at least one empty block between different campuses
+        if (prevBlock != null && !prevBlock.getCampus().equals(proposedCampus)) {
+            return horario.isBlockAvailable(dia, bloque - 1);
+        }
+
+        if (nextBlock != null && !nextBlock.getCampus().equals(proposedCampus)) {
+            return horario.isBlockAvailable(dia, bloque + 1);
+        }
+
+        return true;
+    }
+
+    private boolean hasExistingTransitionInDay(Day dia) {
+        String previousCampus = null;
+
+        // Blocks of the day in ascending order
+        for (int blocks = horario.getDayMask(dia); blocks != 0; blocks &= blocks - 1) {
+            BloqueInfo block = horario.getBloqueInfo(dia, Integer.numberOfTrailingZeros(blocks) + 1);
+            if (previousCampus != null && !previousCampus.equals(block.getCampus())) {
+                return true;
+            }
+            previousCampus = block.getCampus();
+        }
+
+        return false;
+    }
+
+    private String getCampusSala(String codigoSala) {
+        return codigoSala.startsWith("KAU") ? "Kaufmann" : "Playa Brava";
+    }
+}
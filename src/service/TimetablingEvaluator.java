@@ -9,8 +9,8 @@ public class TimetablingEvaluator {
     // Constants for room occupancy thresholds
     private static final double OPTIMAL_OCCUPANCY_MIN = 0.75;
     private static final double OPTIMAL_OCCUPANCY_MAX = 0.95;
-    private static final int MIN_STUDENTS = 9;
-    private static final int MAX_STUDENTS = 70;
+    static final int MIN_STUDENTS = 9;
+    static final int MAX_STUDENTS = 70;
 
     // Weights for different constraints
     private static final double CAPACITY_WEIGHT = 0.35;
@@ -41,6 +41,11 @@ public class TimetablingEvaluator {
         double campusScore = evaluateCampus(campus, preferredCampus, existingBlocks);
         double continuityScore = evaluateContinuity(existingBlocks);
 
+        return combine(capacityScore, timeSlotScore, campusScore, continuityScore);
+    }
+
+    // Shared with BitmaskTimetablingEvaluator so both produce the same scores
+    static int combine(double capacityScore, double timeSlotScore, double campusScore, double continuityScore) {
         // Calculate weighted average
         double weightedScore = (
                 capacityScore * CAPACITY_WEIGHT +
@@ -53,7 +58,7 @@ public class TimetablingEvaluator {
         return Math.max(1, Math.min(10, (int) Math.round(weightedScore)));
     }
 
-    private static double evaluateCapacity(int roomCapacity, int studentsCount) {
+    static double evaluateCapacity(int roomCapacity, int studentsCount) {
         double occupancyRatio = (double) studentsCount / roomCapacity;
 
         // Optimal efficiency: 75-95% room capacity
@@ -70,7 +75,7 @@ public class TimetablingEvaluator {
         }
     }
 
-    private static double evaluateTimeSlot(int nivel, int block) {
+    static double evaluateTimeSlot(int nivel, int block) {
         // Constraint 1: Only blocks 1-9 (8:00-18:30)
         if (block < 1 || block > Commons.MAX_BLOQUE_DIURNO) {
             return 0.0;